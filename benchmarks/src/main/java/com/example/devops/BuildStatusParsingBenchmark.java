@@ -0,0 +1,49 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streaming parse behind getBuildStatus, against a recorded full /job/xpg/42/api/json
+ * response (a finished pipeline run with SCM and test actions, about 12 KB).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildStatusParsingBenchmark {
+
+    private JenkinsService jenkins;
+    private String recordedBuild;
+
+    @Setup
+    public void setUp() {
+        jenkins = new JenkinsService();
+        try (InputStream in = BuildStatusParsingBenchmark.class.getResourceAsStream("/jenkins-build-42.json")) {
+            recordedBuild = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public String toBuildStatus() {
+        return jenkins.toBuildStatus(recordedBuild, 42);
+    }
+}
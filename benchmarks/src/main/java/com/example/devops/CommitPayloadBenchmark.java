@@ -0,0 +1,62 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base64 and JSON encoding of a commitFile request body for source files from 1 KB
+ * to 1 MB. Run with -prof gc to see the copies each step makes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommitPayloadBenchmark {
+
+    @Param({"1024", "16384", "131072", "1048576"})
+    public int contentBytes;
+
+    private GitHubService github;
+    private String content;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        github = new GitHubService();
+        String line = "    System.out.println(\"Hello from the DevOps pipeline\"); // 0123456789\n";
+        StringBuilder source = new StringBuilder(contentBytes + line.length());
+        while (source.length() < contentBytes) {
+            source.append(line);
+        }
+        content = source.substring(0, contentBytes);
+        encoded = GitHubService.encodeContent(content);
+    }
+
+    @Benchmark
+    public String encodeContent() {
+        return GitHubService.encodeContent(content);
+    }
+
+    @Benchmark
+    public String contentsRequestBody() {
+        return github.contentsRequestBody(encoded, "Update code via DevOps Pipeline", "3f1c2a9e8d7b6c5a4f3e2d1c0b9a8f7e6d5c4b3a");
+    }
+
+    @Benchmark
+    public String encodeAndSerialize() {
+        return github.contentsRequestBody(GitHubService.encodeContent(content), "Update code via DevOps Pipeline", null);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering the dashboard and console pages from their string templates, the one-time
+ * precompression done at startup, and the per-request variant lookup that replaced
+ * per-request rendering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageRenderingBenchmark {
+
+    private String dashboardHtml;
+    private PrecompressedPage dashboardPage;
+
+    @Setup
+    public void setUp() {
+        dashboardHtml = App.getDashboard();
+        dashboardPage = new PrecompressedPage("text/html; charset=utf-8", dashboardHtml);
+    }
+
+    @Benchmark
+    public String renderDashboard() {
+        return App.getDashboard();
+    }
+
+    @Benchmark
+    public String renderJenkinsBuildConsole() {
+        return App.getJenkinsBuildConsole();
+    }
+
+    @Benchmark
+    public PrecompressedPage precompressDashboard() {
+        return new PrecompressedPage("text/html; charset=utf-8", dashboardHtml);
+    }
+
+    @Benchmark
+    public PrecompressedPage.Variant selectPrecompressedVariant() {
+        return dashboardPage.select("gzip, deflate, br");
+    }
+}
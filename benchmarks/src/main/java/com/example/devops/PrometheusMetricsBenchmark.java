@@ -0,0 +1,51 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one /metrics scrape with the meters a busy instance carries: every route
+ * template seen with a few status codes, plus the hand-written component metrics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrometheusMetricsBenchmark {
+
+    static final String[] ROUTES = {
+            "/", "/health", "/metrics", "/jenkins-build", "/api/commit", "/api/commit/batch",
+            "/api/workflows/:id", "/api/build-status/:number", "/api/build-log/:number",
+            "/api/builds/:number/events", "/*"
+    };
+    private static final int[] STATUSES = {200, 304, 404, 500};
+
+    @Setup
+    public void recordTraffic() {
+        for (String route : ROUTES) {
+            for (int status : STATUSES) {
+                for (int i = 0; i < 50; i++) {
+                    App.ROUTE_METRICS.record("GET", route, status, 1_000_000L * (i + 1), 128, 4096);
+                }
+            }
+            App.ROUTE_METRICS.countCall(route);
+        }
+    }
+
+    @Benchmark
+    public String buildPrometheusMetrics() {
+        return App.buildPrometheusMetrics();
+    }
+}
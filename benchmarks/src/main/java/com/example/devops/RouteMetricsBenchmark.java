@@ -0,0 +1,67 @@
+package com.example.devops;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request instrumentation cost under contention: the endpoint counter (what
+ * incrementEndpointCounter used to do), route template resolution, and the full
+ * timer + size recording done by the afterAfter filter. Eight threads share one
+ * registry, as Jetty's request threads do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RouteMetricsBenchmark {
+
+    private RouteMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        List<RouteMetrics.Template> templates = List.of(
+                new RouteMetrics.Template("options", "/*"),
+                new RouteMetrics.Template("get", "/health"),
+                new RouteMetrics.Template("get", "/"),
+                new RouteMetrics.Template("post", "/api/commit"),
+                new RouteMetrics.Template("get", "/api/workflows/:id"),
+                new RouteMetrics.Template("get", "/api/build-status/:number"),
+                new RouteMetrics.Template("get", "/api/build-log/:number"),
+                new RouteMetrics.Template("get", "/api/builds/:number/events"),
+                new RouteMetrics.Template("get", "/metrics"));
+        metrics = new RouteMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), () -> templates);
+        metrics.refresh();
+    }
+
+    @Benchmark
+    public void countCall() {
+        metrics.countCall("/api/build-status/:number");
+    }
+
+    @Benchmark
+    public String resolveTemplate() {
+        return metrics.resolve("GET", "/api/build-log/1234");
+    }
+
+    @Benchmark
+    public void recordRequest() {
+        metrics.record("GET", "/api/build-status/:number", 200, 2_500_000, -1, 180);
+    }
+}
@@ -1,16 +1,33 @@
 package com.example.devops;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 
-import io.micrometer.core.instrument.Counter;
 import io.micrometer.prometheus.PrometheusConfig;
 import io.micrometer.prometheus.PrometheusMeterRegistry;
+import spark.Request;
+import spark.Response;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import static spark.Spark.after;
+import static spark.Spark.afterAfter;
+import static spark.Spark.before;
 import static spark.Spark.exception;
 import static spark.Spark.get;
 import static spark.Spark.internalServerError;
@@ -21,14 +38,72 @@ import static spark.Spark.post;
 public class App {
     public static final String MESSAGE = "DevOps Pipeline Working";
     private static final int DEFAULT_PORT = 8800;
-    private static final String REQUEST_COUNTER_NAME = "http_requests_total";
+    private static final int MAX_BATCH_FILES = 100;
+    private static final int DEFAULT_HISTORY_PAGE = 50;
+    private static final int MAX_HISTORY_PAGE = 500;
+    private static final int DEFAULT_LOG_LINES = 200;
+    private static final int MAX_LOG_LINES = 5000;
+    private static final int DEFAULT_SEARCH_MATCHES = 100;
+    private static final int MAX_SEARCH_MATCHES = 1000;
+    private static final int MAX_SEARCH_QUERY = 200;
+    /** Contents API calls per single-file commit: the SHA lookup and the PUT. */
+    private static final int GITHUB_CALLS_PER_COMMIT = 2;
+    /** Git Data API calls per batch besides one blob per file: ref, head commit, tree, commit, ref update. */
+    private static final int GITHUB_CALLS_PER_BATCH = 5;
     private static final PrometheusMeterRegistry PROMETHEUS_REGISTRY = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
-    private static final ConcurrentMap<String, Counter> ENDPOINT_COUNTERS = new ConcurrentHashMap<>();
+    static final RouteMetrics ROUTE_METRICS = RouteMetrics.forSpark(PROMETHEUS_REGISTRY);
+    private static final HttpClientRegistry HTTP_CLIENTS = HttpClientRegistry.getDefault();
+    private static final GitHubService GITHUB = new GitHubService(HTTP_CLIENTS);
+    private static final JenkinsService JENKINS = new JenkinsService(HTTP_CLIENTS);
+    private static final CommitAdmission COMMIT_ADMISSION = new CommitAdmission(Config.COMMIT_RATE_PER_MINUTE,
+            Config.COMMIT_BURST, Config.COMMIT_GLOBAL_BURST, Config.COMMIT_GITHUB_RESERVE, HTTP_CLIENTS.github());
+    private static final BuildHistory BUILD_HISTORY = openBuildHistory();
+    private static final WorkflowEngine WORKFLOW_ENGINE = new WorkflowEngine(
+            GITHUB, JENKINS,
+            Config.WORKFLOW_THREADS, Config.WORKFLOW_QUEUE_CAPACITY, Config.WORKFLOW_RETENTION,
+            BUILD_HISTORY::buildStarted);
+    private static final BuildStateStore BUILD_STATE = new BuildStateStore(
+            Config.BUILD_STATE_CAPACITY, Config.BUILD_STATE_RUNNING_TRUST_SECONDS * 1000L);
+    private static final BuildStatusCache BUILD_STATUS = new BuildStatusCache(
+            JENKINS::getBuildStatus, Config.BUILD_STATUS_TTL_MILLIS, Config.BUILD_STATUS_CACHE_SIZE);
+    private static final BuildStatusCache BUILD_STAGES = new BuildStatusCache(
+            JENKINS::getBuildStages, Config.BUILD_STATUS_TTL_MILLIS, Config.BUILD_STATUS_CACHE_SIZE);
+    private static final ConsoleLogStore CONSOLE_LOGS = new ConsoleLogStore(
+            Path.of(Config.LOG_CACHE_DIR), JENKINS::downloadConsoleOutput,
+            Config.LOG_CACHE_MAX_MB * 1024L * 1024L, Duration.ofHours(Config.LOG_CACHE_MAX_AGE_HOURS),
+            Config.LOG_INDEX_CACHE_SIZE);
+    private static final BuildEventSummaries BUILD_SUMMARIES = new BuildEventSummaries(
+            JENKINS::getConsoleChunk, Config.BUILD_SUMMARY_CACHE_SIZE);
+    private static final BuildEventHub BUILD_EVENTS = new BuildEventHub(
+            JENKINS, Config.SSE_POLL_MILLIS, Config.SSE_REPLAY_BYTES, Config.SSE_MAX_SUBSCRIBERS);
+    private static final PrecompressedPage DASHBOARD_PAGE = new PrecompressedPage(
+            "text/html; charset=utf-8", getDashboard());
+    private static final PrecompressedPage CONSOLE_PAGE = new PrecompressedPage(
+            "text/html; charset=utf-8", getJenkinsBuildConsole());
+    private static final ResponseCompression COMPRESSION = new ResponseCompression(Config.COMPRESSION_MIN_BYTES);
+    private static final ServerThreadPool SERVER_THREADS = ServerThreadPool.create(
+            Config.SERVER_VIRTUAL_THREADS, Config.SERVER_MAX_THREADS);
 
     public static void main(String[] args) {
         int appPort = resolvePort();
+        HTTP_CLIENTS.bindTo(PROMETHEUS_REGISTRY);
+        JENKINS.getQueueResolver().bindTo(PROMETHEUS_REGISTRY);
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                new EmbeddedJettyFactory().withThreadPool(SERVER_THREADS.getThreadPool()));
         port(appPort);
 
+        CONSOLE_LOGS.evict();
+        BUILD_HISTORY.startPolling(App::currentBuildStatus, Config.BUILD_HISTORY_POLL_SECONDS);
+
+        if (Config.UPSTREAM_PRECONNECT) {
+            HTTP_CLIENTS.preconnect();
+        }
+
+        before((req, res) -> SERVER_THREADS.requestStarted());
+        before(ROUTE_METRICS.before());
+        afterAfter(ROUTE_METRICS.afterAfter());
+        afterAfter((req, res) -> SERVER_THREADS.requestFinished());
+
         options("/*", (req, res) -> {
             String requestedHeaders = req.headers("Access-Control-Request-Headers");
             if (requestedHeaders != null) {
@@ -49,6 +124,11 @@ public class App {
 
         exception(Exception.class, (error, req, res) -> {
             if (req.pathInfo() != null && req.pathInfo().startsWith("/api/")) {
+                UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(error);
+                if (unavailable != null) {
+                    res.body(upstreamUnavailable(res, unavailable));
+                    return;
+                }
                 res.type("application/json");
                 res.status(500);
                 res.body(jsonError("Internal server error: " + safeErrorMessage(error)));
@@ -64,18 +144,14 @@ public class App {
         });
 
         get("/health", (req, res) -> {
-            incrementEndpointCounter("/health");
             return "OK";
         });
 
         get("/", (req, res) -> {
-            incrementEndpointCounter("/");
-            res.type("text/html");
-            return getDashboard();
+            return servePage(DASHBOARD_PAGE, req, res);
         });
 
         post("/api/commit", (req, res) -> {
-            incrementEndpointCounter("/api/commit");
             res.type("application/json");
             String code = req.queryParams("code");
             if (code == null || code.isBlank()) {
@@ -90,79 +166,393 @@ public class App {
                         + ". Update .env (or environment variables) and restart backend.");
             }
 
+            UpstreamUnavailableException unavailable = unavailableForCommits();
+            if (unavailable != null) {
+                return upstreamUnavailable(res, unavailable);
+            }
+
+            CommitAdmission.Decision admission = COMMIT_ADMISSION.admit(req.ip(), GITHUB_CALLS_PER_COMMIT);
+            if (!admission.isAdmitted()) {
+                return tooManyCommits(res, admission);
+            }
+
             String filename = valueOrDefault(req.queryParams("filename"), "code.txt");
             String message = valueOrDefault(req.queryParams("message"), "Commit from DevOps Pipeline");
 
-            System.out.println("[INFO] Committing payload to GitHub: " + filename + " — " + message);
+            System.out.println("[INFO] Queueing commit workflow: " + filename + " — " + message);
+            CommitWorkflow workflow;
             try {
-                GitHubService gitHub = new GitHubService();
-                String commitSha = gitHub.commitFile(filename, code, message);
-                System.out.println("[INFO] GitHub commit created: " + shortSha(commitSha));
-
-                JenkinsService jenkins = new JenkinsService();
-                String queueUrl = jenkins.triggerBuild();
-                int buildNumber = jenkins.resolveBuildNumber(queueUrl);
-                System.out.println("[INFO] Jenkins build #" + buildNumber + " started.");
-
-                JsonObject payload = new JsonObject();
-                payload.addProperty("status", "success");
-                payload.addProperty("buildNumber", buildNumber);
-                payload.addProperty("commitSha", commitSha);
-                payload.addProperty("message", "Committed to GitHub (" + shortSha(commitSha)
-                        + ") and triggered Jenkins build #" + buildNumber + ".");
-                return payload.toString();
-            } catch (Exception e) {
-                String safeMessage = safeErrorMessage(e);
-                System.err.println("[ERROR] Commit workflow failed: " + safeMessage);
+                workflow = WORKFLOW_ENGINE.submit(filename, code, message);
+            } catch (RejectedExecutionException e) {
+                COMMIT_ADMISSION.release(admission);
+                res.status(503);
+                res.header("Retry-After", "5");
+                return jsonError("Commit workflow queue is full. Try again shortly.");
+            }
+
+            JsonObject payload = new JsonObject();
+            payload.addProperty("status", "accepted");
+            payload.addProperty("workflowId", workflow.getId());
+            payload.addProperty("statusUrl", "/api/workflows/" + workflow.getId());
+            payload.addProperty("message", "Commit accepted. Track progress at /api/workflows/" + workflow.getId() + ".");
+            res.status(202);
+            res.header("Location", "/api/workflows/" + workflow.getId());
+            return payload.toString();
+        });
+
+        post("/api/commit/batch", (req, res) -> {
+            res.type("application/json");
+
+            JsonObject body;
+            try {
+                body = JsonParser.parseString(req.body()).getAsJsonObject();
+            } catch (RuntimeException e) {
+                res.status(400);
+                return jsonError("Request body must be a JSON object: {\"message\": \"...\", \"files\": [{\"path\": \"...\", \"content\": \"...\"}]}");
+            }
+
+            List<GitHubService.FileChange> files = new ArrayList<>();
+            String invalid = parseBatchFiles(body, files);
+            if (invalid != null) {
+                res.status(400);
+                return jsonError(invalid);
+            }
+
+            String missingConfig = missingCommitConfiguration();
+            if (missingConfig != null) {
                 res.status(500);
-                return jsonError(safeMessage);
+                return jsonError("Missing configuration: " + missingConfig
+                        + ". Update .env (or environment variables) and restart backend.");
+            }
+
+            UpstreamUnavailableException unavailable = unavailableForCommits();
+            if (unavailable != null) {
+                return upstreamUnavailable(res, unavailable);
+            }
+
+            CommitAdmission.Decision admission = COMMIT_ADMISSION.admit(req.ip(), GITHUB_CALLS_PER_BATCH + files.size());
+            if (!admission.isAdmitted()) {
+                return tooManyCommits(res, admission);
+            }
+
+            String message = valueOrDefault(body.has("message") && body.get("message").isJsonPrimitive()
+                    ? body.get("message").getAsString() : null, "Batch commit from DevOps Pipeline");
+
+            System.out.println("[INFO] Queueing batch commit workflow: " + files.size() + " files — " + message);
+            CommitWorkflow workflow;
+            try {
+                workflow = WORKFLOW_ENGINE.submitBatch(files, message);
+            } catch (RejectedExecutionException e) {
+                COMMIT_ADMISSION.release(admission);
+                res.status(503);
+                res.header("Retry-After", "5");
+                return jsonError("Commit workflow queue is full. Try again shortly.");
+            }
+
+            JsonObject payload = new JsonObject();
+            payload.addProperty("status", "accepted");
+            payload.addProperty("workflowId", workflow.getId());
+            payload.addProperty("statusUrl", "/api/workflows/" + workflow.getId());
+            payload.addProperty("files", files.size());
+            payload.addProperty("message", "Batch of " + files.size() + " files accepted. Track progress at /api/workflows/"
+                    + workflow.getId() + ".");
+            res.status(202);
+            res.header("Location", "/api/workflows/" + workflow.getId());
+            return payload.toString();
+        });
+
+        get("/api/workflows/:id", (req, res) -> {
+            res.type("application/json");
+            CommitWorkflow workflow = WORKFLOW_ENGINE.get(req.params("id"));
+            if (workflow == null) {
+                res.status(404);
+                return jsonError("Unknown workflow id: " + req.params("id"));
             }
+            return workflow.toJson().toString();
         });
 
         get("/jenkins-build", (req, res) -> {
-            incrementEndpointCounter("/jenkins-build");
-            res.type("text/html");
-            String build = req.queryParams("build");
-            return getJenkinsBuildConsole(build != null ? build : "latest");
+            // The page is identical for every build; its script reads ?build= itself
+            return servePage(CONSOLE_PAGE, req, res);
+        });
+
+        post("/api/hooks/jenkins", (req, res) -> {
+            res.type("application/json");
+            if (Config.JENKINS_WEBHOOK_TOKEN.isEmpty()) {
+                // Pushed state is trusted as final (history, log cache, queue resolution), so it must be authenticated
+                res.status(403);
+                return jsonError("Jenkins webhooks are disabled — set JENKINS_WEBHOOK_TOKEN to enable them.");
+            }
+            if (!webhookAuthorized(req)) {
+                res.status(401);
+                return jsonError("Invalid or missing webhook token.");
+            }
+            BuildStateStore.Notification notification;
+            try {
+                notification = BuildStateStore.parse(req.body());
+            } catch (JsonParseException e) {
+                notification = null;
+            }
+            if (notification == null) {
+                res.status(400);
+                return jsonError("Expected a Jenkins notification: {\"name\": \"job\", \"build\": {\"number\": 1, \"phase\": \"STARTED\"}}");
+            }
+            BuildStateStore.BuildState state = BUILD_STATE.record(notification);
+            if (notification.getJob().equals(Config.JENKINS_JOB)) {
+                if (notification.getQueueId() > 0 && notification.phase() != BuildStateStore.Phase.QUEUED) {
+                    JENKINS.getQueueResolver().started(notification.getQueueId(), notification.getNumber());
+                }
+                if (state.isFinished()) {
+                    BUILD_HISTORY.observe(notification.getNumber(), state.getJson());
+                }
+            }
+            JsonObject payload = new JsonObject();
+            payload.addProperty("status", "ok");
+            payload.addProperty("job", notification.getJob());
+            payload.addProperty("buildNumber", notification.getNumber());
+            payload.addProperty("phase", state.getPhase().name());
+            return payload.toString();
         });
 
         get("/api/build-status/:number", (req, res) -> {
-            incrementEndpointCounter("/api/build-status/:number");
             res.type("application/json");
+            int buildNumber;
+            try {
+                buildNumber = Integer.parseInt(req.params("number"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("Build number must be numeric.");
+            }
+            // Pushed webhook state first; Jenkins is only polled when no event has arrived
+            BuildStateStore.BuildState pushed = BUILD_STATE.get(Config.JENKINS_JOB, buildNumber);
+            if (pushed != null) {
+                return serveBuildStatus(req, res, pushed.getJson(), pushed.getEtag(), pushed.isFinished());
+            }
+            // Builds recorded in the history are finished and need no upstream call either
+            BuildHistory.Record recorded = BUILD_HISTORY.find(buildNumber);
+            if (recorded != null) {
+                String json = recorded.toBuildStatus();
+                return serveBuildStatus(req, res, json, BuildStatusCache.etagOf(json), true);
+            }
             if (!Config.isJenkinsConfigured()) {
                 return jsonError("Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN.");
             }
             try {
-                JenkinsService jenkins = new JenkinsService();
-                return jenkins.getBuildStatus(Integer.parseInt(req.params("number")));
+                BuildStatusCache.Entry status = BUILD_STATUS.get(buildNumber);
+                if (status.isFinished()) {
+                    BUILD_HISTORY.observe(buildNumber, status.getJson());
+                }
+                return serveBuildStatus(req, res, status.getJson(), status.getEtag(), status.isFinished());
             } catch (Exception e) {
+                UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(e);
+                if (unavailable != null) {
+                    return upstreamUnavailable(res, unavailable);
+                }
                 res.status(500);
                 return jsonError(safeErrorMessage(e));
             }
         });
 
-        get("/api/build-log/:number", (req, res) -> {
-            incrementEndpointCounter("/api/build-log/:number");
+        get("/api/builds", (req, res) -> {
+            res.type("application/json");
+            long since;
+            int limit;
+            try {
+                since = req.queryParams("since") == null ? 0 : Long.parseLong(req.queryParams("since"));
+                limit = req.queryParams("limit") == null ? DEFAULT_HISTORY_PAGE : Integer.parseInt(req.queryParams("limit"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("since and limit must be numeric.");
+            }
+            if (since < 0 || limit < 1 || limit > MAX_HISTORY_PAGE) {
+                res.status(400);
+                return jsonError("since must be >= 0 and limit between 1 and " + MAX_HISTORY_PAGE + ".");
+            }
+            return BUILD_HISTORY.pageJson(since, limit);
+        });
+
+        get("/api/build-log/:number", COMPRESSION.wrap((req, res) -> {
             res.type("text/plain");
             if (!Config.isJenkinsConfigured()) {
                 return "Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN environment variables.";
             }
             try {
-                JenkinsService jenkins = new JenkinsService();
-                return jenkins.getConsoleOutput(Integer.parseInt(req.params("number")));
+                int buildNumber = Integer.parseInt(req.params("number"));
+                String offset = req.queryParams("offset");
+                if (offset == null) {
+                    // Finished builds are served from the on-disk cache (with Range support)
+                    Path cached = CONSOLE_LOGS.find(buildNumber);
+                    if (cached == null && isFinished(buildNumber)) {
+                        try {
+                            cached = CONSOLE_LOGS.fetch(buildNumber);
+                        } catch (ConsoleLogStore.LogStillWritingException e) {
+                            // Post-build steps are still writing; serve the live log uncached
+                        }
+                    }
+                    if (cached != null) {
+                        String encoding = COMPRESSION.encodingFor(req.headers("Accept-Encoding"), Files.size(cached));
+                        CONSOLE_LOGS.serve(cached, buildNumber, req.headers("Range"), req.headers("If-Range"),
+                                req.headers("If-None-Match"), "gzip".equals(encoding), res.raw());
+                        return "";
+                    }
+                    return JENKINS.getConsoleOutput(buildNumber);
+                }
+
+                // Incremental mode: only the bytes after ?offset=, with the next offset in X-Text-Size
+                JenkinsService.ConsoleChunk chunk = JENKINS.getConsoleChunk(buildNumber, Long.parseLong(offset));
+                res.header("X-Text-Size", String.valueOf(chunk.getNextOffset()));
+                res.header("X-More-Data", String.valueOf(chunk.hasMoreData()));
+                res.header("Access-Control-Expose-Headers", "X-Text-Size,X-More-Data");
+                return chunk.getText();
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return "Build number and offset must be numeric.";
             } catch (Exception e) {
+                UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(e);
+                if (unavailable != null) {
+                    return upstreamUnavailable(res, unavailable);
+                }
                 res.status(500);
                 return "Error fetching Jenkins log: " + e.getMessage();
             }
+        }));
+
+        get("/api/build-log/:number/lines", COMPRESSION.wrap((req, res) -> {
+            res.type("application/json");
+            int buildNumber;
+            int from;
+            int limit;
+            try {
+                buildNumber = Integer.parseInt(req.params("number"));
+                from = req.queryParams("from") == null ? 1 : Integer.parseInt(req.queryParams("from"));
+                limit = req.queryParams("limit") == null ? DEFAULT_LOG_LINES : Integer.parseInt(req.queryParams("limit"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("Build number, from and limit must be numeric.");
+            }
+            if (from < 1 || limit < 1 || limit > MAX_LOG_LINES) {
+                res.status(400);
+                return jsonError("from must be >= 1 and limit between 1 and " + MAX_LOG_LINES + ".");
+            }
+            return withLogIndex(res, buildNumber, index -> index.linesJson(from, limit));
+        }));
+
+        get("/api/build-log/:number/search", COMPRESSION.wrap((req, res) -> {
+            res.type("application/json");
+            int buildNumber;
+            int limit;
+            try {
+                buildNumber = Integer.parseInt(req.params("number"));
+                limit = req.queryParams("limit") == null ? DEFAULT_SEARCH_MATCHES : Integer.parseInt(req.queryParams("limit"));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("Build number and limit must be numeric.");
+            }
+            String query = req.queryParams("q");
+            if (query == null || query.isBlank() || query.length() > MAX_SEARCH_QUERY
+                    || ConsoleLogIndex.tokenize(query).isEmpty()) {
+                res.status(400);
+                return jsonError("q must contain letters or digits and be at most " + MAX_SEARCH_QUERY + " characters.");
+            }
+            if (limit < 1 || limit > MAX_SEARCH_MATCHES) {
+                res.status(400);
+                return jsonError("limit must be between 1 and " + MAX_SEARCH_MATCHES + ".");
+            }
+            return withLogIndex(res, buildNumber, index -> index.searchJson(query, limit));
+        }));
+
+        get("/api/builds/:number/events-summary", COMPRESSION.wrap((req, res) -> {
+            res.type("application/json");
+            if (!Config.isJenkinsConfigured()) {
+                return jsonError("Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN.");
+            }
+            try {
+                return BUILD_SUMMARIES.summaryJson(Integer.parseInt(req.params("number")));
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("Build number must be numeric.");
+            } catch (Exception e) {
+                UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(e);
+                if (unavailable != null) {
+                    return upstreamUnavailable(res, unavailable);
+                }
+                res.status(500);
+                return jsonError("Error reading Jenkins log: " + safeErrorMessage(e));
+            }
+        }));
+
+        get("/api/builds/:number/stages", (req, res) -> {
+            res.type("application/json");
+            if (!Config.isJenkinsConfigured()) {
+                return jsonError("Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN.");
+            }
+            try {
+                // Finished runs come from BUILD_STAGES' LRU and are served as immutable
+                BuildStatusCache.Entry stages = BUILD_STAGES.get(Integer.parseInt(req.params("number")));
+                return serveBuildStatus(req, res, stages.getJson(), stages.getEtag(), stages.isFinished());
+            } catch (NumberFormatException e) {
+                res.status(400);
+                return jsonError("Build number must be numeric.");
+            } catch (Exception e) {
+                UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(e);
+                if (unavailable != null) {
+                    return upstreamUnavailable(res, unavailable);
+                }
+                res.status(500);
+                return jsonError("Error reading Jenkins stages: " + safeErrorMessage(e));
+            }
         });
 
-        get("/metrics", (req, res) -> {
-            incrementEndpointCounter("/metrics");
+        get("/api/builds/:number/events", (req, res) -> {
+            if (!Config.isJenkinsConfigured()) {
+                res.type("application/json");
+                res.status(503);
+                return jsonError("Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN.");
+            }
+
+            int buildNumber;
+            long lastEventId;
+            try {
+                buildNumber = Integer.parseInt(req.params("number"));
+                lastEventId = Long.parseLong(valueOrDefault(req.headers("Last-Event-ID"), "0"));
+            } catch (NumberFormatException e) {
+                res.type("application/json");
+                res.status(400);
+                return jsonError("Build number and Last-Event-ID must be numeric.");
+            }
+
+            BuildEventHub.Subscription subscription = BUILD_EVENTS.subscribe(buildNumber, lastEventId);
+            if (subscription == null) {
+                res.type("application/json");
+                res.status(503);
+                res.header("Retry-After", "10");
+                return jsonError("Too many open event streams. Fall back to polling.");
+            }
+
+            res.status(200);
+            res.type("text/event-stream");
+            res.header("Cache-Control", "no-cache");
+            res.header("X-Accel-Buffering", "no");
+            res.header("Access-Control-Allow-Origin", "*");
+            try {
+                BUILD_EVENTS.stream(subscription, res.raw().getOutputStream());
+            } catch (IOException e) {
+                // Client went away; the subscription is released below.
+            } finally {
+                BUILD_EVENTS.unsubscribe(subscription);
+            }
+            return "";
+        });
+
+        get("/metrics", COMPRESSION.wrap((req, res) -> {
             res.type("text/plain; version=0.0.4; charset=utf-8");
             return buildPrometheusMetrics();
-        });
+        }));
 
-        System.out.println("Server started: http://localhost:" + appPort);
+        ROUTE_METRICS.refresh();
+
+        System.out.println("Server started: http://localhost:" + appPort
+                + (SERVER_THREADS.isVirtual() ? " (virtual threads)" : ""));
         System.out.println(MESSAGE);
     }
 
@@ -188,30 +578,138 @@ public class App {
         return DEFAULT_PORT;
     }
 
-    private static void incrementEndpointCounter(String endpoint) {
-        Counter counter = ENDPOINT_COUNTERS.computeIfAbsent(endpoint, key ->
-                Counter.builder(REQUEST_COUNTER_NAME)
-                        .description("Number of times each application endpoint has been called")
-                        .tag("endpoint", key)
-                        .register(PROMETHEUS_REGISTRY));
-        counter.increment();
+    /**
+     * Micrometer meters (route timers, sizes, in-flight gauges, endpoint counters) from the
+     * registry, followed by the components that still write their own exposition text.
+     */
+    static String buildPrometheusMetrics() {
+        StringBuilder output = new StringBuilder(PROMETHEUS_REGISTRY.scrape());
+        HTTP_CLIENTS.appendPrometheusMetrics(output);
+        GITHUB.getContentCache().appendPrometheusMetrics(output);
+        BUILD_STATUS.appendPrometheusMetrics(output);
+        BUILD_STATE.appendPrometheusMetrics(output);
+        BUILD_HISTORY.appendPrometheusMetrics(output);
+        BUILD_SUMMARIES.appendPrometheusMetrics(output);
+        JENKINS.getQueueResolver().appendPrometheusMetrics(output);
+        SERVER_THREADS.appendPrometheusMetrics(output);
+        COMPRESSION.appendPrometheusMetrics(output);
+        COMMIT_ADMISSION.appendPrometheusMetrics(output);
+        return output.toString();
     }
 
-    private static String buildPrometheusMetrics() {
-        StringBuilder output = new StringBuilder();
-        output.append("# HELP ").append(REQUEST_COUNTER_NAME).append(" Number of times each application endpoint has been called\n");
-        output.append("# TYPE ").append(REQUEST_COUNTER_NAME).append(" counter\n");
+    /** Sends a build status with its ETag; finished builds never change, so they cache forever. */
+    private static String serveBuildStatus(Request req, Response res, String json, String etag, boolean finished) {
+        res.header("ETag", etag);
+        res.header("Cache-Control", finished ? "public, max-age=31536000, immutable" : "no-cache");
+        if (etagMatches(req.headers("If-None-Match"), etag)) {
+            res.status(304);
+            return "";
+        }
+        return json;
+    }
 
-        ENDPOINT_COUNTERS.entrySet().stream()
-                .sorted(java.util.Map.Entry.comparingByKey())
-                .forEach(entry -> output.append(REQUEST_COUNTER_NAME)
-                        .append("{endpoint=\"")
-                        .append(entry.getKey())
-                        .append("\"} ")
-                        .append(entry.getValue().count())
-                        .append('\n'));
+    /**
+     * Whether a build has a result, pushed or polled. Its log may still be growing
+     * (post-build output comes after COMPLETED); ConsoleLogStore's download checks that.
+     */
+    private static boolean isFinished(int buildNumber) throws Exception {
+        BuildStateStore.BuildState pushed = BUILD_STATE.get(Config.JENKINS_JOB, buildNumber);
+        if (pushed != null) {
+            return pushed.isFinished();
+        }
+        return BUILD_HISTORY.find(buildNumber) != null || BUILD_STATUS.get(buildNumber).isFinished();
+    }
 
-        return output.toString();
+    /** Reads from the index of a finished build's cached log, downloading the log first if needed. */
+    private static String withLogIndex(Response res, int buildNumber, LogIndexQuery query) {
+        try {
+            Path cached = CONSOLE_LOGS.find(buildNumber);
+            if (cached == null) {
+                if (!Config.isJenkinsConfigured()) {
+                    return jsonError("Jenkins not configured — set JENKINS_USER and JENKINS_TOKEN.");
+                }
+                if (!isFinished(buildNumber)) {
+                    res.status(409);
+                    return jsonError("Build #" + buildNumber + " is still running; its log is indexed once it finishes.");
+                }
+                cached = CONSOLE_LOGS.fetch(buildNumber);
+            }
+            return query.run(CONSOLE_LOGS.index(buildNumber, cached));
+        } catch (ConsoleLogStore.LogStillWritingException e) {
+            res.status(409);
+            return jsonError("Build #" + buildNumber + " is still writing its log; it is indexed once Jenkins closes it.");
+        } catch (ConsoleLogIndex.QueryTooBroadException e) {
+            res.status(400);
+            return jsonError(e.getMessage());
+        } catch (Exception e) {
+            UpstreamUnavailableException unavailable = UpstreamUnavailableException.find(e);
+            if (unavailable != null) {
+                return upstreamUnavailable(res, unavailable);
+            }
+            res.status(500);
+            return jsonError("Error reading Jenkins log: " + safeErrorMessage(e));
+        }
+    }
+
+    @FunctionalInterface
+    private interface LogIndexQuery {
+        String run(ConsoleLogIndex index) throws Exception;
+    }
+
+    /** Status JSON of a build: pushed webhook state when there is any, else polled from Jenkins. */
+    private static String currentBuildStatus(int buildNumber) throws Exception {
+        BuildStateStore.BuildState pushed = BUILD_STATE.get(Config.JENKINS_JOB, buildNumber);
+        return pushed != null ? pushed.getJson() : BUILD_STATUS.get(buildNumber).getJson();
+    }
+
+    private static BuildHistory openBuildHistory() {
+        try {
+            return new BuildHistory(Path.of(Config.BUILD_HISTORY_DIR));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open build history in " + Config.BUILD_HISTORY_DIR, e);
+        }
+    }
+
+    /**
+     * A notification must carry JENKINS_WEBHOOK_TOKEN in X-Webhook-Token or ?token=
+     * (the Notification plugin can only configure a URL).
+     */
+    private static boolean webhookAuthorized(Request req) {
+        String given = req.headers("X-Webhook-Token");
+        if (given == null) {
+            given = req.queryParams("token");
+        }
+        return given != null && MessageDigest.isEqual(given.getBytes(StandardCharsets.UTF_8),
+                Config.JENKINS_WEBHOOK_TOKEN.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** The open circuit of GitHub or Jenkins, or null when both can take a new commit workflow. */
+    private static UpstreamUnavailableException unavailableForCommits() {
+        UpstreamUnavailableException github = HTTP_CLIENTS.github().unavailable();
+        return github != null ? github : HTTP_CLIENTS.jenkins().unavailable();
+    }
+
+    /** 503 JSON error with Retry-After for a call refused by an upstream's breaker or bulkhead. */
+    private static String upstreamUnavailable(Response res, UpstreamUnavailableException error) {
+        res.type("application/json");
+        res.status(503);
+        res.header("Retry-After", String.valueOf(error.getRetryAfterSeconds()));
+        JsonObject payload = new JsonObject();
+        payload.addProperty("status", "error");
+        payload.addProperty("message", error.getMessage());
+        payload.addProperty("upstream", error.getUpstream());
+        payload.addProperty("retryAfterSeconds", error.getRetryAfterSeconds());
+        return payload.toString();
+    }
+
+    /** 429 for a commit turned away by {@link CommitAdmission}, with Retry-After. */
+    private static String tooManyCommits(Response res, CommitAdmission.Decision decision) {
+        long seconds = decision.getRetryAfterSeconds();
+        res.status(429);
+        res.header("Retry-After", String.valueOf(seconds));
+        return jsonError(decision.getOutcome() == CommitAdmission.Outcome.QUOTA_LIMITED
+                ? "The GitHub API budget for commits is used up until the rate-limit window resets. Retry in " + seconds + "s."
+                : "Too many commits from this client. Retry in " + seconds + "s.");
     }
 
     private static String missingCommitConfiguration() {
@@ -232,6 +730,78 @@ public class App {
         return missing.isEmpty() ? null : String.join(", ", missing);
     }
 
+    /**
+     * Validates the "files" array of a batch commit body and fills {@code files}.
+     * Returns an error message, or null when the batch is valid.
+     */
+    private static String parseBatchFiles(JsonObject body, List<GitHubService.FileChange> files) {
+        if (!body.has("files") || !body.get("files").isJsonArray() || body.getAsJsonArray("files").isEmpty()) {
+            return "\"files\" must be a non-empty array of {path, content} objects.";
+        }
+        JsonArray array = body.getAsJsonArray("files");
+        if (array.size() > MAX_BATCH_FILES) {
+            return "A batch may contain at most " + MAX_BATCH_FILES + " files.";
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (JsonElement element : array) {
+            if (!element.isJsonObject()) {
+                return "Each file must be an object with \"path\" and \"content\".";
+            }
+            JsonObject file = element.getAsJsonObject();
+            String path = file.has("path") && file.get("path").isJsonPrimitive() ? file.get("path").getAsString().trim() : "";
+            if (path.isEmpty() || path.startsWith("/") || path.contains("\\") || path.contains("..")) {
+                return "Invalid file path: '" + path + "'. Paths are relative to code/ and may not contain '..'.";
+            }
+            if (!seen.add(path)) {
+                return "Duplicate file path: " + path;
+            }
+            if (!file.has("content") || !file.get("content").isJsonPrimitive()) {
+                return "Missing content for " + path;
+            }
+            files.add(new GitHubService.FileChange(path, file.get("content").getAsString()));
+        }
+        return null;
+    }
+
+    /**
+     * Sends a pre-rendered page in the best encoding the client accepts, or 304 when
+     * If-None-Match already names that representation. Nothing is rendered or
+     * compressed per request.
+     */
+    private static String servePage(PrecompressedPage page, Request req, Response res) throws IOException {
+        PrecompressedPage.Variant variant = page.select(req.headers("Accept-Encoding"));
+        res.type(page.getContentType());
+        res.header("ETag", variant.getEtag());
+        res.header("Vary", "Accept-Encoding");
+        res.header("Cache-Control", "no-cache");
+        if (etagMatches(req.headers("If-None-Match"), variant.getEtag())) {
+            res.status(304);
+            return "";
+        }
+        if (variant.getEncoding() != null) {
+            res.header("Content-Encoding", variant.getEncoding());
+        }
+        res.raw().setContentLength(variant.getBody().length);
+        res.raw().getOutputStream().write(variant.getBody());
+        res.raw().flushBuffer();
+        return "";
+    }
+
+    /** True when an If-None-Match header lists {@code etag} (or is "*"). */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static String valueOrDefault(String value, String defaultValue) {
         if (value == null || value.isBlank()) {
             return defaultValue;
@@ -239,13 +809,6 @@ public class App {
         return value;
     }
 
-    private static String shortSha(String commitSha) {
-        if (commitSha == null || commitSha.isBlank()) {
-            return "unknown";
-        }
-        return commitSha.length() > 7 ? commitSha.substring(0, 7) : commitSha;
-    }
-
     private static String safeErrorMessage(Exception exception) {
         if (exception == null) {
             return "Unknown error";
@@ -264,7 +827,7 @@ public class App {
         return payload.toString();
     }
 
-    private static String getDashboard() {
+    static String getDashboard() {
         return "<html><head><title>DevOps Pipeline - Code to Pipeline</title>" +
                 "<style>" +
                 "* {margin:0;padding:0;box-sizing:border-box;}" +
@@ -400,50 +963,53 @@ public class App {
                 "      return data;" +
                 "    })" +
                 "    .then(data => {" +
-                "      addLog('SUCCESS', 'Commit recorded! Triggering Jenkins pipeline...');" +
+                "      addLog('SUCCESS', 'Commit accepted (workflow ' + data.workflowId + '). Waiting for Jenkins...');" +
                 "      document.getElementById('success-msg').classList.add('show');" +
-                "      setTimeout(() => { window.location.href = '/jenkins-build'; }, 1500);" +
+                "      return waitForWorkflow(data.statusUrl);" +
+                "    })" +
+                "    .then(wf => {" +
+                "      addLog('SUCCESS', 'Jenkins build #' + wf.buildNumber + ' started.');" +
+                "      updatePipelineStatus(wf.buildNumber);" +
+                "      setTimeout(() => { window.location.href = '/jenkins-build?build=' + wf.buildNumber; }, 1000);" +
                 "    })" +
                 "    .catch(e => {" +
                 "      addLog('ERROR', 'Failed: ' + e);" +
                 "      btn.disabled = false; btn.textContent = 'Commit & Push to GitHub';" +
                 "    });" +
                 "}" +
-                "function updatePipelineStatus() {" +
-                "  const steps = ['Checkout', 'Build', 'Test', 'Package', 'Selenium', 'Reports'];" +
-                "  const logs = [" +
-                "    ['Checkout', '[INFO] Fetching code from GitHub', '[INFO] Checkout complete ✓']," +
-                "    ['Build', '[INFO] Compiling Java source...', '[INFO] javac: Java 17 compilation', '[INFO] Build SUCCESS ✓']," +
-                "    ['Test', '[INFO] Running JUnit tests', '[PASS] AppTest.java - 2/2 tests passed', '[PASS] All tests passed ✓']," +
-                "    ['Package', '[INFO] Creating JAR package', '[INFO] Building devops-pipeline-app-1.0.0.jar', '[INFO] Package created ✓']," +
-                "    ['Selenium', '[INFO] Starting application on port 8800', '[PASS] Chrome validation test passed', '[PASS] UI tests SUCCESS ✓']," +
-                "    ['Reports', '[INFO] Generating test reports', '[INFO] Publishing JUnit results', '[SUCCESS] Pipeline Complete!']" +
-                "  ];" +
-                "  let current = 0;" +
-                "  const stageInterval = setInterval(() => {" +
-                "    if(current < steps.length) {" +
-                "      document.querySelectorAll('.pipeline-step').forEach((el, i) => {" +
-                "        el.querySelector('.step-badge').className = 'step-badge';" +
-                "        if(i < current) { el.querySelector('.step-badge').classList.add('success'); }" +
-                "        else if(i === current) { el.querySelector('.step-badge').classList.add('running'); }" +
-                "        else { el.querySelector('.step-badge').classList.add('pending'); }" +
-                "      });" +
-                "      if(logs[current]) {" +
-                "        logs[current].forEach((msg, idx) => {" +
-                "          setTimeout(() => {" +
-                "            const isSuccess = msg.includes('✓') || msg.includes('SUCCESS') || msg.includes('PASS');" +
-                "            addLog(isSuccess ? 'SUCCESS' : 'INFO', msg);" +
-                "          }, idx * 600);" +
-                "        });" +
-                "      }" +
-                "      current++;" +
-                "    } else {" +
-                "      clearInterval(stageInterval);" +
-                "      document.querySelectorAll('.pipeline-step').forEach(el => {" +
-                "        el.querySelector('.step-badge').className = 'step-badge success';" +
-                "      });" +
+                "function waitForWorkflow(statusUrl) {" +
+                "  return new Promise((resolve, reject) => {" +
+                "    const poll = () => fetch(statusUrl).then(r => r.json()).then(wf => {" +
+                "      if(wf.state === 'SUCCEEDED') { resolve(wf); return; }" +
+                "      if(wf.state === 'FAILED' || wf.status === 'error') { reject(new Error(wf.error || wf.message || 'Workflow failed')); return; }" +
+                "      setTimeout(poll, 1000);" +
+                "    }).catch(reject);" +
+                "    poll();" +
+                "  });" +
+                "}" +
+                "function updatePipelineStatus(buildNumber) {" +
+                "  const steps = ['checkout', 'build', 'test', 'package', 'selenium', 'report'];" +
+                "  const badges = document.querySelectorAll('.pipeline-step .step-badge');" +
+                "  let reportedErrors = 0;" +
+                "  const poll = () => fetch('/api/builds/' + buildNumber + '/events-summary').then(r => r.json()).then(summary => {" +
+                "    if(summary.status === 'error') { addLog('ERROR', summary.message); return; }" +
+                "    steps.forEach((step, i) => {" +
+                "      const stage = summary.stages.find(s => s.name.toLowerCase().includes(step));" +
+                "      const state = !stage ? (summary.complete && summary.result === 'SUCCESS' ? 'success' : 'pending')" +
+                "        : stage.status === 'RUNNING' ? 'running' : stage.status === 'FAILED' ? 'failed'" +
+                "        : stage.status === 'SKIPPED' ? 'pending' : 'success';" +
+                "      badges[i].className = 'step-badge ' + state;" +
+                "    });" +
+                "    summary.errors.first.slice(reportedErrors).forEach(block => addLog('ERROR', block.lines[0]));" +
+                "    reportedErrors = summary.errors.first.length;" +
+                "    if(summary.complete) {" +
+                "      addLog(summary.result === 'SUCCESS' ? 'SUCCESS' : 'ERROR', 'Build #' + buildNumber + ' ' + summary.result +" +
+                "        ' - tests run: ' + summary.tests.run + ', failures: ' + summary.tests.failures + ', errors: ' + summary.tests.errors);" +
+                "      return;" +
                 "    }" +
-                "  }, 3500);" +
+                "    setTimeout(poll, 2000);" +
+                "  }).catch(e => addLog('ERROR', 'Build summary unavailable: ' + e));" +
+                "  poll();" +
                 "}" +
                 "function addLog(type, msg) {" +
                 "  const console = document.getElementById('log-console');" +
@@ -465,7 +1031,7 @@ public class App {
                 "</body></html>";
     }
 
-    private static String getJenkinsBuildConsole(String buildNumber) {
+    static String getJenkinsBuildConsole() {
         return "<html><head><title>Jenkins Build Console - DevOps Pipeline</title>" +
                 "<style>" +
                 "* {margin:0;padding:0;box-sizing:border-box;}" +
@@ -580,8 +1146,12 @@ public class App {
                 "    {type:'success', text:'[SUCCESS] Build Complete! All stages passed ✓✓✓'}" +
                 "  ]" +
                 "};" +
-                "const BUILD_NUMBER = " + (buildNumber.equals("latest") ? "null" : buildNumber) + ";" +
-                "let lastLogLen = 0;" +
+                "const BUILD_NUMBER = (function() {" +
+                "  const b = new URLSearchParams(location.search).get('build');" +
+                "  return /^\\d+$/.test(b || '') ? Number(b) : null;" +
+                "})();" +
+                "let logOffset = 0;" +
+                "let pendingLine = '';" +
                 "function getLineClass(l) {" +
                 "  if(l.includes('BUILD SUCCESS')||(l.includes('Tests run')&&l.includes('Failures: 0'))) return 'log-success';" +
                 "  if(l.includes('BUILD FAILURE')||l.includes('FAILED')) return 'log-error';" +
@@ -615,48 +1185,86 @@ public class App {
                 "  document.querySelectorAll('.stage-item').forEach(e=>e.classList.remove('active'));" +
                 "  const el=document.querySelector('[onclick*=\"'+s+'\"]'); if(el) el.classList.add('active');" +
                 "}" +
-                "function pollLog() {" +
-                "  fetch('/api/build-log/'+BUILD_NUMBER)" +
-                "    .then(r=>r.text())" +
-                "    .then(text=>{" +
-                "      if(text.length > lastLogLen) {" +
-                "        appendLines(text.substring(lastLogLen));" +
-                "        lastLogLen = text.length;" +
-                "        const pct=Math.min(90,Math.round(lastLogLen/600));" +
-                "        document.getElementById('progress').style.width=pct+'%';" +
-                "        document.getElementById('progress').textContent=pct+'%';" +
-                "        updateSidebar(text);" +
-                "      }" +
-                "      checkStatus();" +
-                "    }).catch(()=>setTimeout(pollLog,5000));" +
+                "function showLogText(text, isFinal) {" +
+                "  if(text.length > 0 || isFinal) {" +
+                "    const all = pendingLine + text;" +
+                "    const cut = isFinal ? all.length : all.lastIndexOf('\\n') + 1;" +
+                "    appendLines(all.substring(0, cut));" +
+                "    updateSidebar(all.substring(0, cut));" +
+                "    pendingLine = all.substring(cut);" +
+                "  }" +
+                "  if(!isFinal) {" +
+                "    const pct=Math.min(90,Math.round(logOffset/600));" +
+                "    document.getElementById('progress').style.width=pct+'%';" +
+                "    document.getElementById('progress').textContent=pct+'%';" +
+                "  }" +
+                "}" +
+                "function showResult(data) {" +
+                "  const prog=document.getElementById('progress');" +
+                "  prog.style.width='100%';" +
+                "  if(data.result==='SUCCESS') {" +
+                "    document.getElementById('status').textContent='BUILD SUCCESS';" +
+                "    document.getElementById('status').className='status-badge status-success';" +
+                "    prog.textContent='100% - SUCCESS';" +
+                "    document.querySelectorAll('.stage-item').forEach(e=>e.classList.add('completed'));" +
+                "  } else {" +
+                "    document.getElementById('status').textContent='BUILD FAILED';" +
+                "    document.getElementById('status').style.background='#e74c3c';" +
+                "    prog.textContent='FAILED'; prog.style.background='#e74c3c';" +
+                "  }" +
+                "}" +
+                "function pollLog(isFinal) {" +
+                "  fetch('/api/build-log/'+BUILD_NUMBER+'?offset='+logOffset)" +
+                "    .then(r=>{" +
+                "      const next=parseInt(r.headers.get('X-Text-Size'));" +
+                "      return r.text().then(text=>({text:text,next:isNaN(next)?logOffset:next}));" +
+                "    })" +
+                "    .then(chunk=>{" +
+                "      logOffset = chunk.next;" +
+                "      showLogText(chunk.text, isFinal);" +
+                "      if(!isFinal) checkStatus();" +
+                "    }).catch(()=>setTimeout(()=>pollLog(isFinal),5000));" +
                 "}" +
                 "function checkStatus() {" +
                 "  fetch('/api/build-status/'+BUILD_NUMBER)" +
                 "    .then(r=>r.json())" +
                 "    .then(data=>{" +
                 "      if(data.building) { setTimeout(pollLog,2000); return; }" +
-                "      const prog=document.getElementById('progress');" +
-                "      prog.style.width='100%';" +
-                "      if(data.result==='SUCCESS') {" +
-                "        document.getElementById('status').textContent='BUILD SUCCESS';" +
-                "        document.getElementById('status').className='status-badge status-success';" +
-                "        prog.textContent='100% - SUCCESS';" +
-                "        document.querySelectorAll('.stage-item').forEach(e=>e.classList.add('completed'));" +
-                "      } else {" +
-                "        document.getElementById('status').textContent='BUILD FAILED';" +
-                "        document.getElementById('status').style.background='#e74c3c';" +
-                "        prog.textContent='FAILED'; prog.style.background='#e74c3c';" +
-                "      }" +
-                "      pollLog();" +
+                "      showResult(data);" +
+                "      pollLog(true);" +
                 "    }).catch(()=>setTimeout(checkStatus,5000));" +
                 "}" +
+                "function streamEvents() {" +
+                "  const es = new EventSource('/api/builds/'+BUILD_NUMBER+'/events');" +
+                "  let opened = false;" +
+                "  es.onopen = () => { opened = true; };" +
+                "  es.addEventListener('reset', () => {" +
+                "    document.getElementById('console').innerHTML=''; pendingLine=''; logOffset=0;" +
+                "  });" +
+                "  es.addEventListener('status', e => {" +
+                "    if(JSON.parse(e.data).building) document.getElementById('status').textContent='Building #'+BUILD_NUMBER+'...';" +
+                "  });" +
+                "  es.addEventListener('log', e => {" +
+                "    const d = JSON.parse(e.data);" +
+                "    logOffset = d.nextOffset;" +
+                "    showLogText(d.text, false);" +
+                "  });" +
+                "  es.addEventListener('end', e => {" +
+                "    es.close();" +
+                "    showLogText('', true);" +
+                "    showResult(JSON.parse(e.data));" +
+                "  });" +
+                "  es.onerror = () => {" +
+                "    if(!opened && es.readyState === EventSource.CLOSED) { pollLog(); }" +
+                "  };" +
+                "}" +
                 "window.onload = function() {" +
                 "  if(!BUILD_NUMBER) {" +
                 "    runDemoAnimation();" +
                 "    return;" +
                 "  }" +
                 "  document.getElementById('status').textContent='Build #'+BUILD_NUMBER+' connecting...';" +
-                "  pollLog();" +
+                "  if(window.EventSource) { streamEvents(); } else { pollLog(); }" +
                 "};" +
                 "function runDemoAnimation() {" +
                 "  var allLogs = [" +
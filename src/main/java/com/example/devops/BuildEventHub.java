@@ -0,0 +1,318 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Fans Jenkins build progress out to Server-Sent Events subscribers.
+ *
+ * There is at most one poller per build, however many browsers are watching it. The
+ * poller asks Jenkins for the build status and the next console delta every
+ * SSE_POLL_MILLIS and publishes:
+ *   status — build status JSON, whenever it changes
+ *   log    — { "text": "...", "nextOffset": 1234 } for each new console slice
+ *   end    — final status once the build has finished and the log is complete
+ *   reset  — sent first when a reconnect cannot be resumed; clients clear their console
+ *
+ * Every event gets an increasing id and is kept in a replay buffer (SSE_REPLAY_BYTES),
+ * so a client reconnecting with Last-Event-ID only receives what it missed. The poller
+ * stops as soon as the last subscriber leaves.
+ */
+public class BuildEventHub {
+
+    private static final long HEARTBEAT_MILLIS = 15_000;
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = 1_000;
+    private static final int REPLAY_MERGE_CHARS = 256 * 1024;
+
+    private final JenkinsService jenkins;
+    private final ScheduledExecutorService scheduler;
+    private final long pollMillis;
+    private final long replayBytes;
+    private final int maxSubscribers;
+
+    private final ConcurrentMap<Integer, BuildChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public BuildEventHub(JenkinsService jenkins, long pollMillis, long replayBytes, int maxSubscribers) {
+        this.jenkins = jenkins;
+        this.pollMillis = pollMillis;
+        this.replayBytes = replayBytes;
+        this.maxSubscribers = maxSubscribers;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "build-events-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a subscriber for {@code buildNumber}, starting the shared poller if needed.
+     * Events after {@code lastEventId} are replayed (pass 0 for a fresh connection).
+     * Returns null when SSE_MAX_SUBSCRIBERS streams are already open.
+     */
+    public Subscription subscribe(int buildNumber, long lastEventId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscription subscription = new Subscription(buildNumber);
+        channels.compute(buildNumber, (number, channel) -> {
+            BuildChannel target = channel != null ? channel : new BuildChannel(number);
+            target.add(subscription, lastEventId);
+            return target;
+        });
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        if (subscription.closed) {
+            return;
+        }
+        subscription.closed = true;
+        subscriberCount.decrementAndGet();
+        channels.computeIfPresent(subscription.buildNumber, (number, channel) -> {
+            channel.remove(subscription);
+            return channel.isIdle() ? null : channel;
+        });
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public int activePollers() {
+        return channels.size();
+    }
+
+    /**
+     * Writes events for {@code subscription} to {@code out} in text/event-stream format until
+     * the build ends or the client disconnects. Sends a comment heartbeat when idle.
+     */
+    public void stream(Subscription subscription, OutputStream out) throws IOException, InterruptedException {
+        out.write("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        while (true) {
+            BuildEvent event = subscription.queue.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+            if (event == null) {
+                out.write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(event.toWire());
+            }
+            out.flush();
+            if (event != null && (event.type.equals("end") || event.type.equals("overflow"))) {
+                return;
+            }
+        }
+    }
+
+    // ── Events ────────────────────────────────────────────────────────────────
+
+    public static final class BuildEvent {
+        private final long id;
+        private final String type;
+        private final String data;
+
+        BuildEvent(long id, String type, String data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        /** Data is always single-line JSON, so one data: field is enough. */
+        byte[] toWire() {
+            String idLine = id > 0 ? "id: " + id + "\n" : "";
+            return (idLine + "event: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        long size() {
+            return data.length() + type.length() + 16;
+        }
+    }
+
+    public static final class Subscription {
+        private final int buildNumber;
+        private final BlockingQueue<BuildEvent> queue = new LinkedBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        private volatile boolean closed;
+
+        private Subscription(int buildNumber) {
+            this.buildNumber = buildNumber;
+        }
+
+        /** Queues an event; a subscriber that falls this far behind is told to reconnect. */
+        private void deliver(BuildEvent event) {
+            if (!queue.offer(event)) {
+                queue.clear();
+                queue.offer(new BuildEvent(0, "overflow", "{}"));
+            }
+        }
+    }
+
+    // ── Per-build channel ─────────────────────────────────────────────────────
+
+    private final class BuildChannel {
+        private final int buildNumber;
+        private final Set<Subscription> subscribers = new CopyOnWriteArraySet<>();
+        private final Deque<BuildEvent> replay = new ArrayDeque<>();
+
+        private long replaySize;
+        private long nextId;
+        private long logOffset;
+        private String lastStatus;
+        private boolean finished;
+        private ScheduledFuture<?> task;
+
+        BuildChannel(int buildNumber) {
+            this.buildNumber = buildNumber;
+        }
+
+        synchronized void add(Subscription subscription, long lastEventId) {
+            if (lastEventId > nextId || (lastEventId > 0 && !replay.isEmpty() && lastEventId < replay.peekFirst().id - 1)) {
+                // Ids from an earlier channel or already trimmed: start the client over
+                subscription.deliver(new BuildEvent(0, "reset", "{}"));
+                lastEventId = 0;
+            }
+            replayTo(subscription, lastEventId);
+            subscribers.add(subscription);
+            if (task == null && !finished) {
+                task = scheduler.scheduleWithFixedDelay(this::poll, 0, pollMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Replays events after {@code lastEventId}, merging runs of log events into slices of
+         * up to REPLAY_MERGE_CHARS so a long build fits in the subscriber's queue.
+         */
+        private void replayTo(Subscription subscription, long lastEventId) {
+            StringBuilder text = new StringBuilder();
+            BuildEvent lastLog = null;
+            for (BuildEvent event : replay) {
+                if (event.id <= lastEventId) {
+                    continue;
+                }
+                if (event.type.equals("log") && text.length() < REPLAY_MERGE_CHARS) {
+                    text.append(JsonParser.parseString(event.data).getAsJsonObject().get("text").getAsString());
+                    lastLog = event;
+                    continue;
+                }
+                if (lastLog != null) {
+                    subscription.deliver(mergedLog(lastLog, text));
+                    text.setLength(0);
+                    lastLog = null;
+                }
+                if (event.type.equals("log")) {
+                    text.append(JsonParser.parseString(event.data).getAsJsonObject().get("text").getAsString());
+                    lastLog = event;
+                } else {
+                    subscription.deliver(event);
+                }
+            }
+            if (lastLog != null) {
+                subscription.deliver(mergedLog(lastLog, text));
+            }
+        }
+
+        private BuildEvent mergedLog(BuildEvent last, CharSequence text) {
+            JsonObject log = new JsonObject();
+            log.addProperty("text", text.toString());
+            log.add("nextOffset", JsonParser.parseString(last.data).getAsJsonObject().get("nextOffset"));
+            return new BuildEvent(last.id, "log", log.toString());
+        }
+
+        synchronized void remove(Subscription subscription) {
+            subscribers.remove(subscription);
+            if (subscribers.isEmpty() && task != null) {
+                task.cancel(false);
+                task = null;
+            }
+        }
+
+        synchronized boolean isIdle() {
+            return subscribers.isEmpty();
+        }
+
+        /** Runs on the scheduler; Jenkins is called outside the lock so subscribers never wait on it. */
+        private void poll() {
+            long offset;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                offset = logOffset;
+            }
+            try {
+                String status = jenkins.getBuildStatus(buildNumber);
+                JenkinsService.ConsoleChunk chunk = jenkins.getConsoleChunk(buildNumber, offset);
+                boolean building = JsonParser.parseString(status).getAsJsonObject().get("building").getAsBoolean();
+
+                synchronized (this) {
+                    if (!status.equals(lastStatus)) {
+                        lastStatus = status;
+                        publish("status", status);
+                    }
+
+                    logOffset = chunk.getNextOffset();
+                    if (!chunk.getText().isEmpty()) {
+                        JsonObject log = new JsonObject();
+                        log.addProperty("text", chunk.getText());
+                        log.addProperty("nextOffset", logOffset);
+                        publish("log", log.toString());
+                    }
+
+                    if (!building && !chunk.hasMoreData()) {
+                        finished = true;
+                        publish("end", status);
+                        if (task != null) {
+                            task.cancel(false);
+                            task = null;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("[WARN] Build #" + buildNumber + " event poll failed: " + e.getMessage());
+            }
+        }
+
+        private void publish(String type, String data) {
+            BuildEvent event = new BuildEvent(++nextId, type, data);
+            replay.addLast(event);
+            replaySize += event.size();
+            while (replaySize > replayBytes && replay.size() > 1) {
+                replaySize -= replay.removeFirst().size();
+            }
+            for (Subscription subscription : subscribers) {
+                subscription.deliver(event);
+            }
+        }
+    }
+}
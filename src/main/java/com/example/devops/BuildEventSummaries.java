@@ -0,0 +1,71 @@
+package com.example.devops;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Structured summaries of build consoles for GET /api/builds/:number/events-summary.
+ *
+ * Each build has a {@link ConsoleEventParser} that remembers how far into the console it
+ * has read. A request fetches only the bytes after that offset (progressiveText ?start=),
+ * feeds them to the parser and returns the summary, so polling a running build costs one
+ * small delta per call instead of the whole log. Once Jenkins reports no more data the
+ * summary is final and later requests make no upstream call at all.
+ *
+ * Parsers for the BUILD_SUMMARY_CACHE_SIZE most recently requested builds are kept; an
+ * evicted build is parsed again from the start if it is asked for later.
+ */
+public class BuildEventSummaries {
+
+    /** The console bytes after {@code offset}; implemented by JenkinsService. */
+    @FunctionalInterface
+    public interface ChunkSource {
+        JenkinsService.ConsoleChunk chunk(int buildNumber, long offset) throws Exception;
+    }
+
+    private final ChunkSource source;
+    private final Map<Integer, ConsoleEventParser> parsers;
+    private final LongAdder upstreamReads = new LongAdder();
+    private final LongAdder finalHits = new LongAdder();
+
+    public BuildEventSummaries(ChunkSource source, int capacity) {
+        this.source = source;
+        this.parsers = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ConsoleEventParser> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /** The summary of build {@code buildNumber} after reading any console text not yet parsed. */
+    public String summaryJson(int buildNumber) throws Exception {
+        ConsoleEventParser parser = parsers.computeIfAbsent(buildNumber, number -> new ConsoleEventParser());
+        synchronized (parser) {
+            if (parser.isComplete()) {
+                finalHits.increment();
+                return parser.toJson(buildNumber);
+            }
+            upstreamReads.increment();
+            JenkinsService.ConsoleChunk chunk = source.chunk(buildNumber, parser.getOffset());
+            parser.feed(chunk.getText(), chunk.getNextOffset());
+            if (!chunk.hasMoreData()) {
+                parser.finish();
+            }
+            return parser.toJson(buildNumber);
+        }
+    }
+
+    /** Appends summary read counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP build_event_summaries_total Events-summary requests by how they were answered\n");
+        output.append("# TYPE build_event_summaries_total counter\n");
+        output.append("build_event_summaries_total{source=\"delta\"} ").append(upstreamReads.sum()).append('\n');
+        output.append("build_event_summaries_total{source=\"final\"} ").append(finalHits.sum()).append('\n');
+        output.append("# HELP build_event_summaries_parsers Builds with a console parser in memory\n");
+        output.append("# TYPE build_event_summaries_parsers gauge\n");
+        output.append("build_event_summaries_parsers ").append(parsers.size()).append('\n');
+    }
+}
@@ -0,0 +1,565 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Append-only history of finished builds, kept in BUILD_HISTORY_DIR so it survives restarts
+ * and can be paged through without calling Jenkins.
+ *
+ * builds.dat holds one binary record per finished build:
+ *   int length | int buildNumber | byte result | long triggeredAt | long startedAt |
+ *   long finishedAt | long durationMs | str commitSha | u16 fileCount, str files... |
+ *   str url | int crc32
+ * where str is a u16 byte length followed by UTF-8 (longer values are truncated) and
+ * length counts the bytes between itself and the CRC. Timestamps are epoch milliseconds, 0 when unknown.
+ *
+ * builds.idx is a memory-mapped offset index: a 16-byte header (magic, version, record
+ * count) followed by one 16-byte entry per record (data offset, build number). Record ids
+ * are 1-based positions in the index, so a page is two index reads and one contiguous
+ * read of builds.dat. On startup only the index is mapped; the data file is read just to
+ * check the last indexed record and to re-index records written after it, and a torn
+ * record at the tail is truncated.
+ *
+ * Commit SHA and files come from the commit workflow that triggered the build. Builds the
+ * app did not trigger are recorded without them. Pending workflow builds are checked
+ * every BUILD_HISTORY_POLL_SECONDS in case no status read or webhook reports them first.
+ */
+public class BuildHistory {
+
+    /** Status JSON for a build number, as served by /api/build-status. */
+    @FunctionalInterface
+    public interface StatusSource {
+        String statusJson(int buildNumber) throws Exception;
+    }
+
+    public enum Result {
+        SUCCESS, UNSTABLE, FAILURE, NOT_BUILT, ABORTED, UNKNOWN;
+
+        static Result of(String name) {
+            for (Result result : values()) {
+                if (result.name().equals(name)) {
+                    return result;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    private static final int MAGIC = 0x42484958; // "BHIX"
+    private static final int VERSION = 1;
+    private static final int INDEX_HEADER = 16;
+    private static final int INDEX_ENTRY = 16;
+    private static final int INDEX_GROWTH = 65_536;
+    private static final int MAX_U16 = 0xFFFF;
+    private static final long PENDING_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final FileChannel data;
+    private final FileChannel indexFile;
+    private volatile MappedByteBuffer index;
+    private volatile long count;
+    private volatile long dataEnd;
+    private final ConcurrentMap<Integer, Long> idsByBuild = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder appended = new LongAdder();
+    private final long recoveredRecords;
+    private ScheduledExecutorService poller;
+
+    public BuildHistory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.data = FileChannel.open(directory.resolve("builds.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexFile = FileChannel.open(directory.resolve("builds.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.recoveredRecords = recover();
+    }
+
+    // ── Recording ─────────────────────────────────────────────────────────────
+
+    /** Remembers the commit behind a started build until the build's result is seen. */
+    public void buildStarted(CommitWorkflow workflow) {
+        Integer buildNumber = workflow.getBuildNumber();
+        if (buildNumber != null && !idsByBuild.containsKey(buildNumber)) {
+            pending.put(buildNumber, new Pending(workflow.getCommitSha(), workflow.getFiles(),
+                    workflow.getCreatedAt().toEpochMilli()));
+        }
+    }
+
+    /**
+     * Records build {@code buildNumber} if {@code statusJson} (the /api/build-status shape)
+     * says it has finished and it is not in the history yet. Returns true when appended.
+     */
+    public boolean observe(int buildNumber, String statusJson) {
+        if (idsByBuild.containsKey(buildNumber)) {
+            return false;
+        }
+        JsonObject status = JsonParser.parseString(statusJson).getAsJsonObject();
+        if (status.get("building").getAsBoolean()) {
+            return false;
+        }
+        long duration = status.has("duration") ? status.get("duration").getAsLong() : 0;
+        // Jenkins' start timestamp places the build correctly however late it is observed;
+        // only a status without one falls back to "just finished"
+        long startedAt = status.has("timestamp") ? status.get("timestamp").getAsLong() : 0;
+        long finishedAt = startedAt > 0 ? startedAt + duration : System.currentTimeMillis();
+        String url = status.has("url") && !status.get("url").isJsonNull() ? status.get("url").getAsString() : "";
+        try {
+            return appendObserved(buildNumber, Result.of(status.get("result").getAsString()), finishedAt, duration, url);
+        } catch (IOException e) {
+            System.err.println("[WARN] Could not append build #" + buildNumber + " to history: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Appends an observed build together with its pending commit. Runs under the append lock
+     * so concurrent observers cannot write the build without its commit, and keeps the
+     * pending commit until the record is written.
+     */
+    private synchronized boolean appendObserved(int buildNumber, Result result, long finishedAt, long duration,
+                                                String url) throws IOException {
+        if (idsByBuild.containsKey(buildNumber)) {
+            return false;
+        }
+        Pending commit = pending.get(buildNumber);
+        boolean written = append(new Record(0, buildNumber, result,
+                commit == null ? 0 : commit.triggeredAt, Math.max(0, finishedAt - duration), finishedAt, duration,
+                commit == null || commit.commitSha == null ? "" : commit.commitSha,
+                commit == null ? List.of() : commit.files, url));
+        if (written) {
+            pending.remove(buildNumber);
+        }
+        return written;
+    }
+
+    synchronized boolean append(Record record) throws IOException {
+        if (idsByBuild.containsKey(record.buildNumber)) {
+            return false;
+        }
+        ByteBuffer encoded = record.encode();
+        long offset = dataEnd;
+        while (encoded.hasRemaining()) {
+            data.write(encoded, offset + encoded.position());
+        }
+        long id = count + 1;
+        ensureIndexCapacity(id);
+        int entry = (int) (INDEX_HEADER + (id - 1) * INDEX_ENTRY);
+        index.putLong(entry, offset);
+        index.putInt(entry + 8, record.buildNumber);
+        index.putLong(8, id);
+        dataEnd = offset + encoded.limit();
+        count = id;
+        idsByBuild.put(record.buildNumber, id);
+        appended.increment();
+        return true;
+    }
+
+    /**
+     * Checks pending workflow builds every {@code intervalSeconds} through {@code source}, so
+     * a build that nobody looks at is still recorded once it finishes.
+     */
+    public synchronized void startPolling(StatusSource source, long intervalSeconds) {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "build-history-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> pollPending(source), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    void pollPending(StatusSource source) {
+        long now = System.currentTimeMillis();
+        for (Integer buildNumber : pending.keySet()) {
+            Pending commit = pending.get(buildNumber);
+            if (commit != null && now - commit.triggeredAt > PENDING_MAX_AGE_MILLIS) {
+                pending.remove(buildNumber);
+                continue;
+            }
+            try {
+                observe(buildNumber, source.statusJson(buildNumber));
+            } catch (Exception e) {
+                // Retried on the next poll; the upstream may be briefly unavailable
+            }
+        }
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    public long size() {
+        return count;
+    }
+
+    /** The record for {@code buildNumber}, or null if it has not been recorded. */
+    public Record find(int buildNumber) {
+        Long id = idsByBuild.get(buildNumber);
+        if (id == null) {
+            return null;
+        }
+        List<Record> records = page(id - 1, 1);
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    /** Up to {@code limit} records with ids after {@code since}, oldest first. */
+    public List<Record> page(long since, int limit) {
+        long total = count;
+        long from = Math.max(0, since);
+        long to = Math.min(total, from + Math.max(0, limit));
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        MappedByteBuffer map = index;
+        long start = map.getLong((int) (INDEX_HEADER + from * INDEX_ENTRY));
+        long end = to < total ? map.getLong((int) (INDEX_HEADER + to * INDEX_ENTRY)) : dataEnd;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try {
+            while (buffer.hasRemaining()) {
+                if (data.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        List<Record> records = new ArrayList<>((int) (to - from));
+        for (long id = from + 1; id <= to && buffer.hasRemaining(); id++) {
+            records.add(Record.decode(buffer, id));
+        }
+        return records;
+    }
+
+    /**
+     * A page as JSON:
+     *   { "builds": [ { "id": 1, "buildNumber": 7, "result": "SUCCESS", ... } ],
+     *     "next": 1, "total": 1 }
+     * "next" is the {@code since} value for the following page.
+     */
+    public String pageJson(long since, int limit) throws IOException {
+        List<Record> records = page(since, limit);
+        StringWriter out = new StringWriter(256 + records.size() * 256);
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("builds").beginArray();
+            for (Record record : records) {
+                record.write(json);
+            }
+            json.endArray();
+            json.name("next").value(records.isEmpty() ? Math.max(0, since) : records.get(records.size() - 1).id);
+            json.name("total").value(count);
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    /** Appends record counts in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP build_history_records Finished builds in the on-disk history\n");
+        output.append("# TYPE build_history_records gauge\n");
+        output.append("build_history_records ").append(count).append('\n');
+        output.append("# HELP build_history_appended_total Builds appended to the history since startup\n");
+        output.append("# TYPE build_history_appended_total counter\n");
+        output.append("build_history_appended_total ").append(appended.sum()).append('\n');
+        output.append("# HELP build_history_pending Triggered builds waiting for a result to record\n");
+        output.append("# TYPE build_history_pending gauge\n");
+        output.append("build_history_pending ").append(pending.size()).append('\n');
+    }
+
+    long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    public synchronized void close() throws IOException {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        index.force();
+        data.close();
+        indexFile.close();
+    }
+
+    // ── Index and recovery ────────────────────────────────────────────────────
+
+    private long recover() throws IOException {
+        long indexed = 0;
+        if (indexFile.size() >= INDEX_HEADER) {
+            MappedByteBuffer header = indexFile.map(FileChannel.MapMode.READ_ONLY, 0, INDEX_HEADER);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                indexed = Math.min(header.getLong(8), (indexFile.size() - INDEX_HEADER) / INDEX_ENTRY);
+            }
+        }
+        index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0,
+                INDEX_HEADER + (long) roundUp(Math.max(indexed, 1)) * INDEX_ENTRY);
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+
+        // Trust the index up to its last record that is intact on disk
+        long end = 0;
+        while (indexed > 0) {
+            long offset = index.getLong((int) (INDEX_HEADER + (indexed - 1) * INDEX_ENTRY));
+            long recordEnd = validRecordEnd(offset);
+            if (recordEnd > 0) {
+                end = recordEnd;
+                break;
+            }
+            indexed--;
+        }
+        for (long id = 1; id <= indexed; id++) {
+            idsByBuild.put(index.getInt((int) (INDEX_HEADER + (id - 1) * INDEX_ENTRY + 8)), id);
+        }
+        count = indexed;
+        index.putLong(8, indexed);
+        dataEnd = end;
+
+        // Re-index whole records written after the last index update, then drop any torn tail
+        long recordEnd;
+        while ((recordEnd = validRecordEnd(dataEnd)) > 0) {
+            ByteBuffer buildNumber = ByteBuffer.allocate(4);
+            data.read(buildNumber, dataEnd + 4);
+            long id = count + 1;
+            ensureIndexCapacity(id);
+            int entry = (int) (INDEX_HEADER + (id - 1) * INDEX_ENTRY);
+            index.putLong(entry, dataEnd);
+            index.putInt(entry + 8, buildNumber.getInt(0));
+            index.putLong(8, id);
+            idsByBuild.put(buildNumber.getInt(0), id);
+            count = id;
+            dataEnd = recordEnd;
+        }
+        if (data.size() > dataEnd) {
+            data.truncate(dataEnd);
+        }
+        return count;
+    }
+
+    /** End offset of the record at {@code offset} if it is complete and its CRC matches, else 0. */
+    private long validRecordEnd(long offset) throws IOException {
+        long size = data.size();
+        if (offset + 4 > size) {
+            return 0;
+        }
+        ByteBuffer length = ByteBuffer.allocate(4);
+        data.read(length, offset);
+        int bodyLength = length.getInt(0);
+        if (bodyLength <= 0 || offset + 4 + bodyLength + 4 > size) {
+            return 0;
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyLength + 4);
+        while (body.hasRemaining()) {
+            if (data.read(body, offset + 4 + body.position()) < 0) {
+                return 0;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        return (int) crc.getValue() == body.getInt(bodyLength) ? offset + 4 + bodyLength + 4 : 0;
+    }
+
+    private void ensureIndexCapacity(long records) throws IOException {
+        long needed = INDEX_HEADER + records * INDEX_ENTRY;
+        if (needed > index.capacity()) {
+            index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER + (long) roundUp(records) * INDEX_ENTRY);
+        }
+    }
+
+    private static long roundUp(long records) {
+        return (records + INDEX_GROWTH - 1) / INDEX_GROWTH * INDEX_GROWTH;
+    }
+
+    private static final class Pending {
+        private final String commitSha;
+        private final List<String> files;
+        private final long triggeredAt;
+
+        Pending(String commitSha, List<String> files, long triggeredAt) {
+            this.commitSha = commitSha;
+            this.files = files;
+            this.triggeredAt = triggeredAt;
+        }
+    }
+
+    // ── Record ────────────────────────────────────────────────────────────────
+
+    public static final class Record {
+        private final long id;
+        private final int buildNumber;
+        private final Result result;
+        private final long triggeredAt;
+        private final long startedAt;
+        private final long finishedAt;
+        private final long durationMillis;
+        private final String commitSha;
+        private final List<String> files;
+        private final String url;
+
+        Record(long id, int buildNumber, Result result, long triggeredAt, long startedAt, long finishedAt,
+               long durationMillis, String commitSha, List<String> files, String url) {
+            this.id = id;
+            this.buildNumber = buildNumber;
+            this.result = result;
+            this.triggeredAt = triggeredAt;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.durationMillis = durationMillis;
+            this.commitSha = commitSha;
+            this.files = files;
+            this.url = url;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getBuildNumber() {
+            return buildNumber;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public String getCommitSha() {
+            return commitSha;
+        }
+
+        public List<String> getFiles() {
+            return files;
+        }
+
+        /** The record in the /api/build-status shape, for builds Jenkins no longer needs to be asked about. */
+        public String toBuildStatus() {
+            return JenkinsService.toBuildStatus(
+                    new JenkinsService.BuildInfo(false, result.name(), durationMillis, startedAt, url), buildNumber);
+        }
+
+        private ByteBuffer encode() {
+            byte[] sha = utf8(commitSha);
+            byte[] link = utf8(url);
+            List<byte[]> paths = new ArrayList<>(files.size());
+            int bodyLength = 4 + 1 + 8 * 4 + 2 + sha.length + 2 + 2 + link.length;
+            for (String file : files.subList(0, Math.min(files.size(), MAX_U16))) {
+                byte[] path = utf8(file);
+                paths.add(path);
+                bodyLength += 2 + path.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(4 + bodyLength + 4);
+            buffer.putInt(bodyLength);
+            buffer.putInt(buildNumber);
+            buffer.put((byte) result.ordinal());
+            buffer.putLong(triggeredAt);
+            buffer.putLong(startedAt);
+            buffer.putLong(finishedAt);
+            buffer.putLong(durationMillis);
+            buffer.putShort((short) sha.length).put(sha);
+            buffer.putShort((short) paths.size());
+            for (byte[] path : paths) {
+                buffer.putShort((short) path.length).put(path);
+            }
+            buffer.putShort((short) link.length).put(link);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 4, bodyLength);
+            buffer.putInt((int) crc.getValue());
+            return buffer.flip();
+        }
+
+        private static Record decode(ByteBuffer buffer, long id) {
+            buffer.getInt();
+            int buildNumber = buffer.getInt();
+            int resultCode = buffer.get();
+            Result result = resultCode >= 0 && resultCode < Result.values().length
+                    ? Result.values()[resultCode] : Result.UNKNOWN;
+            long triggeredAt = buffer.getLong();
+            long startedAt = buffer.getLong();
+            long finishedAt = buffer.getLong();
+            long duration = buffer.getLong();
+            String sha = string(buffer);
+            int fileCount = Short.toUnsignedInt(buffer.getShort());
+            List<String> files = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                files.add(string(buffer));
+            }
+            String url = string(buffer);
+            buffer.getInt(); // CRC, checked on recovery
+            return new Record(id, buildNumber, result, triggeredAt, startedAt, finishedAt, duration, sha, files, url);
+        }
+
+        private void write(JsonWriter json) throws IOException {
+            json.beginObject();
+            json.name("id").value(id);
+            json.name("buildNumber").value(buildNumber);
+            json.name("result").value(result.name());
+            json.name("durationMs").value(durationMillis);
+            if (triggeredAt > 0) json.name("triggeredAt").value(Instant.ofEpochMilli(triggeredAt).toString());
+            json.name("startedAt").value(Instant.ofEpochMilli(startedAt).toString());
+            json.name("finishedAt").value(Instant.ofEpochMilli(finishedAt).toString());
+            if (!commitSha.isEmpty()) json.name("commitSha").value(commitSha);
+            if (files.size() == 1) json.name("filename").value(files.get(0));
+            json.name("files").beginArray();
+            for (String file : files) {
+                json.value(file);
+            }
+            json.endArray();
+            if (!url.isEmpty()) json.name("url").value(url);
+            json.endObject();
+        }
+
+        /** UTF-8 of {@code value}, cut at a character boundary to fit a u16 length. */
+        private static byte[] utf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length <= MAX_U16) {
+                return bytes;
+            }
+            int end = MAX_U16;
+            while ((bytes[end] & 0xC0) == 0x80) {
+                end--;
+            }
+            return Arrays.copyOf(bytes, end);
+        }
+
+        private static String string(ByteBuffer buffer) {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.devops;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Build state pushed by Jenkins through POST /api/hooks/jenkins (Notification plugin
+ * payloads), keyed by job and build number.
+ *
+ * Each build moves forward through QUEUED → STARTED → COMPLETED → FINALIZED; an event for
+ * an earlier phase than the one already stored arrived out of order and is ignored.
+ * Every stored state carries the status JSON and ETag that /api/build-status serves, so
+ * reads cost one map lookup.
+ *
+ * A running build's state is only trusted for BUILD_STATE_RUNNING_TRUST_SECONDS after its
+ * last event, so a lost COMPLETED notification falls back to polling instead of showing
+ * the build as running forever. At most BUILD_STATE_CAPACITY builds are kept; the oldest
+ * are dropped first.
+ */
+public class BuildStateStore {
+
+    public enum Phase {
+        QUEUED, STARTED, COMPLETED, FINALIZED;
+
+        /**
+         * The result is known from COMPLETED on. Jenkins keeps writing the log until
+         * FINALIZED, so this says nothing about whether the console is complete.
+         */
+        public boolean isFinished() {
+            return this == COMPLETED || this == FINALIZED;
+        }
+    }
+
+    private final int capacity;
+    private final long runningTrustMillis;
+    private final ConcurrentMap<String, BuildState> builds = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder[] events = new LongAdder[Phase.values().length];
+    private final LongAdder outOfOrder = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BuildStateStore(int capacity, long runningTrustMillis) {
+        this.capacity = capacity;
+        this.runningTrustMillis = runningTrustMillis;
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Reads a Notification plugin payload, e.g.
+     *   {"name":"xpg","build":{"number":7,"queue_id":12,"phase":"COMPLETED","status":"SUCCESS",
+     *    "full_url":"http://jenkins/job/xpg/7/","timestamp":1700000000000,"duration":5400}}
+     * Returns null when the job name, build number or a known phase is missing.
+     */
+    public static Notification parse(String body) {
+        Notification notification = Json.GSON.fromJson(body, Notification.class);
+        if (notification == null || notification.name == null || notification.build == null
+                || notification.build.number <= 0 || notification.phase() == null) {
+            return null;
+        }
+        return notification;
+    }
+
+    /** Stores {@code notification} unless a later phase is already known; returns the current state. */
+    public BuildState record(Notification notification) {
+        Phase phase = notification.phase();
+        events[phase.ordinal()].increment();
+        String key = key(notification.name, notification.build.number);
+        long now = System.currentTimeMillis();
+
+        boolean[] added = new boolean[1];
+        BuildState state = builds.compute(key, (k, current) -> {
+            if (current == null) {
+                added[0] = true;
+                return BuildState.of(notification, phase, now);
+            }
+            if (phase.compareTo(current.phase) < 0) {
+                outOfOrder.increment();
+                return current;
+            }
+            return BuildState.of(notification, phase, now);
+        });
+
+        if (added[0]) {
+            insertionOrder.add(key);
+            while (builds.size() > capacity) {
+                String eldest = insertionOrder.poll();
+                if (eldest == null) {
+                    break;
+                }
+                builds.remove(eldest);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * The pushed state of build {@code number} of {@code job}, or null when no event has
+     * arrived (or the build is still running and its last event is too old to trust).
+     */
+    public BuildState get(String job, int number) {
+        BuildState state = builds.get(key(job, number));
+        if (state == null || (!state.isFinished() && System.currentTimeMillis() - state.updatedAt > runningTrustMillis)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return state;
+    }
+
+    public int size() {
+        return builds.size();
+    }
+
+    /** Appends event, lookup and size metrics in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP jenkins_webhook_events_total Jenkins notifications received, by build phase\n");
+        output.append("# TYPE jenkins_webhook_events_total counter\n");
+        for (Phase phase : Phase.values()) {
+            output.append("jenkins_webhook_events_total{phase=\"").append(phase.name()).append("\"} ")
+                    .append(events[phase.ordinal()].sum()).append('\n');
+        }
+        output.append("jenkins_webhook_events_total{phase=\"out_of_order\"} ").append(outOfOrder.sum()).append('\n');
+
+        output.append("# HELP build_state_lookups_total Status reads answered from pushed build state\n");
+        output.append("# TYPE build_state_lookups_total counter\n");
+        output.append("build_state_lookups_total{result=\"hit\"} ").append(hits.sum()).append('\n');
+        output.append("build_state_lookups_total{result=\"miss\"} ").append(misses.sum()).append('\n');
+
+        output.append("# HELP build_state_builds Builds with pushed state in memory\n");
+        output.append("# TYPE build_state_builds gauge\n");
+        output.append("build_state_builds ").append(builds.size()).append('\n');
+    }
+
+    private static String key(String job, int number) {
+        return job + "#" + number;
+    }
+
+    // ── Payload ───────────────────────────────────────────────────────────────
+
+    /** The fields of a Notification plugin payload the store uses; the rest is ignored. */
+    public static final class Notification {
+        private String name;
+        private Build build;
+
+        public String getJob() {
+            return name;
+        }
+
+        public int getNumber() {
+            return build.number;
+        }
+
+        /** Queue item id, or 0 when Jenkins did not send one. */
+        public long getQueueId() {
+            return build.queueId;
+        }
+
+        public Phase phase() {
+            if (build == null || build.phase == null) {
+                return null;
+            }
+            try {
+                return Phase.valueOf(build.phase.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Build {
+        private int number;
+        @SerializedName("queue_id")
+        private long queueId;
+        private String phase;
+        private String status;
+        @SerializedName("full_url")
+        private String fullUrl;
+        private long timestamp;
+        private Long duration;
+    }
+
+    // ── BuildState ────────────────────────────────────────────────────────────
+
+    /** Immutable state of one build after its latest event. */
+    public static final class BuildState {
+        private final Phase phase;
+        private final long updatedAt;
+        private final String json;
+        private final String etag;
+
+        private BuildState(Phase phase, long updatedAt, String json) {
+            this.phase = phase;
+            this.updatedAt = updatedAt;
+            this.json = json;
+            this.etag = BuildStatusCache.etagOf(json);
+        }
+
+        static BuildState of(Notification notification, Phase phase, long now) {
+            Build build = notification.build;
+            boolean finished = phase.isFinished();
+            long duration = 0;
+            if (finished) {
+                if (build.duration != null) {
+                    duration = build.duration;
+                } else if (build.timestamp > 0) {
+                    duration = Math.max(0, now - build.timestamp);
+                }
+            }
+            String result = finished ? (build.status != null ? build.status : "UNKNOWN") : null;
+            String json = JenkinsService.toBuildStatus(
+                    new JenkinsService.BuildInfo(!finished, result, duration, build.timestamp, build.fullUrl), build.number);
+            return new BuildState(phase, now, json);
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public boolean isFinished() {
+            return phase.isFinished();
+        }
+
+        /** Same shape as the polled status: building, result, duration, timestamp, buildNumber, url. */
+        public String getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.devops;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.JsonParser;
+
+/**
+ * Caches the build-status JSON served on /api/build-status/:number, and (as a second
+ * instance) the stage timings served on /api/builds/:number/stages.
+ *
+ *   - Concurrent misses for the same build share one in-flight Jenkins call (single-flight).
+ *   - Running builds are cached for BUILD_STATUS_TTL_MILLIS. Expired entries are dropped
+ *     when looked up and swept whenever another running build is stored, so builds that
+ *     are never asked for again do not pile up.
+ *   - Finished builds (building=false) never change, so they are kept for good in a
+ *     bounded LRU of BUILD_STATUS_CACHE_SIZE entries.
+ *
+ * Every entry carries a strong ETag derived from its JSON bytes.
+ */
+public class BuildStatusCache {
+
+    @FunctionalInterface
+    public interface Loader {
+        String load(int buildNumber) throws Exception;
+    }
+
+    private final Loader loader;
+    private final long runningTtlMillis;
+
+    private final Map<Integer, Entry> finished;
+    private final ConcurrentMap<Integer, Entry> running = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public BuildStatusCache(Loader loader, long runningTtlMillis, int maxFinishedEntries) {
+        this.loader = loader;
+        this.runningTtlMillis = runningTtlMillis;
+        this.finished = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxFinishedEntries;
+            }
+        };
+    }
+
+    /** Returns the cached status of {@code buildNumber}, loading it from Jenkins at most once at a time. */
+    public Entry get(int buildNumber) throws Exception {
+        Entry entry = cached(buildNumber);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = inFlight.putIfAbsent(buildNumber, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        misses.increment();
+        try {
+            String json = loader.load(buildNumber);
+            boolean done = !JsonParser.parseString(json).getAsJsonObject().get("building").getAsBoolean();
+            long now = System.currentTimeMillis();
+            entry = new Entry(json, etagOf(json), done, now + runningTtlMillis);
+            if (done) {
+                synchronized (finished) {
+                    finished.put(buildNumber, entry);
+                }
+                running.remove(buildNumber);
+            } else {
+                running.values().removeIf(stale -> now >= stale.expiresAt);
+                running.put(buildNumber, entry);
+            }
+            mine.complete(entry);
+            return entry;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(buildNumber, mine);
+        }
+    }
+
+    /** Appends hit/miss/coalesced counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP build_status_cache_requests_total Build status lookups by cache outcome\n");
+        output.append("# TYPE build_status_cache_requests_total counter\n");
+        output.append("build_status_cache_requests_total{result=\"hit\"} ").append(hits.sum()).append('\n');
+        output.append("build_status_cache_requests_total{result=\"miss\"} ").append(misses.sum()).append('\n');
+        output.append("build_status_cache_requests_total{result=\"coalesced\"} ").append(coalesced.sum()).append('\n');
+    }
+
+    private Entry cached(int buildNumber) {
+        synchronized (finished) {
+            Entry entry = finished.get(buildNumber);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = running.get(buildNumber);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() < entry.expiresAt) {
+            return entry;
+        }
+        running.remove(buildNumber, entry);
+        return null;
+    }
+
+    /** Running-build entries currently held, expired or not. */
+    int runningCount() {
+        return running.size();
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    static String etagOf(String body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ── Entry ─────────────────────────────────────────────────────────────────
+
+    public static final class Entry {
+        private final String json;
+        private final String etag;
+        private final boolean finished;
+        private final long expiresAt;
+
+        private Entry(String json, String etag, boolean finished, long expiresAt) {
+            this.json = json;
+            this.etag = etag;
+            this.finished = finished;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /** True once Jenkins reports building=false; the entry is then immutable. */
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker for one upstream.
+ *
+ *   CLOSED    — calls go through; {@code failureThreshold} failures in a row open the circuit.
+ *   OPEN      — calls are refused without touching the network for {@code openMillis}.
+ *   HALF_OPEN — after that, exactly one probe call is let through at a time. A success
+ *               closes the circuit; a failure opens it for another {@code openMillis}.
+ *
+ * Results reported while the circuit is OPEN come from calls started before it opened
+ * and are ignored.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private final LongAdder opened = new LongAdder();
+    private volatile long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.clock = clock;
+    }
+
+    /** True if a call may go out now; in HALF_OPEN only the caller that wins the probe gets true. */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return state.get() == State.HALF_OPEN && probeInFlight.compareAndSet(false, true);
+    }
+
+    /** Gives back a probe acquired with {@link #tryAcquire} for a call that was never sent. */
+    public void release() {
+        probeInFlight.set(false);
+    }
+
+    public void onSuccess() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            consecutiveFailures.set(0);
+        } else if (current == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            consecutiveFailures.set(0);
+            probeInFlight.set(false);
+        }
+    }
+
+    public void onFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        } else if (current == State.CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    public State getState() {
+        State current = state.get();
+        // Report an expired OPEN as HALF_OPEN even before the next call flips it
+        if (current == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return current;
+    }
+
+    /** Milliseconds until an OPEN circuit lets a probe through; 0 otherwise. */
+    public long millisUntilProbe() {
+        if (state.get() != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (clock.getAsLong() - openedAt)));
+    }
+
+    /** How many times the circuit has opened. */
+    public long openedCount() {
+        return opened.sum();
+    }
+
+    private void open(State from) {
+        openedAt = clock.getAsLong();
+        if (state.compareAndSet(from, State.OPEN)) {
+            opened.increment();
+            consecutiveFailures.set(0);
+            probeInFlight.set(false);
+        }
+    }
+}
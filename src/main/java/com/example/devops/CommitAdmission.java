@@ -0,0 +1,195 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control in front of the commit routes. Every commit costs GitHub API calls
+ * and a Jenkins build, so a call is admitted only if both
+ *   - the caller's token bucket (COMMIT_RATE_PER_MINUTE, bursts of COMMIT_BURST) has a token, and
+ *   - the global GitHub budget allows it: the quota left in the current rate-limit window,
+ *     minus COMMIT_GITHUB_RESERVE calls kept back for everything else, is spread evenly
+ *     over the time until the window resets (bursts of COMMIT_GLOBAL_BURST commits).
+ * Until GitHub has sent its first X-RateLimit-* headers only the per-client limit applies.
+ *
+ * Buckets are kept as GCRA "theoretical arrival times" in a fixed AtomicLongArray indexed
+ * by a hash of the client, and updated with compare-and-set: no locks, no per-client
+ * allocation and nothing to evict. Clients whose hashes collide share a bucket, which with
+ * {@value #STRIPES} stripes only matters when thousands of clients commit at once.
+ *
+ * A rejection carries the time until a token is available, sent back as Retry-After.
+ * An admitted call that is then not carried out (e.g. the workflow queue is full) hands
+ * its token and budget back with {@link #release}.
+ */
+public class CommitAdmission {
+
+    static final int STRIPES = 4096;
+
+    /** Why {@link #admit} let a call through or turned it away. */
+    public enum Outcome { ADMITTED, CLIENT_LIMITED, QUOTA_LIMITED }
+
+    /** The GitHub rate-limit window as last reported; remaining is negative when unknown. */
+    interface Quota {
+        long remaining();
+
+        long secondsUntilReset();
+    }
+
+    private final long clientInterval;
+    private final int clientBurst;
+    private final int globalBurst;
+    private final int reserve;
+    private final Quota quota;
+    private final LongSupplier clock;
+    private final long origin;
+    private final AtomicLongArray clients = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray global = new AtomicLongArray(1);
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder clientLimited = new LongAdder();
+    private final LongAdder quotaLimited = new LongAdder();
+
+    public CommitAdmission(int ratePerMinute, int burst, int globalBurst, int reserve,
+                           HttpClientRegistry.UpstreamClient github) {
+        this(ratePerMinute, burst, globalBurst, reserve, new Quota() {
+            @Override
+            public long remaining() {
+                return github.getRateLimitRemaining();
+            }
+
+            @Override
+            public long secondsUntilReset() {
+                return github.getRateLimitReset() - System.currentTimeMillis() / 1000;
+            }
+        }, System::nanoTime);
+    }
+
+    CommitAdmission(int ratePerMinute, int burst, int globalBurst, int reserve, Quota quota, LongSupplier clock) {
+        this.clientInterval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, ratePerMinute);
+        this.clientBurst = Math.max(1, burst);
+        this.globalBurst = Math.max(1, globalBurst);
+        this.reserve = Math.max(0, reserve);
+        this.quota = quota;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    /**
+     * Takes a token for {@code client} and budget for {@code githubCalls} GitHub calls.
+     * Nothing is taken when the call is rejected.
+     */
+    public Decision admit(String client, int githubCalls) {
+        long now = clock.getAsLong() - origin;
+        int stripe = stripe(client);
+
+        long clientWait = acquire(clients, stripe, now, clientInterval, clientBurst);
+        if (clientWait > 0) {
+            clientLimited.increment();
+            return new Decision(Outcome.CLIENT_LIMITED, clientWait);
+        }
+
+        long globalInterval = 0;
+        long remaining = quota.remaining();
+        if (remaining >= 0) {
+            long secondsUntilReset = Math.max(1, quota.secondsUntilReset());
+            long commitsLeft = (remaining - reserve) / Math.max(1, githubCalls);
+            globalInterval = commitsLeft <= 0 ? 0 : TimeUnit.SECONDS.toNanos(secondsUntilReset) / commitsLeft;
+            long globalWait = commitsLeft <= 0
+                    ? TimeUnit.SECONDS.toNanos(secondsUntilReset)
+                    : acquire(global, 0, now, globalInterval, globalBurst);
+            if (globalWait > 0) {
+                // Give the client its token back; the call never reached GitHub
+                clients.addAndGet(stripe, -clientInterval);
+                quotaLimited.increment();
+                return new Decision(Outcome.QUOTA_LIMITED, globalWait);
+            }
+        }
+
+        admitted.increment();
+        return new Decision(Outcome.ADMITTED, 0, stripe, globalInterval);
+    }
+
+    /** Gives back the client token and GitHub budget taken by an admitted call that never ran. */
+    public void release(Decision decision) {
+        if (!decision.isAdmitted()) {
+            return;
+        }
+        clients.addAndGet(decision.stripe, -clientInterval);
+        if (decision.globalInterval > 0) {
+            global.addAndGet(0, -decision.globalInterval);
+        }
+    }
+
+    /** Appends admission counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP commit_admission_total Commit requests by admission outcome\n");
+        output.append("# TYPE commit_admission_total counter\n");
+        output.append("commit_admission_total{outcome=\"admitted\"} ").append(admitted.sum()).append('\n');
+        output.append("commit_admission_total{outcome=\"client_limited\"} ").append(clientLimited.sum()).append('\n');
+        output.append("commit_admission_total{outcome=\"quota_limited\"} ").append(quotaLimited.sum()).append('\n');
+
+        long remaining = quota.remaining();
+        output.append("# HELP commit_admission_github_budget GitHub calls left for commits before the reserve (-1 = unknown)\n");
+        output.append("# TYPE commit_admission_github_budget gauge\n");
+        output.append("commit_admission_github_budget ").append(remaining < 0 ? -1 : Math.max(0, remaining - reserve)).append('\n');
+    }
+
+    /**
+     * GCRA step on one cell: returns 0 and advances the cell if a request arriving at
+     * {@code now} conforms, otherwise the nanoseconds until it would.
+     */
+    private static long acquire(AtomicLongArray cells, int index, long now, long interval, int burst) {
+        while (true) {
+            long tat = cells.get(index);
+            long next = Math.max(tat, now) + interval;
+            long allowedAt = next - burst * interval;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (cells.compareAndSet(index, tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private static int stripe(String client) {
+        int hash = client == null ? 0 : client.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x9E3779B9;
+        return (hash >>> 20) & (STRIPES - 1);
+    }
+
+    // ── Decision ──────────────────────────────────────────────────────────────
+
+    public static final class Decision {
+        private final Outcome outcome;
+        private final long waitNanos;
+        private final int stripe;
+        private final long globalInterval;
+
+        Decision(Outcome outcome, long waitNanos) {
+            this(outcome, waitNanos, -1, 0);
+        }
+
+        private Decision(Outcome outcome, long waitNanos, int stripe, long globalInterval) {
+            this.outcome = outcome;
+            this.waitNanos = waitNanos;
+            this.stripe = stripe;
+            this.globalInterval = globalInterval;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isAdmitted() {
+            return outcome == Outcome.ADMITTED;
+        }
+
+        /** Whole seconds to send in Retry-After, at least 1. */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+}
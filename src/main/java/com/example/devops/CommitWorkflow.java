@@ -0,0 +1,182 @@
+package com.example.devops;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * State of one background commit workflow:
+ *   github  — commit the file(s) to GitHub (Contents API, or Git Data API for batches)
+ *   trigger — queue a Jenkins build
+ *   resolve — wait for the queue item to become a real build number
+ *
+ * Instances are written by a single worker thread and read by request threads,
+ * so every accessor is synchronized.
+ */
+public class CommitWorkflow {
+
+    public enum State { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    public static final String STEP_GITHUB  = "github";
+    public static final String STEP_TRIGGER = "trigger";
+    public static final String STEP_RESOLVE = "resolve";
+
+    private final String id;
+    private final List<String> files;
+    private final String message;
+    private final Instant createdAt = Instant.now();
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    private State state = State.PENDING;
+    private Instant finishedAt;
+    private String commitSha;
+    private String queueUrl;
+    private Integer buildNumber;
+    private String error;
+
+    public CommitWorkflow(String id, List<String> files, String message) {
+        this.id = id;
+        this.files = List.copyOf(files);
+        this.message = message;
+        steps.put(STEP_GITHUB,  new Step());
+        steps.put(STEP_TRIGGER, new Step());
+        steps.put(STEP_RESOLVE, new Step());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<String> getFiles() {
+        return files;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isFinished() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    public synchronized Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public synchronized String getCommitSha() {
+        return commitSha;
+    }
+
+    public synchronized Integer getBuildNumber() {
+        return buildNumber;
+    }
+
+    public synchronized String getError() {
+        return error;
+    }
+
+    // ── Transitions (worker thread only) ─────────────────────────────────────
+
+    synchronized void startStep(String name) {
+        state = State.RUNNING;
+        Step step = steps.get(name);
+        step.state = State.RUNNING;
+        step.startedAt = Instant.now();
+    }
+
+    synchronized void completeStep(String name) {
+        Step step = steps.get(name);
+        step.state = State.SUCCEEDED;
+        step.finishedAt = Instant.now();
+    }
+
+    synchronized void failStep(String name, String errorMessage) {
+        Step step = steps.get(name);
+        step.state = State.FAILED;
+        step.finishedAt = Instant.now();
+        step.error = errorMessage;
+        fail(errorMessage);
+    }
+
+    synchronized void fail(String errorMessage) {
+        state = State.FAILED;
+        error = errorMessage;
+        finishedAt = Instant.now();
+    }
+
+    synchronized void succeed() {
+        state = State.SUCCEEDED;
+        finishedAt = Instant.now();
+    }
+
+    synchronized void setCommitSha(String commitSha) {
+        this.commitSha = commitSha;
+    }
+
+    synchronized void setQueueUrl(String queueUrl) {
+        this.queueUrl = queueUrl;
+    }
+
+    synchronized void setBuildNumber(int buildNumber) {
+        this.buildNumber = buildNumber;
+    }
+
+    // ── JSON ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Returns the workflow as JSON:
+     *   { "workflowId": "...", "state": "RUNNING", "files": ["..."], "commitSha": "...",
+     *     "buildNumber": 4, "steps": [ { "name": "github", "state": "SUCCEEDED", ... } ] }
+     */
+    public synchronized JsonObject toJson() {
+        JsonObject out = new JsonObject();
+        out.addProperty("workflowId", id);
+        out.addProperty("state",      state.name());
+        if (files.size() == 1) out.addProperty("filename", files.get(0));
+        JsonArray fileArray = new JsonArray();
+        files.forEach(fileArray::add);
+        out.add("files", fileArray);
+        out.addProperty("createdAt",  createdAt.toString());
+        if (finishedAt != null)  out.addProperty("finishedAt",  finishedAt.toString());
+        if (commitSha != null)   out.addProperty("commitSha",   commitSha);
+        if (queueUrl != null)    out.addProperty("queueUrl",    queueUrl);
+        if (buildNumber != null) out.addProperty("buildNumber", buildNumber);
+        if (error != null)       out.addProperty("error",       error);
+
+        JsonArray stepArray = new JsonArray();
+        for (Map.Entry<String, Step> entry : steps.entrySet()) {
+            Step step = entry.getValue();
+            JsonObject s = new JsonObject();
+            s.addProperty("name",  entry.getKey());
+            s.addProperty("state", step.state.name());
+            if (step.startedAt != null) s.addProperty("startedAt", step.startedAt.toString());
+            if (step.finishedAt != null) {
+                s.addProperty("finishedAt", step.finishedAt.toString());
+                s.addProperty("durationMs", step.finishedAt.toEpochMilli() - step.startedAt.toEpochMilli());
+            }
+            if (step.error != null) s.addProperty("error", step.error);
+            stepArray.add(s);
+        }
+        out.add("steps", stepArray);
+        return out;
+    }
+
+    private static final class Step {
+        private State state = State.PENDING;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private String error;
+    }
+}
@@ -9,6 +9,8 @@ import java.util.Map;
 
 /**
  * Reads configuration from environment variables.
+ * A JVM system property of the same name (-DJENKINS_URL=...) takes precedence, which
+ * lets tests and the load-test harness point the app at local stubs.
  *
  * Set these before starting the app:
  *   GITHUB_TOKEN  — your GitHub Personal Access Token (needs repo write scope)
@@ -20,6 +22,50 @@ import java.util.Map;
  *   JENKINS_TOKEN — Jenkins API token (from: Jenkins → Your User → Configure → API Token)
  *   JENKINS_JOB   — Jenkins job name      (default: xpg)
  *
+ * Optional tuning:
+ *   WORKFLOW_THREADS        — background commit workflow workers       (default: 4)
+ *   WORKFLOW_QUEUE_CAPACITY — workflows allowed to wait for a worker   (default: 100)
+ *   WORKFLOW_RETENTION      — workflows kept for /api/workflows/:id    (default: 500)
+ *   HTTP_CLIENT_THREADS     — executor threads per upstream HttpClient  (default: 4)
+ *   HTTP_POOL_SIZE          — max idle pooled connections per client    (default: 16)
+ *   HTTP_KEEPALIVE_SECONDS  — idle keep-alive before a connection closes (default: 60)
+ *   UPSTREAM_PRECONNECT     — open GitHub/Jenkins connections at startup (default: false)
+ *   JENKINS_CRUMB_TTL_SECONDS — how long a cached CSRF crumb is reused  (default: 300)
+ *   GITHUB_CONTENT_CACHE_SIZE — path/branch entries kept for ETag lookups (default: 1000)
+ *   SSE_POLL_MILLIS         — Jenkins poll interval behind /api/builds/:number/events (default: 2000)
+ *   SSE_REPLAY_BYTES        — per-build event replay buffer for Last-Event-ID (default: 8 MB)
+ *   SSE_MAX_SUBSCRIBERS     — concurrent event streams across all builds   (default: 64)
+ *   BUILD_STATUS_TTL_MILLIS — cache lifetime of a running build's status   (default: 1000)
+ *   BUILD_STATUS_CACHE_SIZE — finished build statuses kept in memory       (default: 1000)
+ *   LOG_CACHE_DIR           — directory for finished builds' console logs (default: log-cache)
+ *   LOG_CACHE_MAX_MB        — disk budget for cached console logs          (default: 512)
+ *   LOG_CACHE_MAX_AGE_HOURS — cached logs older than this are deleted      (default: 168)
+ *   LOG_INDEX_CACHE_SIZE    — line/token indexes of cached logs kept in memory (default: 16)
+ *   BUILD_SUMMARY_CACHE_SIZE — builds whose parsed console summary is kept   (default: 256)
+ *   QUEUE_POLL_MIN_MILLIS   — first queue poll delay after a trigger       (default: 250)
+ *   QUEUE_POLL_MAX_MILLIS   — queue poll back-off ceiling                  (default: 2000)
+ *   QUEUE_RESOLVE_TIMEOUT_SECONDS — give up waiting for a build to start  (default: 60)
+ *   SERVER_VIRTUAL_THREADS  — serve each request on a virtual thread (Java 21+) (default: false)
+ *   SERVER_MAX_THREADS      — platform request threads when not virtual    (default: 200)
+ *   COMPRESSION_MIN_BYTES   — smallest log/metrics body worth compressing (default: 1024)
+ *   GITHUB_API_URL          — GitHub REST API base URL (default: https://api.github.com)
+ *   COMMIT_RATE_PER_MINUTE  — commits each client may start per minute    (default: 30)
+ *   COMMIT_BURST            — commits a client may start back to back      (default: 10)
+ *   COMMIT_GLOBAL_BURST     — commits admitted at once under the GitHub quota pacing (default: 20)
+ *   COMMIT_GITHUB_RESERVE   — GitHub calls per window never spent on commits, 0 for none (default: 200)
+ *   UPSTREAM_CONNECT_TIMEOUT_SECONDS — TCP/TLS connect timeout to GitHub/Jenkins (default: 5)
+ *   UPSTREAM_REQUEST_TIMEOUT_SECONDS — wait for an upstream's response headers (default: 30)
+ *   GITHUB_MAX_CONCURRENCY  — concurrent calls allowed to GitHub          (default: 32)
+ *   JENKINS_MAX_CONCURRENCY — concurrent calls allowed to Jenkins         (default: 16)
+ *   UPSTREAM_BULKHEAD_WAIT_MILLIS — wait for a free call slot before failing (default: 500)
+ *   UPSTREAM_BREAKER_FAILURES — consecutive failures that open a circuit   (default: 5)
+ *   UPSTREAM_BREAKER_OPEN_SECONDS — how long an open circuit refuses calls (default: 30)
+ *   JENKINS_WEBHOOK_TOKEN   — shared secret POST /api/hooks/jenkins must send; webhooks are refused without it (default: none)
+ *   BUILD_STATE_CAPACITY    — builds with pushed webhook state kept in memory (default: 5000)
+ *   BUILD_STATE_RUNNING_TRUST_SECONDS — trust a running build's last event before polling again (default: 300)
+ *   BUILD_HISTORY_DIR       — directory of the finished-build history log  (default: build-history)
+ *   BUILD_HISTORY_POLL_SECONDS — check triggered builds for a result to record (default: 30)
+ *
  * Windows PowerShell example:
  *   $env:GITHUB_TOKEN="ghp_xxxx"
  *   $env:JENKINS_USER="admin"
@@ -34,12 +80,67 @@ public class Config {
     public static final String GITHUB_OWNER  = env("GITHUB_OWNER",  "ayushanand27");
     public static final String GITHUB_REPO   = env("GITHUB_REPO",   "xplayground");
     public static final String GITHUB_BRANCH = env("GITHUB_BRANCH", "main");
+    public static final String GITHUB_API_URL = env("GITHUB_API_URL", "https://api.github.com");
 
     public static final String JENKINS_URL   = env("JENKINS_URL",   "http://localhost:8080");
     public static final String JENKINS_USER  = env("JENKINS_USER",  "");
     public static final String JENKINS_TOKEN = env("JENKINS_TOKEN", "");
     public static final String JENKINS_JOB   = env("JENKINS_JOB",   "xpg");
 
+    public static final int WORKFLOW_THREADS        = envInt("WORKFLOW_THREADS",        4);
+    public static final int WORKFLOW_QUEUE_CAPACITY = envInt("WORKFLOW_QUEUE_CAPACITY", 100);
+    public static final int WORKFLOW_RETENTION      = envInt("WORKFLOW_RETENTION",      500);
+
+    public static final int     HTTP_CLIENT_THREADS    = envInt("HTTP_CLIENT_THREADS",    4);
+    public static final int     HTTP_POOL_SIZE         = envInt("HTTP_POOL_SIZE",         16);
+    public static final int     HTTP_KEEPALIVE_SECONDS = envInt("HTTP_KEEPALIVE_SECONDS", 60);
+    public static final boolean UPSTREAM_PRECONNECT    = envFlag("UPSTREAM_PRECONNECT",   false);
+
+    public static final int JENKINS_CRUMB_TTL_SECONDS = envInt("JENKINS_CRUMB_TTL_SECONDS", 300);
+    public static final int GITHUB_CONTENT_CACHE_SIZE = envInt("GITHUB_CONTENT_CACHE_SIZE", 1000);
+
+    public static final int SSE_POLL_MILLIS     = envInt("SSE_POLL_MILLIS",     2000);
+    public static final int SSE_REPLAY_BYTES    = envInt("SSE_REPLAY_BYTES",    8 * 1024 * 1024);
+    public static final int SSE_MAX_SUBSCRIBERS = envInt("SSE_MAX_SUBSCRIBERS", 64);
+
+    public static final int BUILD_STATUS_TTL_MILLIS = envInt("BUILD_STATUS_TTL_MILLIS", 1000);
+    public static final int BUILD_STATUS_CACHE_SIZE = envInt("BUILD_STATUS_CACHE_SIZE", 1000);
+
+    public static final String LOG_CACHE_DIR           = env("LOG_CACHE_DIR", "log-cache");
+    public static final int    LOG_CACHE_MAX_MB        = envInt("LOG_CACHE_MAX_MB",        512);
+    public static final int    LOG_CACHE_MAX_AGE_HOURS = envInt("LOG_CACHE_MAX_AGE_HOURS", 168);
+    public static final int    LOG_INDEX_CACHE_SIZE    = envInt("LOG_INDEX_CACHE_SIZE",    16);
+    public static final int    BUILD_SUMMARY_CACHE_SIZE = envInt("BUILD_SUMMARY_CACHE_SIZE", 256);
+
+    public static final int QUEUE_POLL_MIN_MILLIS         = envInt("QUEUE_POLL_MIN_MILLIS",         250);
+    public static final int QUEUE_POLL_MAX_MILLIS         = envInt("QUEUE_POLL_MAX_MILLIS",         2000);
+    public static final int QUEUE_RESOLVE_TIMEOUT_SECONDS = envInt("QUEUE_RESOLVE_TIMEOUT_SECONDS", 60);
+
+    public static final boolean SERVER_VIRTUAL_THREADS = envFlag("SERVER_VIRTUAL_THREADS", false);
+    public static final int     SERVER_MAX_THREADS     = envInt("SERVER_MAX_THREADS",     200);
+
+    public static final int COMPRESSION_MIN_BYTES = envInt("COMPRESSION_MIN_BYTES", 1024);
+
+    public static final int COMMIT_RATE_PER_MINUTE = envInt("COMMIT_RATE_PER_MINUTE", 30);
+    public static final int COMMIT_BURST           = envInt("COMMIT_BURST",           10);
+    public static final int COMMIT_GLOBAL_BURST    = envInt("COMMIT_GLOBAL_BURST",    20);
+    public static final int COMMIT_GITHUB_RESERVE  = envInt("COMMIT_GITHUB_RESERVE",  200, 0);
+
+    public static final int UPSTREAM_CONNECT_TIMEOUT_SECONDS = envInt("UPSTREAM_CONNECT_TIMEOUT_SECONDS", 5);
+    public static final int UPSTREAM_REQUEST_TIMEOUT_SECONDS = envInt("UPSTREAM_REQUEST_TIMEOUT_SECONDS", 30);
+    public static final int GITHUB_MAX_CONCURRENCY           = envInt("GITHUB_MAX_CONCURRENCY",           32);
+    public static final int JENKINS_MAX_CONCURRENCY          = envInt("JENKINS_MAX_CONCURRENCY",          16);
+    public static final int UPSTREAM_BULKHEAD_WAIT_MILLIS    = envInt("UPSTREAM_BULKHEAD_WAIT_MILLIS",    500);
+    public static final int UPSTREAM_BREAKER_FAILURES        = envInt("UPSTREAM_BREAKER_FAILURES",        5);
+    public static final int UPSTREAM_BREAKER_OPEN_SECONDS    = envInt("UPSTREAM_BREAKER_OPEN_SECONDS",    30);
+
+    public static final String JENKINS_WEBHOOK_TOKEN          = env("JENKINS_WEBHOOK_TOKEN", "");
+    public static final int BUILD_STATE_CAPACITY              = envInt("BUILD_STATE_CAPACITY",              5000);
+    public static final int BUILD_STATE_RUNNING_TRUST_SECONDS = envInt("BUILD_STATE_RUNNING_TRUST_SECONDS", 300);
+
+    public static final String BUILD_HISTORY_DIR          = env("BUILD_HISTORY_DIR", "build-history");
+    public static final int    BUILD_HISTORY_POLL_SECONDS = envInt("BUILD_HISTORY_POLL_SECONDS", 30);
+
     public static boolean isGitHubConfigured() {
         return !GITHUB_TOKEN.isEmpty();
     }
@@ -49,6 +150,11 @@ public class Config {
     }
 
     private static String env(String key, String defaultValue) {
+        String property = System.getProperty(key);
+        if (property != null && !property.isBlank()) {
+            return property.trim();
+        }
+
         String value = System.getenv(key);
         if (value != null) {
             String trimmed = value.trim();
@@ -68,6 +174,31 @@ public class Config {
         return defaultValue;
     }
 
+    private static int envInt(String key, int defaultValue) {
+        return envInt(key, defaultValue, 1);
+    }
+
+    /** Integer setting of at least {@code min}; anything else falls back to the default with a warning. */
+    private static int envInt(String key, int defaultValue, int min) {
+        String raw = env(key, String.valueOf(defaultValue));
+        try {
+            int value = Integer.parseInt(raw);
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below like any other out-of-range value.
+        }
+        System.err.println("[WARN] Ignoring " + key + "=" + raw + " (must be an integer >= " + min
+                + "); using " + defaultValue + ".");
+        return defaultValue;
+    }
+
+    private static boolean envFlag(String key, boolean defaultValue) {
+        String value = env(key, String.valueOf(defaultValue));
+        return value.equalsIgnoreCase("true") || value.equals("1") || value.equalsIgnoreCase("yes");
+    }
+
     private static Map<String, String> loadDotEnv() {
         Path envPath = Path.of(".env");
         if (!Files.exists(envPath)) {
@@ -0,0 +1,335 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Incremental parser for a Jenkins pipeline console, fed the text deltas that
+ * progressiveText returns. It makes one pass over each line and picks out:
+ *   - stages: "[Pipeline] { (Name)" opens one and its matching "[Pipeline] }" closes it;
+ *     "Stage "Name" skipped ..." marks it skipped;
+ *   - Surefire "Tests run: N, Failures: F, Errors: E, Skipped: S" lines, summed;
+ *   - [ERROR] / ERROR: blocks, consecutive error lines grouped with the stage they ran in;
+ *   - the final "Finished: RESULT" line.
+ *
+ * Memory stays constant however long the log is: a partial line is kept up to
+ * {@value #MAX_LINE_CHARS} chars, at most {@value #MAX_STAGES} stages and
+ * {@value #MAX_ERROR_BLOCKS} error blocks of {@value #MAX_ERROR_LINES} lines are kept,
+ * and anything beyond that is only counted. Not thread-safe; callers synchronize.
+ */
+public class ConsoleEventParser {
+
+    static final int MAX_LINE_CHARS = 4096;
+    static final int MAX_STAGES = 64;
+    static final int MAX_ERROR_BLOCKS = 20;
+    static final int MAX_ERROR_LINES = 20;
+    private static final int MAX_NESTING = 256;
+
+    private static final Pattern TESTS_RUN = Pattern.compile(
+            "Tests run: (\\d+), Failures: (\\d+), Errors: (\\d+), Skipped: (\\d+)");
+    private static final Pattern STAGE_SKIPPED = Pattern.compile("Stage \"(.+?)\" skipped");
+    private static final String STAGE_OPEN = "[Pipeline] { (";
+    private static final String BLOCK_OPEN = "[Pipeline] {";
+    private static final String BLOCK_CLOSE = "[Pipeline] }";
+    private static final String FINISHED = "Finished: ";
+
+    public enum StageStatus { RUNNING, SUCCESS, FAILED, SKIPPED }
+
+    private final StringBuilder partial = new StringBuilder();
+    private final List<Stage> stages = new ArrayList<>();
+    /** Open "[Pipeline] {" blocks: the stage a block opened, or Stage.NONE for other blocks. */
+    private final Deque<Stage> blocks = new ArrayDeque<>();
+    private final List<ErrorBlock> errorBlocks = new ArrayList<>();
+    private ErrorBlock currentError;
+
+    private long offset;
+    private int lines;
+    private int stageCount;
+    private int errorBlockCount;
+    private int errorLines;
+    private long classTestsRun;
+    private long classFailures;
+    private long classErrors;
+    private long classSkipped;
+    private long summaryTestsRun;
+    private long summaryFailures;
+    private long summaryErrors;
+    private long summarySkipped;
+    private boolean summarySeen;
+    private String result;
+    private boolean complete;
+
+    /** Byte offset of the console consumed so far, for the next progressiveText ?start=. */
+    public long getOffset() {
+        return offset;
+    }
+
+    /** Whether the whole console has been fed and no more text will come. */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /** Consumes {@code text}, the console from the current offset up to {@code nextOffset}. */
+    public void feed(String text, long nextOffset) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                line(partial);
+                partial.setLength(0);
+            } else if (c != '\r' && partial.length() < MAX_LINE_CHARS) {
+                partial.append(c);
+            }
+        }
+        offset = nextOffset;
+    }
+
+    /** Marks the console as complete, parsing a last line that had no line break. */
+    public void finish() {
+        if (partial.length() > 0) {
+            line(partial);
+            partial.setLength(0);
+        }
+        currentError = null;
+        for (Stage stage : blocks) {
+            if (stage != Stage.NONE && stage.status == StageStatus.RUNNING) {
+                stage.end(lines, "SUCCESS".equals(result) ? StageStatus.SUCCESS : StageStatus.FAILED);
+            }
+        }
+        blocks.clear();
+        complete = true;
+    }
+
+    // ── Line handling ─────────────────────────────────────────────────────────
+
+    private void line(CharSequence text) {
+        lines++;
+        String line = text.toString();
+
+        boolean error = line.startsWith("[ERROR]") || line.startsWith("ERROR:");
+        if (error) {
+            errorLine(line);
+        } else {
+            currentError = null;
+        }
+
+        if (line.startsWith(BLOCK_OPEN)) {
+            Stage stage = null;
+            if (line.startsWith(STAGE_OPEN) && line.endsWith(")")) {
+                stage = openStage(line.substring(STAGE_OPEN.length(), line.length() - 1));
+            }
+            if (blocks.size() < MAX_NESTING) {
+                blocks.push(stage == null ? Stage.NONE : stage);
+            }
+        } else if (line.startsWith(BLOCK_CLOSE)) {
+            Stage stage = blocks.poll();
+            if (stage != null && stage != Stage.NONE) {
+                stage.end(lines, stage.status != StageStatus.RUNNING ? stage.status
+                        : stage.errors > 0 ? StageStatus.FAILED : StageStatus.SUCCESS);
+            }
+        } else if (line.startsWith(FINISHED)) {
+            result = line.substring(FINISHED.length()).trim();
+        } else if (line.contains("Tests run: ")) {
+            testsRun(line);
+        } else if (line.startsWith("Stage \"")) {
+            Matcher skipped = STAGE_SKIPPED.matcher(line);
+            if (skipped.find()) {
+                Stage stage = findStage(skipped.group(1));
+                if (stage != null) {
+                    stage.status = StageStatus.SKIPPED;
+                }
+            }
+        }
+    }
+
+    private Stage openStage(String name) {
+        stageCount++;
+        Stage stage = new Stage(name, lines);
+        if (stages.size() < MAX_STAGES) {
+            stages.add(stage);
+        }
+        return stage;
+    }
+
+    private Stage findStage(String name) {
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            if (stages.get(i).name.equals(name)) {
+                return stages.get(i);
+            }
+        }
+        return null;
+    }
+
+    private Stage currentStage() {
+        for (Stage stage : blocks) {
+            if (stage != Stage.NONE) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    private void errorLine(String line) {
+        errorLines++;
+        Stage stage = currentStage();
+        if (currentError == null) {
+            errorBlockCount++;
+            if (stage != null) {
+                stage.errors++;
+            }
+            currentError = new ErrorBlock(lines, stage == null ? null : stage.name);
+            if (errorBlocks.size() < MAX_ERROR_BLOCKS) {
+                errorBlocks.add(currentError);
+            }
+        }
+        if (currentError.lines.size() < MAX_ERROR_LINES) {
+            currentError.lines.add(line);
+        } else {
+            currentError.truncated = true;
+        }
+    }
+
+    /**
+     * Per-class lines end in " - in ClassName"; module summaries do not. Module summaries
+     * already add up their classes, so they win once any has been seen.
+     */
+    private void testsRun(String line) {
+        Matcher matcher = TESTS_RUN.matcher(line);
+        if (!matcher.find()) {
+            return;
+        }
+        long run = Long.parseLong(matcher.group(1));
+        long failures = Long.parseLong(matcher.group(2));
+        long errors = Long.parseLong(matcher.group(3));
+        long skipped = Long.parseLong(matcher.group(4));
+        if (line.contains(" - in ")) {
+            classTestsRun += run;
+            classFailures += failures;
+            classErrors += errors;
+            classSkipped += skipped;
+        } else {
+            summarySeen = true;
+            summaryTestsRun += run;
+            summaryFailures += failures;
+            summaryErrors += errors;
+            summarySkipped += skipped;
+        }
+    }
+
+    // ── JSON ──────────────────────────────────────────────────────────────────
+
+    /**
+     * The summary as JSON:
+     *   { "buildNumber": 7, "complete": true, "result": "FAILURE", "lines": 812, "bytes": 40210,
+     *     "stages": [ { "name": "Test", "status": "FAILED", "startLine": 40, "endLine": 90 } ],
+     *     "tests": { "run": 24, "failures": 1, "errors": 0, "skipped": 1 },
+     *     "errors": { "blocks": 1, "lines": 2, "first": [ { "line": 77, "stage": "Test", "lines": ["..."] } ] } }
+     */
+    public String toJson(int buildNumber) {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("buildNumber").value(buildNumber);
+            json.name("complete").value(complete);
+            if (result != null) {
+                json.name("result").value(result);
+            }
+            json.name("lines").value(lines);
+            json.name("bytes").value(offset);
+
+            json.name("stages").beginArray();
+            for (Stage stage : stages) {
+                json.beginObject();
+                json.name("name").value(stage.name);
+                json.name("status").value(stage.status.name());
+                json.name("startLine").value(stage.startLine);
+                if (stage.endLine > 0) {
+                    json.name("endLine").value(stage.endLine);
+                }
+                json.endObject();
+            }
+            json.endArray();
+            if (stageCount > stages.size()) {
+                json.name("stagesOmitted").value(stageCount - stages.size());
+            }
+
+            json.name("tests").beginObject();
+            json.name("run").value(summarySeen ? summaryTestsRun : classTestsRun);
+            json.name("failures").value(summarySeen ? summaryFailures : classFailures);
+            json.name("errors").value(summarySeen ? summaryErrors : classErrors);
+            json.name("skipped").value(summarySeen ? summarySkipped : classSkipped);
+            json.endObject();
+
+            json.name("errors").beginObject();
+            json.name("blocks").value(errorBlockCount);
+            json.name("lines").value(errorLines);
+            json.name("first").beginArray();
+            for (ErrorBlock block : errorBlocks) {
+                json.beginObject();
+                json.name("line").value(block.startLine);
+                if (block.stage != null) {
+                    json.name("stage").value(block.stage);
+                }
+                json.name("lines").beginArray();
+                for (String line : block.lines) {
+                    json.value(line);
+                }
+                json.endArray();
+                if (block.truncated) {
+                    json.name("truncated").value(true);
+                }
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            json.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("StringWriter cannot fail", e);
+        }
+        return out.toString();
+    }
+
+    private static final class Stage {
+        /** Marks a "[Pipeline] {" block that is not a stage. */
+        private static final Stage NONE = new Stage("", 0);
+
+        private final String name;
+        private final int startLine;
+        private int endLine;
+        private int errors;
+        private StageStatus status = StageStatus.RUNNING;
+
+        Stage(String name, int startLine) {
+            this.name = name;
+            this.startLine = startLine;
+        }
+
+        void end(int line, StageStatus finalStatus) {
+            endLine = line;
+            status = finalStatus;
+        }
+    }
+
+    private static final class ErrorBlock {
+        private final int startLine;
+        private final String stage;
+        private final List<String> lines = new ArrayList<>();
+        private boolean truncated;
+
+        ErrorBlock(int startLine, String stage) {
+            this.startLine = startLine;
+            this.stage = stage;
+        }
+    }
+}
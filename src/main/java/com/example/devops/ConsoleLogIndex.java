@@ -0,0 +1,378 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Line and token index over one finished build's cached console log, so clients can page
+ * through lines and search without downloading the log.
+ *
+ * Built in a single pass over the memory-mapped file:
+ *   - line offsets: the byte offset where each line starts, so any window of lines is one
+ *     positional read;
+ *   - an inverted index: every token (a run of ASCII letters, digits or '_', lowercased,
+ *     at most {@value #MAX_TOKEN_LENGTH} chars) maps to the lines it occurs on, stored as
+ *     varint-encoded line-number deltas in one shared byte array, with the tokens kept
+ *     sorted for prefix lookups.
+ *
+ * A search matches lines containing every query token as a word prefix; those candidates
+ * are then checked against the query text itself, case-insensitively. A query token that
+ * is the prefix of more than {@value #MAX_PREFIX_TOKENS} indexed tokens is refused with
+ * {@link QueryTooBroadException}. Line numbers are 1-based, as in an editor.
+ */
+public class ConsoleLogIndex {
+
+    static final int MAX_TOKEN_LENGTH = 64;
+    static final int MAX_PREFIX_TOKENS = 1024;
+    private static final int SNIPPET_CHARS = 200;
+    private static final long MAP_WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final long size;
+    private final long[] lineStarts;
+    private final int lineCount;
+    private final String[] tokens;
+    private final int[] postingStarts;
+    private final byte[] postings;
+
+    private ConsoleLogIndex(Path file, long size, long[] lineStarts, int lineCount,
+                            String[] tokens, int[] postingStarts, byte[] postings) {
+        this.file = file;
+        this.size = size;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.tokens = tokens;
+        this.postingStarts = postingStarts;
+        this.postings = postings;
+    }
+
+    /** Indexes {@code file}, which must no longer change. */
+    public static ConsoleLogIndex build(Path file) throws IOException {
+        long size = Files.size(file);
+        long[] lineStarts = new long[1024];
+        int lineCount = 0;
+        Map<String, PostingList> index = new HashMap<>();
+        StringBuilder token = new StringBuilder(MAX_TOKEN_LENGTH);
+        boolean lineOpen = false;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long windowStart = 0;
+            while (windowStart < size) {
+                long window = Math.min(MAP_WINDOW_BYTES, size - windowStart);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, window);
+                for (int i = 0; i < window; i++) {
+                    if (!lineOpen) {
+                        if (lineCount + 1 >= lineStarts.length) {
+                            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+                        }
+                        lineStarts[lineCount++] = windowStart + i;
+                        lineOpen = true;
+                    }
+                    byte b = mapped.get(i);
+                    if (isTokenByte(b)) {
+                        if (token.length() < MAX_TOKEN_LENGTH) {
+                            token.append((char) (b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b));
+                        }
+                        continue;
+                    }
+                    addToken(index, token, lineCount);
+                    if (b == '\n') {
+                        lineOpen = false;
+                    }
+                }
+                windowStart += window;
+            }
+        }
+        addToken(index, token, lineCount);
+        lineStarts[lineCount] = size;
+
+        String[] tokens = index.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        int[] postingStarts = new int[tokens.length + 1];
+        int total = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            postingStarts[i] = total;
+            total += index.get(tokens[i]).length;
+        }
+        postingStarts[tokens.length] = total;
+        byte[] postings = new byte[total];
+        for (int i = 0; i < tokens.length; i++) {
+            PostingList list = index.get(tokens[i]);
+            System.arraycopy(list.bytes, 0, postings, postingStarts[i], list.length);
+        }
+        return new ConsoleLogIndex(file, size, lineStarts, lineCount, tokens, postingStarts, postings);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getTokenCount() {
+        return tokens.length;
+    }
+
+    /** Lines {@code from} .. {@code from + limit - 1} (1-based), without their line breaks. */
+    public List<String> lines(int from, int limit) throws IOException {
+        int first = Math.max(1, from);
+        int last = (int) Math.min(lineCount, (long) first + Math.max(0, limit) - 1);
+        if (first > last) {
+            return List.of();
+        }
+        String text;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            text = read(channel, lineStarts[first - 1], lineStarts[last]);
+        }
+        List<String> lines = new ArrayList<>(last - first + 1);
+        int start = 0;
+        while (start < text.length() && lines.size() < last - first + 1) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            lines.add(stripCarriageReturn(text.substring(start, end)));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    /** Line numbers (ascending) containing {@code query}, at most {@code limit} of them. */
+    public List<Integer> search(String query, int limit) throws IOException, QueryTooBroadException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return search(channel, query, limit);
+        }
+    }
+
+    private List<Integer> search(FileChannel channel, String query, int limit)
+            throws IOException, QueryTooBroadException {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        BitSet candidates = null;
+        for (String queryToken : queryTokens) {
+            BitSet lines = linesWithPrefix(queryToken);
+            if (candidates == null) {
+                candidates = lines;
+            } else {
+                candidates.and(lines);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        List<Integer> matches = new ArrayList<>();
+        for (int line = candidates.nextSetBit(1); line >= 0; line = candidates.nextSetBit(line + 1)) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            if (lineText(channel, line).toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(line);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Search results as JSON:
+     *   { "query": "...", "totalLines": 1200, "matches": [ { "line": 42, "text": "..." } ],
+     *     "truncated": false }
+     * Each text is the matching line, clipped to about {@value #SNIPPET_CHARS} characters
+     * around the first match.
+     */
+    public String searchJson(String query, int limit) throws IOException, QueryTooBroadException {
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        StringWriter out = new StringWriter();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             JsonWriter json = new JsonWriter(out)) {
+            List<Integer> matches = search(channel, query, limit + 1);
+            json.beginObject();
+            json.name("query").value(query);
+            json.name("totalLines").value(lineCount);
+            json.name("matches").beginArray();
+            for (int i = 0; i < Math.min(limit, matches.size()); i++) {
+                json.beginObject();
+                json.name("line").value(matches.get(i));
+                json.name("text").value(snippet(lineText(channel, matches.get(i)), needle));
+                json.endObject();
+            }
+            json.endArray();
+            json.name("truncated").value(matches.size() > limit);
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    /** A page of lines as JSON: { "from": 1, "totalLines": 1200, "lines": ["..."] }. */
+    public String linesJson(int from, int limit) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("from").value(from);
+            json.name("totalLines").value(lineCount);
+            json.name("lines").beginArray();
+            for (String line : lines(from, limit)) {
+                json.value(line);
+            }
+            json.endArray();
+            json.endObject();
+        }
+        return out.toString();
+    }
+
+    // ── Lookup ────────────────────────────────────────────────────────────────
+
+    /** Union of the posting lists of every token starting with {@code prefix}, as a set of lines. */
+    private BitSet linesWithPrefix(String prefix) throws QueryTooBroadException {
+        int from = Arrays.binarySearch(tokens, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < tokens.length && tokens[to].startsWith(prefix)) {
+            if (to - from == MAX_PREFIX_TOKENS) {
+                throw new QueryTooBroadException(prefix);
+            }
+            to++;
+        }
+        BitSet lines = new BitSet(lineCount + 1);
+        for (int i = from; i < to; i++) {
+            decodeInto(i, lines);
+        }
+        return lines;
+    }
+
+    private void decodeInto(int tokenIndex, BitSet lines) {
+        int position = postingStarts[tokenIndex];
+        int end = postingStarts[tokenIndex + 1];
+        int line = 0;
+        while (position < end) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            line += delta;
+            lines.set(line);
+        }
+    }
+
+    private String lineText(FileChannel channel, int line) throws IOException {
+        return stripCarriageReturn(stripNewline(read(channel, lineStarts[line - 1], lineStarts[line])));
+    }
+
+    private static String read(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+            // keep reading until the window is full
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────────
+
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (c < 0x80 && isTokenByte((byte) c)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.append(Character.toLowerCase(c));
+                }
+            } else if (token.length() > 0) {
+                result.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isTokenByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private static void addToken(Map<String, PostingList> index, StringBuilder token, int line) {
+        if (token.length() == 0) {
+            return;
+        }
+        index.computeIfAbsent(token.toString(), key -> new PostingList()).add(line);
+        token.setLength(0);
+    }
+
+    private static String snippet(String line, String needle) {
+        if (line.length() <= SNIPPET_CHARS) {
+            return line;
+        }
+        int at = Math.max(0, line.toLowerCase(Locale.ROOT).indexOf(needle));
+        int start = Math.max(0, Math.min(at - SNIPPET_CHARS / 4, line.length() - SNIPPET_CHARS));
+        return (start > 0 ? "…" : "") + line.substring(start, start + SNIPPET_CHARS)
+                + (start + SNIPPET_CHARS < line.length() ? "…" : "");
+    }
+
+    private static String stripNewline(String text) {
+        return text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private static String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    /** Thrown when a query word is the prefix of more than {@value #MAX_PREFIX_TOKENS} indexed tokens. */
+    public static class QueryTooBroadException extends Exception {
+        public QueryTooBroadException(String prefix) {
+            super("\"" + prefix + "\" matches too many words in the log; use a longer search term.");
+        }
+    }
+
+    /** Growing varint-delta list of the lines one token occurs on; each line is added once. */
+    private static final class PostingList {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int lastLine;
+
+        void add(int line) {
+            if (line == lastLine) {
+                return;
+            }
+            int delta = line - lastLine;
+            lastLine = line;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+    }
+}
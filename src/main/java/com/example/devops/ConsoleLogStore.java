@@ -0,0 +1,403 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * On-disk cache of console logs for finished builds.
+ *
+ * A finished build's log never changes, so it is downloaded from Jenkins once, streamed
+ * straight to LOG_CACHE_DIR/build-{n}.log, and from then on served from that file through
+ * memory-mapped windows — the log is never held on the Java heap. Single HTTP byte ranges
+ * (Range / If-Range) are supported so clients can fetch just the window they display.
+ * Clients that accept gzip get build-{n}.log.gz, which is compressed once on first use
+ * and then reused like the log itself.
+ *
+ * The directory is trimmed to LOG_CACHE_MAX_MB, oldest first, and files older than
+ * LOG_CACHE_MAX_AGE_HOURS are dropped.
+ *
+ * Line and token indexes ({@link ConsoleLogIndex}) of cached logs are built on first use
+ * and the LOG_INDEX_CACHE_SIZE most recently used are kept in memory.
+ */
+public class ConsoleLogStore {
+
+    /**
+     * Loads a finished build's log from Jenkins into the given file, throwing
+     * {@link LogStillWritingException} if Jenkins has not closed the log yet.
+     */
+    @FunctionalInterface
+    public interface Downloader {
+        void download(int buildNumber, Path target) throws Exception;
+    }
+
+    /**
+     * The build's result is known but Jenkins is still appending to its log (post-build
+     * steps run after COMPLETED), so the log must not be cached yet.
+     */
+    public static class LogStillWritingException extends Exception {
+        public LogStillWritingException(int buildNumber) {
+            super("Build #" + buildNumber + " is still writing its log");
+        }
+    }
+
+    private static final long MAP_WINDOW_BYTES = 8L * 1024 * 1024;
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final Downloader downloader;
+    private final long maxBytes;
+    private final Duration maxAge;
+    private final ConcurrentMap<Integer, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, CompletableFuture<Path>> compressions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, CompletableFuture<ConsoleLogIndex>> indexing = new ConcurrentHashMap<>();
+    private final Map<Integer, ConsoleLogIndex> indexes;
+
+    public ConsoleLogStore(Path directory, Downloader downloader, long maxBytes, Duration maxAge) {
+        this(directory, downloader, maxBytes, maxAge, 16);
+    }
+
+    public ConsoleLogStore(Path directory, Downloader downloader, long maxBytes, Duration maxAge,
+                           int maxIndexes) {
+        this.directory = directory;
+        this.downloader = downloader;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        this.indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ConsoleLogIndex> eldest) {
+                return size() > maxIndexes;
+            }
+        });
+    }
+
+    /** Returns the cached log file for {@code buildNumber}, or null if it is not on disk. */
+    public Path find(int buildNumber) {
+        Path file = fileFor(buildNumber);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Returns the cached log file, downloading it first if needed. Concurrent callers for
+     * the same build wait on a single download. Only call this for finished builds.
+     */
+    public Path fetch(int buildNumber) throws Exception {
+        Path cached = find(buildNumber);
+        if (cached != null) {
+            return cached;
+        }
+        return once(downloads, buildNumber, () -> {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "build-" + buildNumber + "-", ".part");
+            try {
+                downloader.download(buildNumber, temp);
+                Path target = Files.move(temp, fileFor(buildNumber),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                evict();
+                return target;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        });
+    }
+
+    /**
+     * Returns the gzip copy of a cached log, compressing {@code file} the first time it
+     * is asked for. Concurrent callers for the same build wait on a single compression.
+     */
+    public Path gzipped(int buildNumber, Path file) throws Exception {
+        Path cached = gzipFileFor(buildNumber);
+        if (Files.isRegularFile(cached)) {
+            return cached;
+        }
+        return once(compressions, buildNumber, () -> {
+            Path temp = Files.createTempFile(directory, "build-" + buildNumber + "-", ".gz.part");
+            try {
+                try (InputStream in = Files.newInputStream(file);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                    in.transferTo(out);
+                }
+                return Files.move(temp, cached,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        });
+    }
+
+    /**
+     * Returns the line and token index of cached log {@code file}, building it on first use.
+     * Concurrent callers for the same build wait on a single pass over the file.
+     */
+    public ConsoleLogIndex index(int buildNumber, Path file) throws Exception {
+        ConsoleLogIndex cached = indexes.get(buildNumber);
+        if (cached != null && cached.getFile().equals(file) && sizeOf(file) == cached.getSize()) {
+            return cached;
+        }
+        return once(indexing, buildNumber, () -> {
+            ConsoleLogIndex built = ConsoleLogIndex.build(file);
+            indexes.put(buildNumber, built);
+            return built;
+        });
+    }
+
+    /**
+     * Writes {@code file} to the response, honouring a single "bytes=" Range (and If-Range
+     * against the file's ETag or Last-Modified). Unsatisfiable ranges get 416. With
+     * {@code gzip} set and no Range, the precompressed copy is sent instead. An
+     * If-None-Match naming the identity or gzip ETag gets 304 with no body.
+     */
+    public void serve(Path file, int buildNumber, String range, String ifRange, String ifNoneMatch, boolean gzip,
+                      HttpServletResponse response) throws Exception {
+        long size = Files.size(file);
+        FileTime modified = Files.getLastModifiedTime(file);
+        String etag = "\"log-" + buildNumber + "-" + size + "\"";
+        String gzipEtag = "\"log-" + buildNumber + "-" + size + "-gzip\"";
+        String lastModified = HTTP_DATE.format(modified.toInstant());
+
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "public, max-age=31536000, immutable");
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("Access-Control-Allow-Origin", "*");
+        response.setContentType("text/plain; charset=utf-8");
+
+        if (etagListed(ifNoneMatch, etag) || etagListed(ifNoneMatch, gzipEtag)) {
+            response.setStatus(304);
+            response.setHeader("ETag", gzip && range == null ? gzipEtag : etag);
+            return;
+        }
+        if (gzip && range == null) {
+            Path compressed = gzipped(buildNumber, file);
+            long compressedSize = Files.size(compressed);
+            response.setStatus(200);
+            response.setHeader("ETag", gzipEtag);
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLengthLong(compressedSize);
+            write(compressed, 0, compressedSize, response.getOutputStream());
+            return;
+        }
+        response.setHeader("ETag", etag);
+
+        long start = 0;
+        long end = size - 1;
+        boolean useRange = range != null && (ifRange == null || ifRange.equals(etag) || ifRange.equals(lastModified));
+        if (useRange) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                useRange = false;
+            } else if (bounds.length == 0) {
+                response.setStatus(416);
+                response.setHeader("Content-Range", "bytes */" + size);
+                response.setContentLengthLong(0);
+                return;
+            } else {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(206);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        if (!useRange) {
+            response.setStatus(200);
+        }
+
+        long length = Math.max(0, end - start + 1);
+        response.setContentLengthLong(length);
+        write(file, start, length, response.getOutputStream());
+    }
+
+    /** True when an If-None-Match header lists {@code etag} (or is "*"). */
+    private static boolean etagListed(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Copies {@code length} bytes from {@code start} through memory-mapped windows. */
+    private static void write(Path file, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long window = Math.min(remaining, MAP_WINDOW_BYTES);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+                while (mapped.hasRemaining()) {
+                    target.write(mapped);
+                }
+                position += window;
+                remaining -= window;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Parses a single "bytes=a-b", "bytes=a-" or "bytes=-n" range.
+     * Returns {start, end}, an empty array if unsatisfiable, or null if the header is
+     * malformed or asks for several ranges (the full body is served instead).
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                if (end < start && !last.isEmpty()) {
+                    return null;
+                }
+            }
+            if (start >= size) {
+                return new long[0];
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deletes logs past LOG_CACHE_MAX_AGE_HOURS, then the oldest until under LOG_CACHE_MAX_MB.
+     * A log's gzip copy counts towards the budget and is deleted with it.
+     */
+    public void evict() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(".log")).forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("[WARN] Could not list log cache: " + e.getMessage());
+            return;
+        }
+        files.sort(Comparator.comparing(ConsoleLogStore::modifiedTime));
+
+        Instant oldestAllowed = Instant.now().minus(maxAge);
+        long total = 0;
+        for (Path file : files) {
+            total += sizeOf(file) + sizeOf(gzipCompanion(file));
+        }
+        for (Path file : files) {
+            if (total <= maxBytes && modifiedTime(file).toInstant().isAfter(oldestAllowed)) {
+                break;
+            }
+            Path companion = gzipCompanion(file);
+            long size = sizeOf(file) + sizeOf(companion);
+            try {
+                Files.deleteIfExists(companion);
+                Files.deleteIfExists(file);
+                total -= size;
+            } catch (IOException e) {
+                System.err.println("[WARN] Could not evict " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Path fileFor(int buildNumber) {
+        return directory.resolve("build-" + buildNumber + ".log");
+    }
+
+    private Path gzipFileFor(int buildNumber) {
+        return gzipCompanion(fileFor(buildNumber));
+    }
+
+    private static Path gzipCompanion(Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".gz");
+    }
+
+    /** Runs {@code work} once per build at a time; concurrent callers share its result. */
+    private static <T> T once(ConcurrentMap<Integer, CompletableFuture<T>> inFlight, int buildNumber,
+                              Callable<T> work) throws Exception {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(buildNumber, mine);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            T result = work.call();
+            mine.complete(result);
+            return result;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(buildNumber, mine);
+        }
+    }
+
+    private static FileTime modifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.devops;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the blob SHA (and the ETag of the Contents API response it came from) for
+ * each path/branch we commit to, so the SHA lookup before a PUT can be a conditional
+ * GET. GitHub answers If-None-Match with an empty 304 that does not count against the
+ * rate limit.
+ *
+ * Entries written from a successful PUT carry the new SHA but no ETag; GitHubService
+ * uses them directly and falls back to a fresh lookup if GitHub rejects the SHA.
+ * The cache is a bounded LRU (GITHUB_CONTENT_CACHE_SIZE entries).
+ */
+public class GitHubContentCache {
+
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public GitHubContentCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public static String key(String path, String branch) {
+        return branch + ":" + path;
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, String sha, String etag) {
+        entries.put(key, new Entry(sha, etag));
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** Appends lookup counters and the hit ratio in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        output.append("# HELP github_contents_cache_lookups_total GitHub file SHA lookups by cache result\n");
+        output.append("# TYPE github_contents_cache_lookups_total counter\n");
+        output.append("github_contents_cache_lookups_total{result=\"hit\"} ").append(hitCount).append('\n');
+        output.append("github_contents_cache_lookups_total{result=\"miss\"} ").append(missCount).append('\n');
+
+        output.append("# HELP github_contents_cache_hit_ratio Share of SHA lookups answered by 304 or a cached write\n");
+        output.append("# TYPE github_contents_cache_hit_ratio gauge\n");
+        output.append("github_contents_cache_hit_ratio ").append(total == 0 ? 0.0 : (double) hitCount / total).append('\n');
+    }
+
+    // ── Entry ─────────────────────────────────────────────────────────────────
+
+    public static final class Entry {
+        private final String sha;
+        private final String etag;
+
+        private Entry(String sha, String etag) {
+            this.sha = sha;
+            this.etag = etag;
+        }
+
+        public String getSha() {
+            return sha;
+        }
+
+        /** ETag of the GET response this SHA came from, or null if it came from our own PUT. */
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
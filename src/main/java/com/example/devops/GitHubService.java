@@ -1,23 +1,53 @@
 package com.example.devops;
 
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.URLEncoder;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 /**
- * Commits a file to GitHub using the GitHub Contents REST API.
+ * Commits files to GitHub.
+ *   - Single files go through the Contents REST API (one commit per file).
+ *   - Batches go through the Git Data API: blobs → one tree → one commit → ref update.
  * Requires GITHUB_TOKEN env var with repo write scope.
  * Files are stored under the  code/  folder in the repository.
  */
 public class GitHubService {
 
-    private final HttpClient http = HttpClient.newHttpClient();
-    private final Gson gson = new Gson();
+    /**
+     * Blob uploads of one batch kept in flight at a time — well under the GitHub bulkhead,
+     * so a large batch neither overflows it nor starves other GitHub calls.
+     */
+    static final int BLOB_UPLOADS_IN_FLIGHT = 6;
+
+    private final HttpClientRegistry.UpstreamClient http;
+    private final String repoUrl;
+    private final Gson gson = Json.GSON;
+    private final GitHubContentCache contentCache = new GitHubContentCache(Config.GITHUB_CONTENT_CACHE_SIZE);
+
+    public GitHubService() {
+        this(HttpClientRegistry.getDefault());
+    }
+
+    public GitHubService(HttpClientRegistry clients) {
+        this(clients, Config.GITHUB_API_URL);
+    }
+
+    /** Talks to the GitHub API at {@code apiUrl}; tests point this at a stub. */
+    GitHubService(HttpClientRegistry clients, String apiUrl) {
+        this.http = clients.github();
+        this.repoUrl = apiUrl + "/repos/" + Config.GITHUB_OWNER + "/" + Config.GITHUB_REPO;
+    }
 
     /**
      * Creates or updates  code/{filename}  in the configured GitHub repo.
@@ -25,33 +55,26 @@ public class GitHubService {
      */
     public String commitFile(String filename, String content, String commitMessage) throws Exception {
         String path = "code/" + filename;
-        String apiUrl = "https://api.github.com/repos/"
-                + Config.GITHUB_OWNER + "/" + Config.GITHUB_REPO
-                + "/contents/" + path;
+        String apiUrl = repoUrl + "/contents/" + path;
+        String cacheKey = GitHubContentCache.key(path, Config.GITHUB_BRANCH);
+        String encoded = encodeContent(content);
 
         // GitHub requires the existing file's SHA when updating
-        String existingSha = getFileSha(apiUrl);
+        String existingSha = getFileSha(cacheKey, apiUrl);
+        HttpResponse<String> response = putContent(apiUrl, encoded, commitMessage, existingSha);
 
-        JsonObject body = new JsonObject();
-        body.addProperty("message", commitMessage);
-        body.addProperty("content", Base64.getEncoder().encodeToString(content.getBytes("UTF-8")));
-        body.addProperty("branch", Config.GITHUB_BRANCH);
-        if (existingSha != null) {
-            body.addProperty("sha", existingSha);
+        // 409/422 means our SHA is stale (file changed elsewhere) — look it up again once
+        if (response.statusCode() == 409 || response.statusCode() == 422) {
+            contentCache.invalidate(cacheKey);
+            existingSha = getFileSha(cacheKey, apiUrl);
+            response = putContent(apiUrl, encoded, commitMessage, existingSha);
         }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(apiUrl))
-                .header("Authorization", "token " + Config.GITHUB_TOKEN)
-                .header("Accept", "application/vnd.github+json")
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
-                .build();
-
-        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
-
         if (response.statusCode() == 200 || response.statusCode() == 201) {
             JsonObject json = gson.fromJson(response.body(), JsonObject.class);
+            if (json.has("content") && json.get("content").isJsonObject()) {
+                contentCache.put(cacheKey, json.getAsJsonObject("content").get("sha").getAsString(), null);
+            }
             return json.getAsJsonObject("commit").get("sha").getAsString();
         }
 
@@ -74,21 +97,215 @@ public class GitHubService {
         throw new Exception("GitHub API returned " + response.statusCode() + ": " + errorBody);
     }
 
-    /** Returns the blob SHA of an existing file, or null if it does not exist yet. */
-    private String getFileSha(String apiUrl) {
+    public GitHubContentCache getContentCache() {
+        return contentCache;
+    }
+
+    private HttpResponse<String> putContent(String apiUrl, String encodedContent, String commitMessage,
+                                            String existingSha) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .header("Authorization", "token " + Config.GITHUB_TOKEN)
+                .header("Accept", "application/vnd.github+json")
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(contentsRequestBody(encodedContent, commitMessage, existingSha)))
+                .build();
+
+        return http.send("commitFile", request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** Base64 of the UTF-8 file content, as the contents API expects it. */
+    static String encodeContent(String content) {
+        return Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** JSON body of a contents API PUT; {@code existingSha} is null when creating the file. */
+    String contentsRequestBody(String encodedContent, String commitMessage, String existingSha) {
+        JsonObject body = new JsonObject();
+        body.addProperty("message", commitMessage);
+        body.addProperty("content", encodedContent);
+        body.addProperty("branch", Config.GITHUB_BRANCH);
+        if (existingSha != null) {
+            body.addProperty("sha", existingSha);
+        }
+        return gson.toJson(body);
+    }
+
+    /**
+     * Returns the blob SHA of an existing file, or null if it does not exist yet.
+     * A SHA we wrote ourselves is used as-is; otherwise the lookup is a conditional GET
+     * with the cached ETag, and a 304 reuses the cached SHA without a response body.
+     */
+    private String getFileSha(String cacheKey, String apiUrl) {
+        GitHubContentCache.Entry cached = contentCache.get(cacheKey);
+        if (cached != null && cached.getEtag() == null) {
+            contentCache.recordHit();
+            return cached.getSha();
+        }
+
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(apiUrl + "?ref=" + URLEncoder.encode(Config.GITHUB_BRANCH, StandardCharsets.UTF_8)))
                     .header("Authorization", "token " + Config.GITHUB_TOKEN)
                     .header("Accept", "application/vnd.github+json")
-                    .GET()
-                    .build();
+                    .GET();
+            if (cached != null) {
+                builder.header("If-None-Match", cached.getEtag());
+            }
+
+            HttpResponse<String> response = http.send("getFileSha", builder.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 304 && cached != null) {
+                contentCache.recordHit();
+                return cached.getSha();
+            }
 
-            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            contentCache.recordMiss();
             if (response.statusCode() == 200) {
-                return gson.fromJson(response.body(), JsonObject.class).get("sha").getAsString();
+                String sha = gson.fromJson(response.body(), JsonObject.class).get("sha").getAsString();
+                String etag = response.headers().firstValue("ETag").orElse(null);
+                if (etag != null) {
+                    contentCache.put(cacheKey, sha, etag);
+                } else {
+                    contentCache.invalidate(cacheKey);
+                }
+                return sha;
+            }
+            if (response.statusCode() == 404) {
+                contentCache.invalidate(cacheKey);
             }
         } catch (Exception ignored) {}
         return null;
     }
+
+    // ── Git Data (batch) ──────────────────────────────────────────────────────
+
+    /**
+     * Writes every file in {@code files} (under code/) as a single commit on the configured
+     * branch. Blobs are uploaded in parallel, at most {@link #BLOB_UPLOADS_IN_FLIGHT} at a
+     * time, then one tree, one commit and a fast-forward of the branch ref. Returns the full
+     * commit SHA.
+     */
+    public String commitFiles(List<FileChange> files, String commitMessage) throws Exception {
+        String refUrl = repoUrl + "/git/refs/heads/" + Config.GITHUB_BRANCH;
+
+        JsonObject ref = expectJson(http.send("commitFiles", githubRequest(refUrl).GET().build(),
+                HttpResponse.BodyHandlers.ofString()), 200, "read branch ref");
+        String headSha = ref.getAsJsonObject("object").get("sha").getAsString();
+
+        JsonObject headCommit = expectJson(http.send("commitFiles",
+                githubRequest(repoUrl + "/git/commits/" + headSha).GET().build(),
+                HttpResponse.BodyHandlers.ofString()), 200, "read head commit");
+        String baseTreeSha = headCommit.getAsJsonObject("tree").get("sha").getAsString();
+
+        // Sliding window: blob i + BLOB_UPLOADS_IN_FLIGHT starts once blob i has been read
+        List<CompletableFuture<HttpResponse<String>>> blobRequests = new ArrayList<>(files.size());
+        for (int i = 0; i < Math.min(BLOB_UPLOADS_IN_FLIGHT, files.size()); i++) {
+            blobRequests.add(uploadBlob(files.get(i)));
+        }
+
+        JsonArray treeEntries = new JsonArray();
+        List<String> blobShas = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            HttpResponse<String> blobResponse;
+            try {
+                blobResponse = blobRequests.get(i).join();
+                if (i + BLOB_UPLOADS_IN_FLIGHT < files.size()) {
+                    blobRequests.add(uploadBlob(files.get(i + BLOB_UPLOADS_IN_FLIGHT)));
+                }
+            } catch (CompletionException e) {
+                throw new Exception("GitHub blob upload failed: " + e.getCause().getMessage(), e.getCause());
+            }
+            String blobSha = expectJson(blobResponse, 201, "create blob").get("sha").getAsString();
+            blobShas.add(blobSha);
+
+            JsonObject entry = new JsonObject();
+            entry.addProperty("path", "code/" + files.get(i).getPath());
+            entry.addProperty("mode", "100644");
+            entry.addProperty("type", "blob");
+            entry.addProperty("sha", blobSha);
+            treeEntries.add(entry);
+        }
+
+        JsonObject tree = new JsonObject();
+        tree.addProperty("base_tree", baseTreeSha);
+        tree.add("tree", treeEntries);
+        String treeSha = expectJson(http.send("commitFiles", githubRequest(repoUrl + "/git/trees")
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(tree))).build(),
+                HttpResponse.BodyHandlers.ofString()), 201, "create tree").get("sha").getAsString();
+
+        JsonObject commit = new JsonObject();
+        commit.addProperty("message", commitMessage);
+        commit.addProperty("tree", treeSha);
+        JsonArray parents = new JsonArray();
+        parents.add(headSha);
+        commit.add("parents", parents);
+        String commitSha = expectJson(http.send("commitFiles", githubRequest(repoUrl + "/git/commits")
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(commit))).build(),
+                HttpResponse.BodyHandlers.ofString()), 201, "create commit").get("sha").getAsString();
+
+        JsonObject update = new JsonObject();
+        update.addProperty("sha", commitSha);
+        update.addProperty("force", false);
+        expectJson(http.send("commitFiles", githubRequest(refUrl)
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(gson.toJson(update))).build(),
+                HttpResponse.BodyHandlers.ofString()), 200, "update branch ref");
+
+        for (int i = 0; i < files.size(); i++) {
+            contentCache.put(GitHubContentCache.key("code/" + files.get(i).getPath(), Config.GITHUB_BRANCH),
+                    blobShas.get(i), null);
+        }
+        return commitSha;
+    }
+
+    private CompletableFuture<HttpResponse<String>> uploadBlob(FileChange file) {
+        JsonObject blob = new JsonObject();
+        blob.addProperty("content", encodeContent(file.getContent()));
+        blob.addProperty("encoding", "base64");
+        return http.sendAsync("commitFiles", githubRequest(repoUrl + "/git/blobs")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(blob))).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder githubRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "token " + Config.GITHUB_TOKEN)
+                .header("Accept", "application/vnd.github+json")
+                .header("Content-Type", "application/json");
+    }
+
+    /** Parses the body when the status matches, otherwise throws with GitHub's error message. */
+    private JsonObject expectJson(HttpResponse<String> response, int expectedStatus, String action) throws Exception {
+        if (response.statusCode() == expectedStatus) {
+            return gson.fromJson(response.body(), JsonObject.class);
+        }
+        if (response.statusCode() == 401) {
+            throw new Exception("GitHub token is invalid or expired. Update GITHUB_TOKEN in .env and restart backend.");
+        }
+        String errorBody = response.body();
+        try {
+            JsonObject err = gson.fromJson(errorBody, JsonObject.class);
+            if (err.has("message")) errorBody = err.get("message").getAsString();
+        } catch (Exception ignored) {}
+        throw new Exception("GitHub API returned " + response.statusCode() + " on " + action + ": " + errorBody);
+    }
+
+    /** One file of a batch commit; {@code path} is relative to code/. */
+    public static final class FileChange {
+        private final String path;
+        private final String content;
+
+        public FileChange(String path, String content) {
+            this.path = path;
+            this.content = content;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
 }
@@ -0,0 +1,437 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Owns one long-lived HttpClient per upstream (GitHub, Jenkins) so connections are
+ * pooled and reused across requests instead of paying a new TCP+TLS handshake each time.
+ *
+ *   - GitHub is negotiated over HTTP/2, Jenkins over HTTP/1.1 keep-alive.
+ *   - Each client gets its own small daemon executor (HTTP_CLIENT_THREADS).
+ *   - Pool size and keep-alive are JDK-wide settings (jdk.httpclient.connectionPoolSize,
+ *     jdk.httpclient.keepalive.timeout); they are applied here before the first client
+ *     is built unless already set on the command line.
+ *
+ * Each upstream is isolated so a slow or failing one cannot hold every server thread:
+ *   - connect timeout (UPSTREAM_CONNECT_TIMEOUT_SECONDS) and a default request timeout
+ *     (UPSTREAM_REQUEST_TIMEOUT_SECONDS) for requests that do not set their own;
+ *   - a bulkhead capping concurrent calls (GITHUB_MAX_CONCURRENCY, JENKINS_MAX_CONCURRENCY);
+ *     a call that cannot get a slot within UPSTREAM_BULKHEAD_WAIT_MILLIS is refused;
+ *   - a {@link CircuitBreaker} that opens after UPSTREAM_BREAKER_FAILURES I/O errors or 5xx
+ *     responses in a row and probes again after UPSTREAM_BREAKER_OPEN_SECONDS.
+ * Refused calls fail immediately with {@link UpstreamUnavailableException}.
+ *
+ * All outbound calls go through {@link UpstreamClient#send}, which keeps the counters
+ * reported on /metrics. Once bound to a MeterRegistry, every call is also timed as
+ * upstream.requests by upstream, operation and status code, and GitHub's
+ * X-RateLimit-* response headers feed the github.ratelimit.* gauges, and circuit state,
+ * bulkhead slots and refused calls are exported per upstream.
+ */
+public class HttpClientRegistry implements MeterBinder {
+
+    public static final String GITHUB  = "github";
+    public static final String JENKINS = "jenkins";
+
+    private static volatile HttpClientRegistry defaultRegistry;
+
+    private final Map<String, UpstreamClient> upstreams = new LinkedHashMap<>();
+
+    public HttpClientRegistry() {
+        applyPoolSettings();
+        upstreams.put(GITHUB,  new UpstreamClient(GITHUB,  Config.GITHUB_API_URL, HttpClient.Version.HTTP_2,
+                Config.GITHUB_MAX_CONCURRENCY, defaultBreaker()));
+        upstreams.put(JENKINS, new UpstreamClient(JENKINS, Config.JENKINS_URL,    HttpClient.Version.HTTP_1_1,
+                Config.JENKINS_MAX_CONCURRENCY, defaultBreaker()));
+    }
+
+    /** Registry over explicit upstream clients, e.g. pointed at local stubs. */
+    HttpClientRegistry(UpstreamClient github, UpstreamClient jenkins) {
+        upstreams.put(GITHUB,  github);
+        upstreams.put(JENKINS, jenkins);
+    }
+
+    /** Lazily created process-wide registry used by services built without an explicit one. */
+    public static HttpClientRegistry getDefault() {
+        HttpClientRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (HttpClientRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    registry = new HttpClientRegistry();
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    public UpstreamClient github() {
+        return upstreams.get(GITHUB);
+    }
+
+    public UpstreamClient jenkins() {
+        return upstreams.get(JENKINS);
+    }
+
+    /**
+     * Opens a connection to every configured upstream in the background so the first
+     * real request does not pay for DNS, TCP and TLS setup. Failures are ignored.
+     */
+    public void preconnect() {
+        if (Config.isGitHubConfigured()) {
+            github().preconnect();
+        }
+        if (Config.isJenkinsConfigured()) {
+            jenkins().preconnect();
+        }
+    }
+
+    /**
+     * Sends call timers to {@code registry} and registers the circuit, bulkhead and GitHub
+     * rate-limit meters.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (UpstreamClient upstream : upstreams.values()) {
+            upstream.meters = registry;
+            Gauge.builder("upstream.circuit.state", upstream.breaker, breaker -> breaker.getState().ordinal())
+                    .description("Circuit breaker state: 0 = closed, 1 = half-open (probing), 2 = open")
+                    .tag("upstream", upstream.name)
+                    .register(registry);
+            FunctionCounter.builder("upstream.circuit.opened", upstream.breaker, CircuitBreaker::openedCount)
+                    .description("Times the circuit breaker has opened")
+                    .tag("upstream", upstream.name)
+                    .register(registry);
+            Gauge.builder("upstream.bulkhead.available", upstream.bulkhead, Semaphore::availablePermits)
+                    .description("Free concurrent-call slots in the upstream's bulkhead")
+                    .tag("upstream", upstream.name)
+                    .register(registry);
+            FunctionCounter.builder("upstream.rejected", upstream.rejectedOpen, LongAdder::sum)
+                    .description("Calls refused without being sent")
+                    .tags("upstream", upstream.name, "reason", "circuit_open")
+                    .register(registry);
+            FunctionCounter.builder("upstream.rejected", upstream.rejectedFull, LongAdder::sum)
+                    .description("Calls refused without being sent")
+                    .tags("upstream", upstream.name, "reason", "bulkhead_full")
+                    .register(registry);
+        }
+        UpstreamClient github = github();
+        Gauge.builder("github.ratelimit.remaining", github, client -> known(client.rateLimitRemaining))
+                .description("Requests left in the current GitHub rate-limit window (X-RateLimit-Remaining)")
+                .register(registry);
+        Gauge.builder("github.ratelimit.limit", github, client -> known(client.rateLimitLimit))
+                .description("Size of the GitHub rate-limit window (X-RateLimit-Limit)")
+                .register(registry);
+        Gauge.builder("github.ratelimit.reset", github, client -> known(client.rateLimitReset))
+                .description("Epoch second when the GitHub rate-limit window resets (X-RateLimit-Reset)")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private static double known(AtomicLong value) {
+        long current = value.get();
+        return current < 0 ? Double.NaN : current;
+    }
+
+    /** Appends per-upstream request counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP upstream_http_requests_total Outbound requests sent through the shared client, by upstream and HTTP version\n");
+        output.append("# TYPE upstream_http_requests_total counter\n");
+        for (UpstreamClient upstream : upstreams.values()) {
+            upstream.appendVersionCounts(output);
+        }
+
+        output.append("# HELP upstream_http_errors_total Outbound requests that failed with an I/O error, by upstream\n");
+        output.append("# TYPE upstream_http_errors_total counter\n");
+        for (UpstreamClient upstream : upstreams.values()) {
+            output.append("upstream_http_errors_total{upstream=\"").append(upstream.name).append("\"} ")
+                    .append(upstream.errors.sum()).append('\n');
+        }
+
+        output.append("# HELP upstream_http_in_flight Outbound requests currently awaiting a response, by upstream\n");
+        output.append("# TYPE upstream_http_in_flight gauge\n");
+        for (UpstreamClient upstream : upstreams.values()) {
+            output.append("upstream_http_in_flight{upstream=\"").append(upstream.name).append("\"} ")
+                    .append(upstream.inFlight.get()).append('\n');
+        }
+    }
+
+    private static CircuitBreaker defaultBreaker() {
+        return new CircuitBreaker(Config.UPSTREAM_BREAKER_FAILURES, Config.UPSTREAM_BREAKER_OPEN_SECONDS * 1000L);
+    }
+
+    private static void applyPoolSettings() {
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(Config.HTTP_POOL_SIZE));
+        }
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(Config.HTTP_KEEPALIVE_SECONDS));
+        }
+    }
+
+    // ── Upstream ──────────────────────────────────────────────────────────────
+
+    /** One shared HttpClient plus the bulkhead, circuit breaker and counters for a single upstream. */
+    public static class UpstreamClient {
+
+        private static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+        private final String name;
+        private final String baseUrl;
+        private final HttpClient client;
+        private final ExecutorService executor;
+        private final Semaphore bulkhead;
+        private final int maxConcurrency;
+        private final CircuitBreaker breaker;
+        private final Duration requestTimeout = Duration.ofSeconds(Config.UPSTREAM_REQUEST_TIMEOUT_SECONDS);
+
+        private final LongAdder http1Requests = new LongAdder();
+        private final LongAdder http2Requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejectedOpen = new LongAdder();
+        private final LongAdder rejectedFull = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong rateLimitRemaining = new AtomicLong(-1);
+        private final AtomicLong rateLimitLimit = new AtomicLong(-1);
+        private final AtomicLong rateLimitReset = new AtomicLong(-1);
+        private volatile MeterRegistry meters = Metrics.globalRegistry;
+
+        UpstreamClient(String name, String baseUrl, HttpClient.Version version) {
+            this(name, baseUrl, version, DEFAULT_MAX_CONCURRENCY, defaultBreaker());
+        }
+
+        UpstreamClient(String name, String baseUrl, HttpClient.Version version, int maxConcurrency,
+                       CircuitBreaker breaker) {
+            this.name = name;
+            this.baseUrl = baseUrl;
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+            this.bulkhead = new Semaphore(this.maxConcurrency);
+            this.breaker = breaker;
+
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Config.HTTP_CLIENT_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "http-" + name + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.client = HttpClient.newBuilder()
+                    .version(version)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofSeconds(Config.UPSTREAM_CONNECT_TIMEOUT_SECONDS))
+                    .executor(executor)
+                    .build();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Remaining GitHub-style rate-limit budget from the last response, or -1 if never seen. */
+        public long getRateLimitRemaining() {
+            return rateLimitRemaining.get();
+        }
+
+        /** Epoch second when the rate-limit window resets, or -1 if never seen. */
+        public long getRateLimitReset() {
+            return rateLimitReset.get();
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return breaker;
+        }
+
+        /**
+         * The error a call would fail with right now because the circuit is open, or null.
+         * Lets callers refuse work up front instead of queueing it behind a dead upstream.
+         */
+        public UpstreamUnavailableException unavailable() {
+            long millis = breaker.millisUntilProbe();
+            return millis > 0 ? circuitOpen(millis) : null;
+        }
+
+        /**
+         * Sends a request on the shared client and records it against this upstream.
+         * {@code operation} names the call (e.g. "triggerBuild") in the latency timer.
+         */
+        public <T> HttpResponse<T> send(String operation, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            boolean probe = admit();
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            try {
+                HttpResponse<T> response = client.send(withTimeout(request), handler);
+                recordResponse(operation, start, response);
+                return response;
+            } catch (IOException e) {
+                recordFailure(operation, start);
+                throw e;
+            } catch (InterruptedException | RuntimeException e) {
+                // Not the upstream's fault, but a probe that never reports back would block the circuit for good
+                releaseProbe(probe);
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+                bulkhead.release();
+            }
+        }
+
+        /** Asynchronous variant of {@link #send}; completes on this upstream's executor. */
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(String operation, HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler) {
+            boolean probe;
+            try {
+                probe = admit();
+            } catch (IOException | InterruptedException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            CompletableFuture<HttpResponse<T>> pending;
+            try {
+                pending = client.sendAsync(withTimeout(request), handler);
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                bulkhead.release();
+                releaseProbe(probe);
+                return CompletableFuture.failedFuture(e);
+            }
+            return pending.whenComplete((response, error) -> {
+                inFlight.decrementAndGet();
+                bulkhead.release();
+                if (error != null) {
+                    recordFailure(operation, start);
+                } else {
+                    recordResponse(operation, start, response);
+                }
+            });
+        }
+
+        /**
+         * Takes a bulkhead slot and passes the circuit breaker, or throws without sending.
+         * The caller owns the slot afterwards and must release it. Returns true when the call
+         * is the half-open probe, which the caller must also give back if it never completes.
+         */
+        private boolean admit() throws UpstreamUnavailableException, InterruptedException {
+            if (!bulkhead.tryAcquire(Config.UPSTREAM_BULKHEAD_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                rejectedFull.increment();
+                throw new UpstreamUnavailableException(name, name + " is busy: all " + maxConcurrency
+                        + " concurrent call slots are in use", 1);
+            }
+            if (!breaker.tryAcquire()) {
+                bulkhead.release();
+                rejectedOpen.increment();
+                throw circuitOpen(Math.max(1000, breaker.millisUntilProbe()));
+            }
+            return breaker.getState() == CircuitBreaker.State.HALF_OPEN;
+        }
+
+        private void releaseProbe(boolean probe) {
+            if (probe) {
+                breaker.release();
+            }
+        }
+
+        private UpstreamUnavailableException circuitOpen(long millis) {
+            long seconds = (millis + 999) / 1000;
+            return new UpstreamUnavailableException(name, name + " is unavailable after repeated failures; "
+                    + "calls are paused for " + seconds + "s", seconds);
+        }
+
+        private HttpRequest withTimeout(HttpRequest request) {
+            if (request.timeout().isPresent()) {
+                return request;
+            }
+            return HttpRequest.newBuilder(request, (header, value) -> true).timeout(requestTimeout).build();
+        }
+
+        private void recordFailure(String operation, long start) {
+            errors.increment();
+            breaker.onFailure();
+            recordTime(operation, "IO_ERROR", start);
+        }
+
+        private void recordResponse(String operation, long start, HttpResponse<?> response) {
+            if (response.statusCode() >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            recordTime(operation, String.valueOf(response.statusCode()), start);
+            if (response.version() == HttpClient.Version.HTTP_2) {
+                http2Requests.increment();
+            } else {
+                http1Requests.increment();
+            }
+            updateRateLimit(response, "X-RateLimit-Remaining", rateLimitRemaining);
+            updateRateLimit(response, "X-RateLimit-Limit", rateLimitLimit);
+            updateRateLimit(response, "X-RateLimit-Reset", rateLimitReset);
+        }
+
+        private void recordTime(String operation, String status, long start) {
+            Timer.builder("upstream.requests")
+                    .description("Outbound calls by upstream, operation and HTTP status")
+                    .tags("upstream", name, "operation", operation, "status", status)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meters)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private static void updateRateLimit(HttpResponse<?> response, String header, AtomicLong target) {
+            response.headers().firstValue(header).ifPresent(value -> {
+                try {
+                    target.set(Long.parseLong(value.trim()));
+                } catch (NumberFormatException ignored) {
+                    // Keep the last good value.
+                }
+            });
+        }
+
+        void preconnect() {
+            try {
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl))
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .build();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            if (error != null) {
+                                System.err.println("[WARN] Pre-connect to " + name + " failed: " + error.getMessage());
+                            }
+                        });
+            } catch (IllegalArgumentException e) {
+                System.err.println("[WARN] Pre-connect to " + name + " skipped: " + e.getMessage());
+            }
+        }
+
+        private void appendVersionCounts(StringBuilder output) {
+            output.append("upstream_http_requests_total{upstream=\"").append(name).append("\",version=\"HTTP_1_1\"} ")
+                    .append(http1Requests.sum()).append('\n');
+            output.append("upstream_http_requests_total{upstream=\"").append(name).append("\",version=\"HTTP_2\"} ")
+                    .append(http2Requests.sum()).append('\n');
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.devops;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the Jenkins CSRF crumb together with the session cookie it was issued for,
+ * one entry per Jenkins user, so a build trigger does not need a round trip to
+ * /crumbIssuer/api/json every time.
+ *
+ * Entries expire after JENKINS_CRUMB_TTL_SECONDS. Callers invalidate an entry when
+ * Jenkins answers 403, which is how an expired session or rotated crumb shows up.
+ */
+public class JenkinsCrumbCache {
+
+    /** Loads a fresh crumb from Jenkins; returns {@link Crumb#NONE} when the issuer is disabled. */
+    @FunctionalInterface
+    public interface Loader {
+        Crumb load() throws Exception;
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Clock clock;
+
+    public JenkinsCrumbCache(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    JenkinsCrumbCache(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /** Returns the cached crumb for {@code user}, loading a new one if missing or expired. */
+    public Crumb get(String user, Loader loader) throws Exception {
+        Entry entry = entries.get(user);
+        Instant now = clock.instant();
+        if (entry != null && now.isBefore(entry.expiresAt)) {
+            return entry.crumb;
+        }
+        Crumb crumb = loader.load();
+        entries.put(user, new Entry(crumb, now.plus(ttl)));
+        return crumb;
+    }
+
+    public void invalidate(String user) {
+        entries.remove(user);
+    }
+
+    // ── Crumb ─────────────────────────────────────────────────────────────────
+
+    /** A crumb header plus the session cookie it belongs to (either may be null). */
+    public static final class Crumb {
+
+        /** Crumb issuer disabled — POSTs go out without a crumb header. */
+        public static final Crumb NONE = new Crumb(null, null, null);
+
+        private final String field;
+        private final String value;
+        private final String cookie;
+
+        public Crumb(String field, String value, String cookie) {
+            this.field = field;
+            this.value = value;
+            this.cookie = cookie;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getCookie() {
+            return cookie;
+        }
+
+        public boolean isPresent() {
+            return field != null && value != null;
+        }
+    }
+
+    private static final class Entry {
+        private final Crumb crumb;
+        private final Instant expiresAt;
+
+        private Entry(Crumb crumb, Instant expiresAt) {
+            this.crumb = crumb;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
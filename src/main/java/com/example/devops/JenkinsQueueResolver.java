@@ -0,0 +1,250 @@
+package com.example.devops;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Turns Jenkins queue items into build numbers for every pending trigger at once.
+ *
+ * Instead of one request per item per second, each poll reads /queue/api/json a single
+ * time. Items still listed there are waiting; only items that have left the queue are
+ * looked up individually to read their executable number, which happens once per item.
+ *
+ * Polling is adaptive: it starts at QUEUE_POLL_MIN_MILLIS whenever a new item is added
+ * and backs off by 1.5x up to QUEUE_POLL_MAX_MILLIS while nothing changes. It stops
+ * entirely when nothing is pending.
+ *
+ * When Jenkins pushes a STARTED notification (POST /api/hooks/jenkins), {@link #started}
+ * completes the item straight away. A notification that arrives before the trigger's
+ * resolve() call is remembered for a short while, so the race costs no polling either.
+ *
+ * How long each item waited in the queue is recorded in the jenkins.queue.wait histogram,
+ * tagged with the outcome (started, failed, timeout), once bound to a MeterRegistry.
+ */
+public class JenkinsQueueResolver implements MeterBinder {
+
+    /** The two Jenkins calls the resolver needs; implemented by JenkinsService. */
+    public interface QueueApi {
+        /** Ids of every item currently waiting in the Jenkins queue. */
+        Set<Long> queuedItemIds() throws Exception;
+
+        /** Build number of an item that left the queue, or null if it has no executable yet. */
+        Integer itemBuildNumber(long itemId) throws Exception;
+    }
+
+    private static final long TICK_MILLIS = 50;
+    private static final int EARLY_STARTS = 256;
+
+    private final QueueApi api;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long timeoutMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder queuePolls = new LongAdder();
+    private final LongAdder itemLookups = new LongAdder();
+    private final LongAdder pushed = new LongAdder();
+    private final Map<Long, Integer> earlyStarts = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return size() > EARLY_STARTS;
+        }
+    };
+    private volatile MeterRegistry meters = Metrics.globalRegistry;
+
+    private ScheduledFuture<?> ticker;
+    private long intervalMillis;
+    private long nextPollAt;
+
+    public JenkinsQueueResolver(QueueApi api, long minIntervalMillis, long maxIntervalMillis, long timeoutMillis) {
+        this.api = api;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jenkins-queue-resolver-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a future completed with the build number once queue item {@code itemId}
+     * starts, or failed if it is cancelled or does not start within the timeout.
+     */
+    public CompletableFuture<Integer> resolve(long itemId) {
+        Integer announced;
+        synchronized (earlyStarts) {
+            announced = earlyStarts.remove(itemId);
+        }
+        if (announced != null) {
+            return CompletableFuture.completedFuture(announced);
+        }
+        Pending item = pending.computeIfAbsent(itemId,
+                id -> new Pending(System.currentTimeMillis() + timeoutMillis));
+        synchronized (this) {
+            intervalMillis = minIntervalMillis;
+            nextPollAt = System.currentTimeMillis() + minIntervalMillis;
+            if (ticker == null) {
+                ticker = scheduler.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return item.future;
+    }
+
+    /**
+     * Completes queue item {@code itemId} with {@code buildNumber} as announced by a Jenkins
+     * notification, without waiting for the next poll.
+     */
+    public void started(long itemId, int buildNumber) {
+        Pending item = pending.get(itemId);
+        if (item == null) {
+            synchronized (earlyStarts) {
+                earlyStarts.put(itemId, buildNumber);
+            }
+            // resolve() may have registered the item in the meantime
+            item = pending.get(itemId);
+            if (item == null) {
+                return;
+            }
+            synchronized (earlyStarts) {
+                earlyStarts.remove(itemId);
+            }
+        }
+        if (pending.remove(itemId, item)) {
+            pushed.increment();
+            record(item, "started");
+            item.future.complete(buildNumber);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meters = registry;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /** Appends pending-item gauge and upstream call counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP jenkins_queue_resolver_pending Triggered builds waiting for a build number\n");
+        output.append("# TYPE jenkins_queue_resolver_pending gauge\n");
+        output.append("jenkins_queue_resolver_pending ").append(pending.size()).append('\n');
+
+        output.append("# HELP jenkins_queue_resolver_calls_total Jenkins calls made by the shared queue resolver\n");
+        output.append("# TYPE jenkins_queue_resolver_calls_total counter\n");
+        output.append("jenkins_queue_resolver_calls_total{call=\"queue\"} ").append(queuePolls.sum()).append('\n');
+        output.append("jenkins_queue_resolver_calls_total{call=\"item\"} ").append(itemLookups.sum()).append('\n');
+
+        output.append("# HELP jenkins_queue_resolver_pushed_total Triggered builds resolved by a Jenkins notification\n");
+        output.append("# TYPE jenkins_queue_resolver_pushed_total counter\n");
+        output.append("jenkins_queue_resolver_pushed_total ").append(pushed.sum()).append('\n');
+    }
+
+    // ── Polling ───────────────────────────────────────────────────────────────
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                ticker.cancel(false);
+                ticker = null;
+                return;
+            }
+            if (now < nextPollAt) {
+                return;
+            }
+        }
+
+        boolean progressed = false;
+        try {
+            queuePolls.increment();
+            Set<Long> queued = api.queuedItemIds();
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                long itemId = entry.getKey();
+                if (queued.contains(itemId)) {
+                    continue;
+                }
+                try {
+                    itemLookups.increment();
+                    Integer buildNumber = api.itemBuildNumber(itemId);
+                    if (buildNumber != null) {
+                        finish(itemId, entry.getValue(), "started");
+                        entry.getValue().future.complete(buildNumber);
+                        progressed = true;
+                    }
+                } catch (Exception e) {
+                    finish(itemId, entry.getValue(), "failed");
+                    entry.getValue().future.completeExceptionally(e);
+                    progressed = true;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("[WARN] Jenkins queue poll failed: " + e.getMessage());
+        }
+
+        for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+            if (now > entry.getValue().deadline) {
+                finish(entry.getKey(), entry.getValue(), "timeout");
+                entry.getValue().future.completeExceptionally(new TimeoutException(
+                        "Timed out after " + (timeoutMillis / 1000) + " s waiting for Jenkins build to start"));
+            }
+        }
+
+        synchronized (this) {
+            if (!progressed) {
+                intervalMillis = Math.min(maxIntervalMillis, intervalMillis + intervalMillis / 2);
+            }
+            nextPollAt = System.currentTimeMillis() + intervalMillis;
+        }
+    }
+
+    /** Drops a settled item before its future completes, and records how long it waited. */
+    private void finish(long itemId, Pending item, String outcome) {
+        pending.remove(itemId);
+        record(item, outcome);
+    }
+
+    private void record(Pending item, String outcome) {
+        Timer.builder("jenkins.queue.wait")
+                .description("Time from triggering a build until Jenkins assigns it a build number")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(100))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meters)
+                .record(System.nanoTime() - item.startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+        private final long deadline;
+
+        private Pending(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
@@ -1,28 +1,83 @@
 package com.example.devops;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Interacts with the Jenkins REST API to:
  *   - Trigger a build
  *   - Resolve the queue item to a real build number
  *   - Poll build status
+ *   - Read per-stage timings (wfapi/describe)
  *   - Fetch console output
  *
+ * Every api/json call asks Jenkins for only the fields it reads (a tree= projection), and
+ * the response is read with a streaming JsonReader straight from the body stream into a
+ * small typed value, so no JSON tree or intermediate String is built.
+ *
  * Requires JENKINS_USER and JENKINS_TOKEN env vars.
  * Get your token at: Jenkins → Your username (top-right) → Configure → API Token → Add new Token
  */
 public class JenkinsService {
 
-    private final HttpClient http = HttpClient.newHttpClient();
-    private final Gson gson = new Gson();
+    static final String CRUMB_TREE = "crumb,crumbRequestField";
+    static final String QUEUE_TREE = "items[id]";
+    static final String QUEUE_ITEM_TREE = "cancelled,executable[number]";
+    static final String BUILD_TREE = "building,result,duration,timestamp,url";
+
+    private final HttpClientRegistry.UpstreamClient http;
+    private final String baseUrl;
+    private final String jobUrl;
+    private final JenkinsCrumbCache crumbCache = new JenkinsCrumbCache(
+            Duration.ofSeconds(Config.JENKINS_CRUMB_TTL_SECONDS));
+    private final JenkinsQueueResolver queueResolver;
+
+    public JenkinsService() {
+        this(HttpClientRegistry.getDefault());
+    }
+
+    public JenkinsService(HttpClientRegistry clients) {
+        this(clients, Config.JENKINS_URL, Config.JENKINS_JOB);
+    }
+
+    /** Talks to the Jenkins at {@code baseUrl} about {@code job}; tests point this at a stub. */
+    JenkinsService(HttpClientRegistry clients, String baseUrl, String job) {
+        this.http = clients.jenkins();
+        this.baseUrl = baseUrl;
+        this.jobUrl = baseUrl + "/job/" + job;
+        this.queueResolver = new JenkinsQueueResolver(new JenkinsQueueResolver.QueueApi() {
+            @Override
+            public Set<Long> queuedItemIds() throws Exception {
+                return JenkinsService.this.queuedItemIds();
+            }
+
+            @Override
+            public Integer itemBuildNumber(long itemId) throws Exception {
+                return JenkinsService.this.itemBuildNumber(itemId);
+            }
+        }, Config.QUEUE_POLL_MIN_MILLIS, Config.QUEUE_POLL_MAX_MILLIS, Config.QUEUE_RESOLVE_TIMEOUT_SECONDS * 1000L);
+    }
 
     // ── Auth ──────────────────────────────────────────────────────────────────
 
@@ -32,26 +87,58 @@ public class JenkinsService {
     }
 
     /**
-     * Jenkins CSRF protection requires a crumb token on POST requests.
-     * Returns "CrumbRequestField:crumbValue" or null if crumb issuer is disabled.
+     * Jenkins CSRF protection requires a crumb token on POST requests, and the crumb is
+     * only valid for the web session it was issued in. Returns the crumb plus that
+     * session's cookie, or {@link JenkinsCrumbCache.Crumb#NONE} if the issuer is disabled
+     * (404). Other error statuses and I/O failures propagate so that a transient error is
+     * never cached as "no crumb".
      */
-    private String getCrumb() {
-        try {
-            String url = Config.JENKINS_URL + "/crumbIssuer/api/json";
-            HttpResponse<String> resp = http.send(
-                    HttpRequest.newBuilder()
-                            .uri(URI.create(url))
-                            .header("Authorization", basicAuth())
-                            .GET().build(),
-                    HttpResponse.BodyHandlers.ofString());
+    private JenkinsCrumbCache.Crumb fetchCrumb() throws Exception {
+        String url = baseUrl + "/crumbIssuer/api/json?tree=" + CRUMB_TREE;
+        HttpResponse<InputStream> resp = http.send("getCrumb",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(url))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
 
-            if (resp.statusCode() == 200) {
-                JsonObject json = gson.fromJson(resp.body(), JsonObject.class);
-                return json.get("crumbRequestField").getAsString()
-                        + ":" + json.get("crumb").getAsString();
+        try (Reader body = reader(resp)) {
+            if (resp.statusCode() == 404) {
+                return JenkinsCrumbCache.Crumb.NONE;
+            }
+            if (resp.statusCode() != 200) {
+                throw new Exception("Jenkins crumb issuer returned " + resp.statusCode());
             }
-        } catch (Exception ignored) {}
-        return null;
+            String field = null;
+            String crumb = null;
+            JsonReader json = new JsonReader(body);
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "crumbRequestField":
+                        field = json.nextString();
+                        break;
+                    case "crumb":
+                        crumb = json.nextString();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            return new JenkinsCrumbCache.Crumb(field, crumb, sessionCookie(resp));
+        }
+    }
+
+    /** Joins the name=value part of every Set-Cookie header into a single Cookie header value. */
+    private static String sessionCookie(HttpResponse<?> resp) {
+        StringBuilder cookie = new StringBuilder();
+        for (String setCookie : resp.headers().allValues("Set-Cookie")) {
+            int end = setCookie.indexOf(';');
+            if (cookie.length() > 0) cookie.append("; ");
+            cookie.append(end < 0 ? setCookie : setCookie.substring(0, end));
+        }
+        return cookie.length() == 0 ? null : cookie.toString();
     }
 
     // ── Trigger ───────────────────────────────────────────────────────────────
@@ -59,23 +146,19 @@ public class JenkinsService {
     /**
      * Triggers a Jenkins build and returns the queue item Location URL.
      * Example return value: "http://localhost:8080/queue/item/7/"
+     *
+     * Uses the cached crumb; on 403 the crumb is refreshed and the POST retried once.
      */
     public String triggerBuild() throws Exception {
-        String crumb = getCrumb();
-        String url = Config.JENKINS_URL + "/job/" + Config.JENKINS_JOB + "/build";
-
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuth())
-                .POST(HttpRequest.BodyPublishers.noBody());
+        JenkinsCrumbCache.Crumb crumb = crumbCache.get(Config.JENKINS_USER, this::fetchCrumb);
+        HttpResponse<String> resp = postBuild(crumb);
 
-        if (crumb != null) {
-            String[] parts = crumb.split(":", 2);
-            builder.header(parts[0], parts[1]);
+        if (resp.statusCode() == 403) {
+            crumbCache.invalidate(Config.JENKINS_USER);
+            crumb = crumbCache.get(Config.JENKINS_USER, this::fetchCrumb);
+            resp = postBuild(crumb);
         }
 
-        HttpResponse<String> resp = http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-
         if (resp.statusCode() == 201) {
             return resp.headers().firstValue("Location").orElse(null);
         }
@@ -83,33 +166,148 @@ public class JenkinsService {
                 + " when triggering build. Body: " + resp.body());
     }
 
+    private HttpResponse<String> postBuild(JenkinsCrumbCache.Crumb crumb) throws Exception {
+        String url = jobUrl + "/build";
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", basicAuth())
+                .POST(HttpRequest.BodyPublishers.noBody());
+
+        if (crumb.isPresent()) {
+            builder.header(crumb.getField(), crumb.getValue());
+        }
+        if (crumb.getCookie() != null) {
+            builder.header("Cookie", crumb.getCookie());
+        }
+
+        return http.send("triggerBuild", builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
     /**
-     * Polls the Jenkins queue until the build actually starts.
-     * Returns the real build number (e.g. 4).
-     * Waits up to 60 seconds; throws if the build never starts.
+     * Waits for the queue item behind {@code queueItemUrl} to start and returns the real
+     * build number (e.g. 4). All pending triggers share one adaptive poller
+     * ({@link JenkinsQueueResolver}); throws if the build never starts within the timeout.
      */
     public int resolveBuildNumber(String queueItemUrl) throws Exception {
-        String apiUrl = queueItemUrl + (queueItemUrl.endsWith("/") ? "" : "/") + "api/json";
+        try {
+            return queueResolver.resolve(queueItemId(queueItemUrl)).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    public JenkinsQueueResolver getQueueResolver() {
+        return queueResolver;
+    }
 
-        for (int attempt = 0; attempt < 60; attempt++) {
-            Thread.sleep(1000);
+    /** Extracts 7 from "http://localhost:8080/queue/item/7/". */
+    static long queueItemId(String queueItemUrl) throws Exception {
+        if (queueItemUrl == null) {
+            throw new Exception("Jenkins did not return a queue item location");
+        }
+        String trimmed = queueItemUrl.endsWith("/") ? queueItemUrl.substring(0, queueItemUrl.length() - 1) : queueItemUrl;
+        try {
+            return Long.parseLong(trimmed.substring(trimmed.lastIndexOf('/') + 1));
+        } catch (NumberFormatException e) {
+            throw new Exception("Unexpected Jenkins queue item location: " + queueItemUrl);
+        }
+    }
+
+    private Set<Long> queuedItemIds() throws Exception {
+        HttpResponse<InputStream> resp = http.send("resolve",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl + "/queue/api/json?tree=" + QUEUE_TREE))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
 
-            HttpResponse<String> resp = http.send(
-                    HttpRequest.newBuilder()
-                            .uri(URI.create(apiUrl))
-                            .header("Authorization", basicAuth())
-                            .GET().build(),
-                    HttpResponse.BodyHandlers.ofString());
+        try (Reader body = reader(resp)) {
+            if (resp.statusCode() != 200) {
+                throw new Exception("Jenkins queue API returned " + resp.statusCode());
+            }
+            return readQueuedItemIds(new JsonReader(body));
+        }
+    }
 
-            if (resp.statusCode() == 200) {
-                JsonObject json = gson.fromJson(resp.body(), JsonObject.class);
-                if (json.has("executable") && !json.get("executable").isJsonNull()) {
-                    return json.getAsJsonObject("executable").get("number").getAsInt();
+    private Integer itemBuildNumber(long itemId) throws Exception {
+        HttpResponse<InputStream> resp = http.send("resolve",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(baseUrl + "/queue/item/" + itemId
+                                + "/api/json?tree=" + QUEUE_ITEM_TREE))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        try (Reader body = reader(resp)) {
+            if (resp.statusCode() == 404) {
+                throw new Exception("Jenkins queue item " + itemId + " no longer exists");
+            }
+            if (resp.statusCode() != 200) {
+                return null;
+            }
+            QueueItem item = readQueueItem(new JsonReader(body));
+            if (item.isCancelled()) {
+                throw new Exception("Jenkins queue item " + itemId + " was cancelled");
+            }
+            return item.getBuildNumber();
+        }
+    }
+
+    /** Ids in a queue/api/json?tree=items[id] document. */
+    static Set<Long> readQueuedItemIds(JsonReader json) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("items") || json.peek() != JsonToken.BEGIN_ARRAY) {
+                json.skipValue();
+                continue;
+            }
+            json.beginArray();
+            while (json.hasNext()) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    if (json.nextName().equals("id")) {
+                        ids.add(json.nextLong());
+                    } else {
+                        json.skipValue();
+                    }
                 }
-                // If "why" is present the build is still queued — keep waiting
+                json.endObject();
             }
+            json.endArray();
         }
-        throw new Exception("Timed out after 60 s waiting for Jenkins build to start");
+        json.endObject();
+        return ids;
+    }
+
+    /** A queue/item/N/api/json?tree=cancelled,executable[number] document. */
+    static QueueItem readQueueItem(JsonReader json) throws IOException {
+        boolean cancelled = false;
+        Integer buildNumber = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+            } else if (name.equals("cancelled")) {
+                cancelled = json.nextBoolean();
+            } else if (name.equals("executable")) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    if (json.nextName().equals("number")) {
+                        buildNumber = json.nextInt();
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return new QueueItem(cancelled, buildNumber);
     }
 
     // ── Status ────────────────────────────────────────────────────────────────
@@ -117,41 +315,239 @@ public class JenkinsService {
     /**
      * Returns a JSON string with current build info:
      *   { "building": true/false, "result": "SUCCESS"|"FAILURE"|"IN_PROGRESS",
-     *     "duration": 12345, "buildNumber": 4, "url": "http://..." }
+     *     "duration": 12345, "timestamp": 1700000000000, "buildNumber": 4, "url": "http://..." }
+     * timestamp is the build's start time in epoch millis, left out when unknown.
      */
     public String getBuildStatus(int buildNumber) throws Exception {
-        String url = Config.JENKINS_URL + "/job/" + Config.JENKINS_JOB
-                + "/" + buildNumber + "/api/json";
+        String url = jobUrl + "/" + buildNumber + "/api/json?tree=" + BUILD_TREE;
 
-        HttpResponse<String> resp = http.send(
+        HttpResponse<InputStream> resp = http.send("status",
                 HttpRequest.newBuilder()
                         .uri(URI.create(url))
                         .header("Authorization", basicAuth())
                         .GET().build(),
-                HttpResponse.BodyHandlers.ofString());
+                HttpResponse.BodyHandlers.ofInputStream());
 
-        if (resp.statusCode() == 200) {
-            JsonObject src = gson.fromJson(resp.body(), JsonObject.class);
-            JsonObject out = new JsonObject();
-            out.addProperty("building",     src.get("building").getAsBoolean());
-            out.addProperty("result",       src.get("result").isJsonNull()
-                    ? "IN_PROGRESS" : src.get("result").getAsString());
-            out.addProperty("duration",     src.get("duration").getAsLong());
-            out.addProperty("buildNumber",  buildNumber);
-            out.addProperty("url",          src.get("url").getAsString());
-            return gson.toJson(out);
+        try (Reader body = reader(resp)) {
+            if (resp.statusCode() == 200) {
+                return toBuildStatus(readBuild(new JsonReader(body)), buildNumber);
+            }
+            throw new Exception("Jenkins build API returned " + resp.statusCode());
+        }
+    }
+
+    /** Reduces Jenkins' build JSON to the status fields the app serves. */
+    String toBuildStatus(String jenkinsJson, int buildNumber) {
+        try {
+            return toBuildStatus(readBuild(new JsonReader(new StringReader(jenkinsJson))), buildNumber);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String toBuildStatus(BuildInfo build, int buildNumber) {
+        StringWriter out = new StringWriter(160);
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("building").value(build.isBuilding());
+            json.name("result").value(build.getResult() == null ? "IN_PROGRESS" : build.getResult());
+            json.name("duration").value(build.getDuration());
+            if (build.getTimestamp() > 0) {
+                json.name("timestamp").value(build.getTimestamp());
+            }
+            json.name("buildNumber").value(buildNumber);
+            json.name("url").value(build.getUrl());
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * The build fields in an api/json document. Works on the full document too: anything
+     * outside the projection (actions, changeSets, culprits...) is skipped without being
+     * materialized.
+     */
+    static BuildInfo readBuild(JsonReader json) throws IOException {
+        boolean building = false;
+        String result = null;
+        long duration = 0;
+        long timestamp = 0;
+        String url = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "building":
+                    building = json.nextBoolean();
+                    break;
+                case "result":
+                    result = json.nextString();
+                    break;
+                case "duration":
+                    duration = json.nextLong();
+                    break;
+                case "timestamp":
+                    timestamp = json.nextLong();
+                    break;
+                case "url":
+                    url = json.nextString();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return new BuildInfo(building, result, duration, timestamp, url);
+    }
+
+    // ── Stages ────────────────────────────────────────────────────────────────
+
+    /**
+     * Returns per-stage timings from the Pipeline Stage View API (wfapi/describe):
+     *   { "status": "SUCCESS", "startTimeMillis": 1700000000000, "durationMillis": 93000,
+     *     "stages": [ { "name": "Checkout", "status": "SUCCESS", "startTimeMillis": ...,
+     *                   "durationMillis": 1200 } ],
+     *     "buildNumber": 4, "building": false }
+     * building stays true while the run or any stage is in progress or waiting for input,
+     * which lets BuildStatusCache keep finished runs for good.
+     */
+    public String getBuildStages(int buildNumber) throws Exception {
+        String url = jobUrl + "/" + buildNumber + "/wfapi/describe";
+
+        HttpResponse<InputStream> resp = http.send("stages",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(url))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        try (Reader body = reader(resp)) {
+            if (resp.statusCode() == 200) {
+                return toBuildStages(new JsonReader(body), buildNumber);
+            }
+            if (resp.statusCode() == 404) {
+                throw new Exception("Jenkins wfapi/describe returned 404 — is build #" + buildNumber
+                        + " a Pipeline run with the Pipeline Stage View plugin installed?");
+            }
+            throw new Exception("Jenkins wfapi/describe returned " + resp.statusCode());
+        }
+    }
+
+    /**
+     * Copies the run and stage fields the app serves from a wfapi/describe document to the
+     * output as they stream past; _links, execNode and the like are skipped unread.
+     */
+    static String toBuildStages(JsonReader json, int buildNumber) throws IOException {
+        StringWriter out = new StringWriter(512);
+        boolean running = false;
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (json.peek() == JsonToken.NULL) {
+                    json.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "status":
+                        String status = json.nextString();
+                        running |= isRunning(status);
+                        writer.name("status").value(status);
+                        break;
+                    case "startTimeMillis":
+                    case "durationMillis":
+                        writer.name(name).value(json.nextLong());
+                        break;
+                    case "stages":
+                        writer.name("stages").beginArray();
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            running |= copyStage(json, writer);
+                        }
+                        json.endArray();
+                        writer.endArray();
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+            writer.name("buildNumber").value(buildNumber);
+            writer.name("building").value(running);
+            writer.endObject();
+        }
+        return out.toString();
+    }
+
+    /** Copies one stage's name, status, timings and error message; returns whether it is still running. */
+    private static boolean copyStage(JsonReader json, JsonWriter writer) throws IOException {
+        boolean running = false;
+        writer.beginObject();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "name":
+                    writer.name("name").value(json.nextString());
+                    break;
+                case "status":
+                    String status = json.nextString();
+                    running = isRunning(status);
+                    writer.name("status").value(status);
+                    break;
+                case "startTimeMillis":
+                case "durationMillis":
+                case "pauseDurationMillis":
+                    writer.name(name).value(json.nextLong());
+                    break;
+                case "error":
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        if (json.nextName().equals("message") && json.peek() == JsonToken.STRING) {
+                            writer.name("error").value(json.nextString());
+                        } else {
+                            json.skipValue();
+                        }
+                    }
+                    json.endObject();
+                    break;
+                default:
+                    json.skipValue();
+            }
         }
-        throw new Exception("Jenkins build API returned " + resp.statusCode());
+        json.endObject();
+        writer.endObject();
+        return running;
+    }
+
+    private static boolean isRunning(String wfapiStatus) {
+        return wfapiStatus.equals("IN_PROGRESS") || wfapiStatus.equals("PAUSED_PENDING_INPUT")
+                || wfapiStatus.equals("QUEUED");
+    }
+
+    /** UTF-8 reader over a streamed response body; closing it releases the connection. */
+    private static Reader reader(HttpResponse<InputStream> resp) {
+        return new InputStreamReader(resp.body(), StandardCharsets.UTF_8);
     }
 
     // ── Console ───────────────────────────────────────────────────────────────
 
     /** Returns the full plain-text console output of a build. */
     public String getConsoleOutput(int buildNumber) throws Exception {
-        String url = Config.JENKINS_URL + "/job/" + Config.JENKINS_JOB
-                + "/" + buildNumber + "/consoleText";
+        String url = jobUrl + "/" + buildNumber + "/consoleText";
 
-        HttpResponse<String> resp = http.send(
+        HttpResponse<String> resp = http.send("console",
                 HttpRequest.newBuilder()
                         .uri(URI.create(url))
                         .header("Authorization", basicAuth())
@@ -161,4 +557,146 @@ public class JenkinsService {
         if (resp.statusCode() == 200) return resp.body();
         throw new Exception("Console API returned " + resp.statusCode());
     }
+
+    /**
+     * Streams the full console output of a build straight into {@code target} without
+     * holding it in memory. Used to fill the on-disk log cache for finished builds.
+     *
+     * Reads progressiveText from offset 0 rather than consoleText because only its
+     * X-More-Data header says whether the log is closed: Jenkins reports a result
+     * (building=false, the COMPLETED notification) before post-build output and the
+     * "Finished:" line are written. While more data is coming the body is discarded and
+     * {@link ConsoleLogStore.LogStillWritingException} is thrown.
+     */
+    public void downloadConsoleOutput(int buildNumber, Path target) throws Exception {
+        String url = jobUrl + "/" + buildNumber + "/logText/progressiveText?start=0";
+
+        HttpResponse<Path> resp = http.send("console",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(url))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                info -> info.statusCode() == 200 && !moreData(info.headers())
+                        ? HttpResponse.BodyHandlers.ofFile(target).apply(info)
+                        : HttpResponse.BodySubscribers.replacing(null));
+
+        if (resp.statusCode() != 200) {
+            Files.deleteIfExists(target);
+            throw new Exception("Console API returned " + resp.statusCode());
+        }
+        if (resp.body() == null) {
+            Files.deleteIfExists(target);
+            throw new ConsoleLogStore.LogStillWritingException(buildNumber);
+        }
+    }
+
+    /**
+     * Returns only the console bytes written after {@code start}, using Jenkins'
+     * logText/progressiveText endpoint. The returned chunk carries the offset to pass on
+     * the next call (X-Text-Size) and whether the build is still writing (X-More-Data).
+     */
+    public ConsoleChunk getConsoleChunk(int buildNumber, long start) throws Exception {
+        String url = jobUrl + "/" + buildNumber + "/logText/progressiveText?start=" + Math.max(0, start);
+
+        HttpResponse<String> resp = http.send("console",
+                HttpRequest.newBuilder()
+                        .uri(URI.create(url))
+                        .header("Authorization", basicAuth())
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        if (resp.statusCode() == 200) {
+            long nextOffset = resp.headers().firstValue("X-Text-Size")
+                    .map(Long::parseLong).orElse(start);
+            return new ConsoleChunk(resp.body(), nextOffset, moreData(resp.headers()));
+        }
+        throw new Exception("Progressive console API returned " + resp.statusCode());
+    }
+
+    /** progressiveText's X-More-Data: true while Jenkins may still append to the log. */
+    private static boolean moreData(HttpHeaders headers) {
+        return headers.firstValue("X-More-Data").map(Boolean::parseBoolean).orElse(false);
+    }
+
+    /** The api/json fields behind a build status; result is null while the build runs. */
+    static final class BuildInfo {
+        private final boolean building;
+        private final String result;
+        private final long duration;
+        private final long timestamp;
+        private final String url;
+
+        BuildInfo(boolean building, String result, long duration, long timestamp, String url) {
+            this.building = building;
+            this.result = result;
+            this.duration = duration;
+            this.timestamp = timestamp;
+            this.url = url;
+        }
+
+        boolean isBuilding() {
+            return building;
+        }
+
+        String getResult() {
+            return result;
+        }
+
+        long getDuration() {
+            return duration;
+        }
+
+        /** Start time in epoch millis, or 0 when unknown. */
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        String getUrl() {
+            return url;
+        }
+    }
+
+    /** A queue item's state; buildNumber is null until the build has started. */
+    static final class QueueItem {
+        private final boolean cancelled;
+        private final Integer buildNumber;
+
+        QueueItem(boolean cancelled, Integer buildNumber) {
+            this.cancelled = cancelled;
+            this.buildNumber = buildNumber;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        Integer getBuildNumber() {
+            return buildNumber;
+        }
+    }
+
+    /** A slice of console output plus the offset to continue from. */
+    public static final class ConsoleChunk {
+        private final String text;
+        private final long nextOffset;
+        private final boolean moreData;
+
+        public ConsoleChunk(String text, long nextOffset, boolean moreData) {
+            this.text = text;
+            this.nextOffset = nextOffset;
+            this.moreData = moreData;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public boolean hasMoreData() {
+            return moreData;
+        }
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.devops;
+
+import com.google.gson.Gson;
+
+/**
+ * The process-wide Gson instance. Gson is thread-safe and caches a type adapter per
+ * class on first use, so every component shares this one rather than building its own.
+ */
+public final class Json {
+
+    public static final Gson GSON = new Gson();
+
+    private Json() {
+    }
+}
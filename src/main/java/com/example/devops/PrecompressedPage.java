@@ -0,0 +1,83 @@
+package com.example.devops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A page rendered once at startup and kept as immutable bytes, plus a gzip copy
+ * compressed ahead of time at the best compression level.
+ *
+ * Every representation has its own strong ETag (the SHA-256 prefix of the
+ * uncompressed body, suffixed with the content coding) so caches can revalidate
+ * with If-None-Match and get 304 without the page being rebuilt or recompressed.
+ */
+public class PrecompressedPage {
+
+    private final String contentType;
+    private final Variant identity;
+    private final Variant gzip;
+
+    public PrecompressedPage(String contentType, String body) {
+        this.contentType = contentType;
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String etag = BuildStatusCache.etagOf(body);
+        this.identity = new Variant(null, bytes, etag);
+        this.gzip = new Variant("gzip", gzipped(bytes), etag.substring(0, etag.length() - 1) + "-gzip\"");
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /** The representation to send for the request's Accept-Encoding header. */
+    public Variant select(String acceptEncoding) {
+        boolean useGzip = ResponseCompression.accepts(acceptEncoding, "gzip") && gzip.body.length < identity.body.length;
+        return useGzip ? gzip : identity;
+    }
+
+    private static byte[] gzipped(byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // ── Variant ───────────────────────────────────────────────────────────────
+
+    public static final class Variant {
+        private final String encoding;
+        private final byte[] body;
+        private final String etag;
+
+        private Variant(String encoding, byte[] body, String etag) {
+            this.encoding = encoding;
+            this.body = body;
+            this.etag = etag;
+        }
+
+        /** Content-Encoding value, or null for the uncompressed body. */
+        public String getEncoding() {
+            return encoding;
+        }
+
+        /** Shared bytes; callers must not modify them. */
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
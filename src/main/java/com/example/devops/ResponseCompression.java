@@ -0,0 +1,126 @@
+package com.example.devops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+
+import spark.Route;
+
+/**
+ * Accept-Encoding aware compression for text routes that opt in with {@link #wrap}.
+ *
+ * Bodies shorter than COMPRESSION_MIN_BYTES, and responses a route already wrote itself,
+ * go out unchanged. gzip is preferred over deflate. For gzip the route only marks the
+ * response with Content-Encoding and Spark streams the body through a GZIPOutputStream
+ * as it serializes it; deflate bodies are compressed here and returned as bytes.
+ *
+ * Files that are cached anyway (finished console logs) are compressed once on disk by
+ * {@link ConsoleLogStore} rather than per request.
+ */
+public class ResponseCompression {
+
+    private final int minBytes;
+    private final LongAdder gzipResponses = new LongAdder();
+    private final LongAdder deflateResponses = new LongAdder();
+    private final LongAdder identityResponses = new LongAdder();
+
+    public ResponseCompression(int minBytes) {
+        this.minBytes = minBytes;
+    }
+
+    /** Returns a route that compresses {@code route}'s String body when the client allows it. */
+    public Route wrap(Route route) {
+        return (req, res) -> {
+            Object body = route.handle(req, res);
+            if (!(body instanceof String) || res.raw().isCommitted() || res.raw().containsHeader("Content-Encoding")) {
+                return body;
+            }
+            String text = (String) body;
+            String encoding = encodingFor(req.headers("Accept-Encoding"), text.length());
+            res.header("Vary", "Accept-Encoding");
+            if (encoding == null) {
+                identityResponses.increment();
+                return text;
+            }
+            res.header("Content-Encoding", encoding);
+            if (encoding.equals("gzip")) {
+                gzipResponses.increment();
+                return text;
+            }
+            deflateResponses.increment();
+            return deflate(text);
+        };
+    }
+
+    /**
+     * The coding to use for a body of {@code length} bytes: "gzip", "deflate", or null
+     * when the client accepts neither or the body is too small to be worth it.
+     */
+    public String encodingFor(String acceptEncoding, long length) {
+        if (length < minBytes) {
+            return null;
+        }
+        if (accepts(acceptEncoding, "gzip")) {
+            return "gzip";
+        }
+        if (accepts(acceptEncoding, "deflate")) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    /**
+     * True if the Accept-Encoding header lists {@code coding} without q=0. An entry naming
+     * the coding takes precedence over "*" wherever it appears; "*" only applies otherwise.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.trim().split(";");
+            String name = fields[0].trim();
+            if (name.equalsIgnoreCase(coding)) {
+                return positiveQuality(fields);
+            }
+            if (name.equals("*") && wildcard == null) {
+                wildcard = positiveQuality(fields);
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static boolean positiveQuality(String[] fields) {
+        for (int i = 1; i < fields.length; i++) {
+            String param = fields[i].trim().replace(" ", "");
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Appends per-encoding response counters in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP http_response_encoding_total Text responses from compression-enabled routes by content coding\n");
+        output.append("# TYPE http_response_encoding_total counter\n");
+        output.append("http_response_encoding_total{encoding=\"gzip\"} ").append(gzipResponses.sum()).append('\n');
+        output.append("http_response_encoding_total{encoding=\"deflate\"} ").append(deflateResponses.sum()).append('\n');
+        output.append("http_response_encoding_total{encoding=\"identity\"} ").append(identityResponses.sum()).append('\n');
+    }
+
+    private static byte[] deflate(String text) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, text.length() / 8));
+        try (DeflaterOutputStream out = new DeflaterOutputStream(buffer)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.devops;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import spark.Filter;
+import spark.Response;
+import spark.Spark;
+import spark.route.HttpMethod;
+import spark.routematch.RouteMatch;
+
+/**
+ * Before/after filter pair that instruments every Spark route in one place.
+ *
+ * For each request it resolves the route template (e.g. /api/build-status/:number) from
+ * the registered routes, so labels stay low-cardinality, and records:
+ *   - http.server.requests        Timer with histogram buckets, by method, route and status
+ *   - http.server.requests.active in-flight gauge, by method and route
+ *   - http.server.request.size / http.server.response.size byte summaries
+ *   - http_requests_total         the per-endpoint call counter the dashboards already use
+ *
+ * Requests that match no route are recorded under route="unmatched". The templates are
+ * read once by {@link #refresh()}, which must be called after the last route is registered.
+ */
+public class RouteMetrics {
+
+    static final String UNMATCHED = "unmatched";
+
+    private static final String START_ATTRIBUTE = "routeMetrics.start";
+    private static final String ROUTE_ATTRIBUTE = "routeMetrics.route";
+
+    private final MeterRegistry registry;
+    private final Supplier<List<Template>> routes;
+    private final ConcurrentMap<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private volatile List<Template> templates = List.of();
+
+    public RouteMetrics(MeterRegistry registry, Supplier<List<Template>> routes) {
+        this.registry = registry;
+        this.routes = routes;
+    }
+
+    /** Metrics over the routes registered with the static Spark instance. */
+    public static RouteMetrics forSpark(MeterRegistry registry) {
+        return new RouteMetrics(registry, RouteMetrics::sparkTemplates);
+    }
+
+    /** Filter to register with {@code before}: starts the clock, counts the call and the request in flight. */
+    public Filter before() {
+        return (req, res) -> {
+            String route = resolve(req.requestMethod(), req.pathInfo());
+            req.attribute(START_ATTRIBUTE, System.nanoTime());
+            req.attribute(ROUTE_ATTRIBUTE, route);
+            activeGauge(req.requestMethod(), route).incrementAndGet();
+            if (!route.equals(UNMATCHED)) {
+                countCall(route);
+            }
+        };
+    }
+
+    /** Increments the http_requests_total counter for {@code route}. */
+    void countCall(String route) {
+        Counter.builder("http_requests_total")
+                .description("Number of times each application endpoint has been called")
+                .tag("endpoint", route)
+                .register(registry)
+                .increment();
+    }
+
+    /** Filter to register with {@code afterAfter}: records latency and sizes. */
+    public Filter afterAfter() {
+        return (req, res) -> {
+            Long start = req.attribute(START_ATTRIBUTE);
+            String route = req.attribute(ROUTE_ATTRIBUTE);
+            if (start == null || route == null) {
+                return;
+            }
+            String method = req.requestMethod();
+            activeGauge(method, route).decrementAndGet();
+            record(method, route, route.equals(UNMATCHED) ? 404 : res.raw().getStatus(),
+                    System.nanoTime() - start, req.contentLength(), responseBytes(res));
+        };
+    }
+
+    /** Records one finished request; negative sizes mean "unknown" and are skipped. */
+    void record(String method, String route, int status, long elapsedNanos, long requestBytes, long responseBytes) {
+        Timer.builder("http.server.requests")
+                .description("Time spent handling HTTP requests")
+                .tags("method", method, "route", route, "status", String.valueOf(status))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (requestBytes >= 0) {
+            DistributionSummary.builder("http.server.request.size")
+                    .description("HTTP request body sizes")
+                    .baseUnit("bytes")
+                    .tags("method", method, "route", route)
+                    .register(registry)
+                    .record(requestBytes);
+        }
+        if (responseBytes >= 0) {
+            DistributionSummary.builder("http.server.response.size")
+                    .description("HTTP response body sizes before content encoding")
+                    .baseUnit("bytes")
+                    .tags("method", method, "route", route)
+                    .register(registry)
+                    .record(responseBytes);
+        }
+    }
+
+    /** Reads the registered route templates; until then every request is unmatched. */
+    public void refresh() {
+        templates = routes.get();
+    }
+
+    /** The template of the first registered route matching {@code method} and {@code path}. */
+    String resolve(String method, String path) {
+        String[] segments = split(path);
+        for (Template template : templates) {
+            if (template.method.equalsIgnoreCase(method) && template.matches(segments)) {
+                return template.path;
+            }
+        }
+        return UNMATCHED;
+    }
+
+    private AtomicInteger activeGauge(String method, String route) {
+        return active.computeIfAbsent(method + " " + route, key -> registry.gauge(
+                "http.server.requests.active", Tags.of("method", method, "route", route), new AtomicInteger()));
+    }
+
+    private static long responseBytes(Response res) {
+        String body = res.body();
+        if (body != null && !body.isEmpty()) {
+            return utf8Length(body);
+        }
+        String contentLength = res.raw().getHeader("Content-Length");
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength);
+            } catch (NumberFormatException ignored) {
+                // Fall through to the bytes already written.
+            }
+        }
+        if (res.raw() instanceof org.eclipse.jetty.server.Response) {
+            return ((org.eclipse.jetty.server.Response) res.raw()).getHttpOutput().getWritten();
+        }
+        return -1;
+    }
+
+    /** UTF-8 encoded length without allocating the encoded bytes. */
+    static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static List<Template> sparkTemplates() {
+        List<Template> templates = new ArrayList<>();
+        for (RouteMatch route : Spark.routes()) {
+            HttpMethod method = route.getHttpMethod();
+            if (method != HttpMethod.before && method != HttpMethod.after && method != HttpMethod.afterafter) {
+                templates.add(new Template(method.name(), route.getMatchUri()));
+            }
+        }
+        return templates;
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path == null ? "" : path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+    }
+
+    // ── Template ──────────────────────────────────────────────────────────────
+
+    /** A registered route: ":name" matches one path segment, "*" matches the rest. */
+    public static final class Template {
+        private final String method;
+        private final String path;
+        private final String[] segments;
+
+        public Template(String method, String path) {
+            this.method = method;
+            this.path = path;
+            this.segments = split(path);
+        }
+
+        boolean matches(String[] request) {
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals("*")) {
+                    return true;
+                }
+                if (i >= request.length) {
+                    return false;
+                }
+                if (!segments[i].startsWith(":") && !segments[i].equals(request[i])) {
+                    return false;
+                }
+            }
+            return segments.length == request.length;
+        }
+    }
+}
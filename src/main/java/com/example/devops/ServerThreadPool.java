@@ -0,0 +1,176 @@
+package com.example.devops;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Chooses the thread pool the embedded Jetty server runs requests on.
+ *
+ * Almost every handler blocks on GitHub or Jenkins, so the default bounded pool runs out
+ * of threads long before the CPU is busy. With SERVER_VIRTUAL_THREADS=true and a JDK that
+ * has virtual threads (21+), every task Jetty dispatches — each request included — runs
+ * on its own virtual thread. On Java 17, or when the flag is off, a QueuedThreadPool of
+ * SERVER_MAX_THREADS platform threads is used as before.
+ *
+ * The virtual-thread executor is looked up reflectively so the app still compiles and
+ * runs with --release 17.
+ *
+ * Also tracks requests in flight so both modes can be compared on /metrics.
+ */
+public class ServerThreadPool {
+
+    private static final int MIN_PLATFORM_THREADS = 8;
+    private static final int IDLE_TIMEOUT_MILLIS = 60_000;
+
+    private final ThreadPool threadPool;
+    private final boolean virtual;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+
+    private ServerThreadPool(ThreadPool threadPool, boolean virtual) {
+        this.threadPool = threadPool;
+        this.virtual = virtual;
+    }
+
+    /**
+     * Builds a virtual-thread pool when {@code preferVirtual} is set and the running JDK
+     * supports it, otherwise a platform pool capped at {@code maxThreads}.
+     */
+    public static ServerThreadPool create(boolean preferVirtual, int maxThreads) {
+        if (preferVirtual) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                return new ServerThreadPool(new VirtualThreadPool(executor), true);
+            }
+            System.err.println("[WARN] SERVER_VIRTUAL_THREADS is set but Java "
+                    + Runtime.version().feature() + " has no virtual threads; using platform threads");
+        }
+        QueuedThreadPool pool = new QueuedThreadPool(
+                maxThreads, Math.min(MIN_PLATFORM_THREADS, maxThreads), IDLE_TIMEOUT_MILLIS);
+        pool.setName("http-server");
+        return new ServerThreadPool(pool, false);
+    }
+
+    public ThreadPool getThreadPool() {
+        return threadPool;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void requestStarted() {
+        requests.increment();
+        inFlight.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    public int inFlightCount() {
+        return inFlight.get();
+    }
+
+    /** Appends execution mode, pool thread gauges and in-flight requests in Prometheus text format. */
+    public void appendPrometheusMetrics(StringBuilder output) {
+        output.append("# HELP http_server_thread_mode Execution mode serving HTTP requests (1 = active)\n");
+        output.append("# TYPE http_server_thread_mode gauge\n");
+        output.append("http_server_thread_mode{mode=\"").append(virtual ? "virtual" : "platform").append("\"} 1\n");
+
+        output.append("# HELP http_server_threads Threads owned by the HTTP server pool\n");
+        output.append("# TYPE http_server_threads gauge\n");
+        int threads = threadPool.getThreads();
+        int idle = threadPool.getIdleThreads();
+        output.append("http_server_threads{state=\"busy\"} ").append(threads - idle).append('\n');
+        output.append("http_server_threads{state=\"idle\"} ").append(idle).append('\n');
+        if (threadPool instanceof QueuedThreadPool) {
+            QueuedThreadPool queued = (QueuedThreadPool) threadPool;
+            output.append("http_server_threads{state=\"max\"} ").append(queued.getMaxThreads()).append('\n');
+
+            output.append("# HELP http_server_queued_jobs Jobs waiting for a free server thread\n");
+            output.append("# TYPE http_server_queued_jobs gauge\n");
+            output.append("http_server_queued_jobs ").append(queued.getQueueSize()).append('\n');
+        }
+
+        output.append("# HELP http_server_requests_in_flight Requests currently being handled\n");
+        output.append("# TYPE http_server_requests_in_flight gauge\n");
+        output.append("http_server_requests_in_flight ").append(inFlight.get()).append('\n');
+
+        output.append("# HELP http_server_requests_total Requests handled since startup\n");
+        output.append("# TYPE http_server_requests_total counter\n");
+        output.append("http_server_requests_total ").append(requests.sum()).append('\n');
+    }
+
+    /** Executors.newVirtualThreadPerTaskExecutor(), or null before Java 21. */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Jetty ThreadPool that starts a new virtual thread for every task. There is nothing
+     * to size, so it never reports itself low on threads; "threads" counts running tasks.
+     */
+    static final class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+
+        private final ExecutorService executor;
+        private final AtomicInteger running = new AtomicInteger();
+
+        VirtualThreadPool(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            executor.execute(() -> {
+                running.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        @Override
+        public void join() throws InterruptedException {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting until stopped
+            }
+        }
+
+        @Override
+        public int getThreads() {
+            return running.get();
+        }
+
+        @Override
+        public int getIdleThreads() {
+            return 0;
+        }
+
+        @Override
+        public boolean isLowOnThreads() {
+            return false;
+        }
+
+        @Override
+        protected void doStop() throws Exception {
+            executor.shutdown();
+            executor.awaitTermination(IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.devops;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling an upstream whose circuit is open or whose bulkhead is full.
+ * Nothing was sent; callers should answer 503 with {@link #getRetryAfterSeconds()}.
+ */
+public class UpstreamUnavailableException extends IOException {
+
+    private final String upstream;
+    private final long retryAfterSeconds;
+
+    public UpstreamUnavailableException(String upstream, String message, long retryAfterSeconds) {
+        super(message);
+        this.upstream = upstream;
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /** {@code error} or the first of its causes that is an UpstreamUnavailableException, else null. */
+    public static UpstreamUnavailableException find(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UpstreamUnavailableException) {
+                return (UpstreamUnavailableException) cause;
+            }
+        }
+        return null;
+    }
+}
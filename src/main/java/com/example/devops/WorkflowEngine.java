@@ -0,0 +1,186 @@
+package com.example.devops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the GitHub → Jenkins trigger → build-number resolve steps off the request thread.
+ *
+ * Workflows execute on a bounded pool (WORKFLOW_THREADS workers, WORKFLOW_QUEUE_CAPACITY
+ * waiting slots). When both are full, submit() throws RejectedExecutionException so the
+ * caller can answer 503 instead of piling up work. The most recent WORKFLOW_RETENTION
+ * workflows are kept in memory for GET /api/workflows/:id.
+ */
+public class WorkflowEngine {
+
+    /** Told about each workflow once its Jenkins build has a number. */
+    @FunctionalInterface
+    public interface BuildListener {
+        void buildStarted(CommitWorkflow workflow);
+    }
+
+    private final GitHubService gitHub;
+    private final JenkinsService jenkins;
+    private final ThreadPoolExecutor executor;
+    private final int retention;
+    private final BuildListener listener;
+
+    private final ConcurrentMap<String, CommitWorkflow> workflows = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public WorkflowEngine(GitHubService gitHub, JenkinsService jenkins,
+                          int threads, int queueCapacity, int retention) {
+        this(gitHub, jenkins, threads, queueCapacity, retention, workflow -> { });
+    }
+
+    public WorkflowEngine(GitHubService gitHub, JenkinsService jenkins,
+                          int threads, int queueCapacity, int retention, BuildListener listener) {
+        this.gitHub = gitHub;
+        this.jenkins = jenkins;
+        this.retention = retention;
+        this.listener = listener;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "commit-workflow-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Registers a new single-file workflow and queues it for execution.
+     * Throws RejectedExecutionException when the worker pool and its queue are full.
+     */
+    public CommitWorkflow submit(String filename, String content, String commitMessage) {
+        return submit(List.of(filename), commitMessage,
+                () -> gitHub.commitFile(filename, content, commitMessage));
+    }
+
+    /**
+     * Registers a workflow that commits all {@code files} as one commit and triggers one build.
+     * Throws RejectedExecutionException when the worker pool and its queue are full.
+     */
+    public CommitWorkflow submitBatch(List<GitHubService.FileChange> files, String commitMessage) {
+        List<String> paths = new ArrayList<>();
+        files.forEach(file -> paths.add(file.getPath()));
+        return submit(paths, commitMessage, () -> gitHub.commitFiles(files, commitMessage));
+    }
+
+    private CommitWorkflow submit(List<String> paths, String commitMessage, Callable<String> commitAction) {
+        CommitWorkflow workflow = new CommitWorkflow(UUID.randomUUID().toString(), paths, commitMessage);
+        workflows.put(workflow.getId(), workflow);
+        try {
+            executor.execute(() -> run(workflow, commitAction));
+        } catch (RejectedExecutionException e) {
+            workflows.remove(workflow.getId());
+            throw e;
+        }
+        insertionOrder.add(workflow.getId());
+        evictOldWorkflows();
+        return workflow;
+    }
+
+    /** Returns the workflow with the given id, or null if unknown or already evicted. */
+    public CommitWorkflow get(String id) {
+        return id == null ? null : workflows.get(id);
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ── Execution ─────────────────────────────────────────────────────────────
+
+    private void run(CommitWorkflow workflow, Callable<String> commitAction) {
+        String step = CommitWorkflow.STEP_GITHUB;
+        try {
+            workflow.startStep(step);
+            String commitSha = commitAction.call();
+            workflow.setCommitSha(commitSha);
+            workflow.completeStep(step);
+            System.out.println("[INFO] Workflow " + workflow.getId() + ": GitHub commit created: " + shortSha(commitSha));
+
+            step = CommitWorkflow.STEP_TRIGGER;
+            workflow.startStep(step);
+            String queueUrl = jenkins.triggerBuild();
+            workflow.setQueueUrl(queueUrl);
+            workflow.completeStep(step);
+
+            step = CommitWorkflow.STEP_RESOLVE;
+            workflow.startStep(step);
+            int buildNumber = jenkins.resolveBuildNumber(queueUrl);
+            workflow.setBuildNumber(buildNumber);
+            workflow.completeStep(step);
+            workflow.succeed();
+            System.out.println("[INFO] Workflow " + workflow.getId() + ": Jenkins build #" + buildNumber + " started.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workflow.failStep(step, "Workflow interrupted");
+            return;
+        } catch (Exception e) {
+            String message = e.getMessage() == null || e.getMessage().isBlank()
+                    ? e.getClass().getSimpleName() : e.getMessage();
+            System.err.println("[ERROR] Workflow " + workflow.getId() + " failed at " + step + ": " + message);
+            workflow.failStep(step, message);
+            return;
+        }
+
+        // The workflow has already succeeded; a listener failure must not turn it into a failed step
+        try {
+            listener.buildStarted(workflow);
+        } catch (RuntimeException e) {
+            System.err.println("[WARN] Workflow " + workflow.getId() + ": build listener failed: " + e.getMessage());
+        }
+    }
+
+    /** Drops the oldest finished workflows once more than {@code retention} are tracked. */
+    private void evictOldWorkflows() {
+        int excess = workflows.size() - retention;
+        for (String id : insertionOrder) {
+            if (excess <= 0) {
+                return;
+            }
+            CommitWorkflow workflow = workflows.get(id);
+            if (workflow == null) {
+                insertionOrder.remove(id);
+            } else if (workflow.isFinished()) {
+                workflows.remove(id);
+                insertionOrder.remove(id);
+                excess--;
+            }
+        }
+    }
+
+    private static String shortSha(String commitSha) {
+        if (commitSha == null || commitSha.isBlank()) {
+            return "unknown";
+        }
+        return commitSha.length() > 7 ? commitSha.substring(0, 7) : commitSha;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.devops;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.ServerSocket;
@@ -9,6 +10,8 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.junit.jupiter.api.AfterAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -127,4 +130,148 @@ public class AppTest {
 
         assertTrue(body.toString().contains("http_requests_total"));
     }
+
+    @Test
+    void unknownWorkflowReturnsNotFound() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/api/workflows/does-not-exist");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("GET");
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+
+        assertEquals(404, connection.getResponseCode());
+    }
+
+    @Test
+    void batchCommitRejectsPathTraversal() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/api/commit/batch");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.getOutputStream().write(
+                "{\"files\":[{\"path\":\"../pom.xml\",\"content\":\"x\"}]}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(400, connection.getResponseCode());
+    }
+
+    @Test
+    void jenkinsWebhookStateIsServedAsBuildStatus() throws Exception {
+        URL hook = new URL("http://localhost:" + testPort + "/api/hooks/jenkins?token=" + Config.JENKINS_WEBHOOK_TOKEN);
+        HttpURLConnection post = (HttpURLConnection) hook.openConnection();
+        post.setRequestMethod("POST");
+        post.setDoOutput(true);
+        post.setConnectTimeout(2000);
+        post.setReadTimeout(2000);
+        post.setRequestProperty("Content-Type", "application/json");
+        post.getOutputStream().write(("{\"name\":\"" + Config.JENKINS_JOB + "\",\"build\":{\"number\":987654,"
+                + "\"phase\":\"COMPLETED\",\"status\":\"SUCCESS\",\"duration\":4200,"
+                + "\"full_url\":\"http://jenkins/job/x/987654/\"}}").getBytes(StandardCharsets.UTF_8));
+        assertEquals(200, post.getResponseCode());
+
+        URL url = new URL("http://localhost:" + testPort + "/api/build-status/987654");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+        assertEquals(200, connection.getResponseCode());
+        assertTrue(connection.getHeaderField("Cache-Control").contains("immutable"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String body = reader.readLine();
+            assertTrue(body.contains("\"result\":\"SUCCESS\""), body);
+            assertTrue(body.contains("\"duration\":4200"), body);
+        }
+    }
+
+    @Test
+    void jenkinsWebhookRejectsMalformedNotification() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/api/hooks/jenkins");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+        connection.setRequestProperty("X-Webhook-Token", Config.JENKINS_WEBHOOK_TOKEN);
+        connection.getOutputStream().write("{\"name\":\"xpg\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(400, connection.getResponseCode());
+    }
+
+    @Test
+    void jenkinsWebhookRejectsWrongToken() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/api/hooks/jenkins?token=guess");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+        connection.getOutputStream().write(("{\"name\":\"" + Config.JENKINS_JOB + "\",\"build\":{\"number\":987655,"
+                + "\"phase\":\"COMPLETED\",\"status\":\"SUCCESS\"}}").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(401, connection.getResponseCode());
+    }
+
+    @Test
+    void buildHistoryPagesAndRejectsBadLimits() throws Exception {
+        HttpURLConnection page = (HttpURLConnection) new URL(
+                "http://localhost:" + testPort + "/api/builds?since=0&limit=10").openConnection();
+        page.setConnectTimeout(2000);
+        page.setReadTimeout(2000);
+        assertEquals(200, page.getResponseCode());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                page.getInputStream(), StandardCharsets.UTF_8))) {
+            assertTrue(reader.readLine().startsWith("{\"builds\":["));
+        }
+
+        HttpURLConnection tooMany = (HttpURLConnection) new URL(
+                "http://localhost:" + testPort + "/api/builds?limit=100000").openConnection();
+        tooMany.setConnectTimeout(2000);
+        tooMany.setReadTimeout(2000);
+        assertEquals(400, tooMany.getResponseCode());
+    }
+
+    @Test
+    void dashboardIsServedGzippedAndRevalidatedWithEtag() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(2000);
+        connection.setReadTimeout(2000);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+        String etag = connection.getHeaderField("ETag");
+        assertNotNull(etag);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(connection.getInputStream()), StandardCharsets.UTF_8))) {
+            assertTrue(reader.readLine().contains("DevOps Pipeline"));
+        }
+
+        HttpURLConnection revalidate = (HttpURLConnection) url.openConnection();
+        revalidate.setConnectTimeout(2000);
+        revalidate.setReadTimeout(2000);
+        revalidate.setRequestProperty("Accept-Encoding", "gzip");
+        revalidate.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, revalidate.getResponseCode());
+    }
+
+    @Test
+    void metricsAreCompressedWhenClientAcceptsIt() throws Exception {
+        URL url = new URL("http://localhost:" + testPort + "/metrics");
+        for (String encoding : new String[] {"gzip", "deflate"}) {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(2000);
+            connection.setReadTimeout(2000);
+            connection.setRequestProperty("Accept-Encoding", encoding);
+
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(encoding, connection.getHeaderField("Content-Encoding"));
+            InputStream raw = connection.getInputStream();
+            InputStream decoded = encoding.equals("gzip") ? new GZIPInputStream(raw) : new InflaterInputStream(raw);
+            String body = new String(decoded.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("http_requests_total"));
+        }
+    }
 }
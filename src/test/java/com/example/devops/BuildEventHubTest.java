@@ -0,0 +1,99 @@
+package com.example.devops;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildEventHubTest {
+
+    @Test
+    void subscribersShareOnePollerAndReceiveAllEvents() throws Exception {
+        CountDownLatch bothSubscribed = new CountDownLatch(1);
+        StubJenkins jenkins = new StubJenkins(bothSubscribed);
+        BuildEventHub hub = new BuildEventHub(jenkins, 10, 1024 * 1024, 10);
+
+        BuildEventHub.Subscription first = hub.subscribe(7, 0);
+        BuildEventHub.Subscription second = hub.subscribe(7, 0);
+        assertEquals(1, hub.activePollers());
+        bothSubscribed.countDown();
+
+        String firstStream = drain(hub, first);
+        String secondStream = drain(hub, second);
+
+        for (String stream : new String[] {firstStream, secondStream}) {
+            assertTrue(stream.contains("event: status"));
+            assertTrue(stream.contains("line one\\n"));
+            assertTrue(stream.contains("line two\\n"));
+            assertTrue(stream.contains("event: end"));
+        }
+        assertEquals(3, jenkins.statusCalls.get(), "one upstream poll per tick regardless of subscribers");
+        assertEquals(0, hub.activePollers());
+    }
+
+    @Test
+    void reconnectReplaysOnlyMissedEvents() throws Exception {
+        StubJenkins jenkins = new StubJenkins(new CountDownLatch(0));
+        BuildEventHub hub = new BuildEventHub(jenkins, 10, 1024 * 1024, 10);
+
+        BuildEventHub.Subscription holder = hub.subscribe(7, 0);
+        String full = drain(hub, hub.subscribe(7, 0));
+        assertTrue(full.contains("id: 1\n"));
+        assertTrue(full.contains("id: 2\n"));
+
+        String resumed = drain(hub, hub.subscribe(7, 2));
+        assertFalse(resumed.contains("id: 1\n"));
+        assertFalse(resumed.contains("id: 2\n"));
+        assertTrue(resumed.contains("event: end"));
+        assertEquals(3, jenkins.statusCalls.get());
+
+        hub.unsubscribe(holder);
+        assertEquals(0, hub.subscriberCount());
+    }
+
+    private static String drain(BuildEventHub hub, BuildEventHub.Subscription subscription) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            hub.stream(subscription, out);
+        } finally {
+            hub.unsubscribe(subscription);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static final class StubJenkins extends JenkinsService {
+        private final CountDownLatch start;
+        private final AtomicInteger statusCalls = new AtomicInteger();
+
+        StubJenkins(CountDownLatch start) {
+            this.start = start;
+        }
+
+        @Override
+        public String getBuildStatus(int buildNumber) throws Exception {
+            start.await(5, TimeUnit.SECONDS);
+            int call = statusCalls.incrementAndGet();
+            boolean building = call < 3;
+            return "{\"building\":" + building + ",\"result\":\"" + (building ? "IN_PROGRESS" : "SUCCESS") + "\"}";
+        }
+
+        @Override
+        public ConsoleChunk getConsoleChunk(int buildNumber, long start) {
+            assertFalse(start < 0);
+            if (start == 0) {
+                return new ConsoleChunk("line one\n", 9, true);
+            }
+            if (start == 9) {
+                return new ConsoleChunk("line two\n", 18, true);
+            }
+            return new ConsoleChunk("", 18, false);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.devops;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildEventSummariesTest {
+
+    @Test
+    void readsOnlyNewConsoleBytesAndStopsOnceComplete() throws Exception {
+        String console = ConsoleEventParserTest.CONSOLE;
+        int split = console.indexOf("[Pipeline] { (Deploy)");
+        List<Long> offsets = new ArrayList<>();
+        BuildEventSummaries summaries = new BuildEventSummaries((number, offset) -> {
+            offsets.add(offset);
+            boolean first = offset == 0;
+            int end = first ? split : console.length();
+            return new JenkinsService.ConsoleChunk(console.substring((int) offset, end), end, first);
+        }, 8);
+
+        assertTrue(summaries.summaryJson(9).contains("\"complete\":false"));
+        String done = summaries.summaryJson(9);
+        assertTrue(done.contains("\"complete\":true"), done);
+        assertTrue(done.contains("\"result\":\"FAILURE\""), done);
+        assertEquals(done, summaries.summaryJson(9));
+
+        assertEquals(List.of(0L, (long) split), offsets);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.devops;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildHistoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String finished(int number, String result) {
+        return "{\"building\":false,\"result\":\"" + result + "\",\"duration\":1500,\"buildNumber\":" + number
+                + ",\"url\":\"http://jenkins/job/xpg/" + number + "/\"}";
+    }
+
+    @Test
+    void recordsFinishedBuildsWithTheirCommit() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        CommitWorkflow workflow = new CommitWorkflow("w1", List.of("src/Main.java"), "msg");
+        workflow.setCommitSha("abc123");
+        workflow.setBuildNumber(7);
+        history.buildStarted(workflow);
+
+        assertFalse(history.observe(7, "{\"building\":true,\"result\":\"IN_PROGRESS\",\"duration\":0,\"buildNumber\":7}"));
+        assertTrue(history.observe(7, finished(7, "FAILURE")));
+        assertFalse(history.observe(7, finished(7, "FAILURE")), "a build is recorded once");
+
+        BuildHistory.Record record = history.find(7);
+        assertEquals(BuildHistory.Result.FAILURE, record.getResult());
+        assertEquals("abc123", record.getCommitSha());
+        assertEquals(List.of("src/Main.java"), record.getFiles());
+        assertEquals(1500, record.getDurationMillis());
+        assertTrue(record.toBuildStatus().contains("\"result\":\"FAILURE\""), record.toBuildStatus());
+        history.close();
+    }
+
+    @Test
+    void concurrentObserversAllRecordTheCommit() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int number = 1; number <= 20; number++) {
+                CommitWorkflow workflow = new CommitWorkflow("w" + number, List.of("src/Main.java"), "msg");
+                workflow.setCommitSha("sha" + number);
+                workflow.setBuildNumber(number);
+                history.buildStarted(workflow);
+
+                // e.g. the COMPLETED and FINALIZED webhooks, a status read and the poller at once,
+                // all held at the append lock so whichever is let in first writes the record
+                int build = number;
+                List<Future<Boolean>> observers = new ArrayList<>();
+                synchronized (history) {
+                    for (int i = 0; i < 4; i++) {
+                        observers.add(pool.submit(() -> history.observe(build, finished(build, "SUCCESS"))));
+                    }
+                    awaitBlocked(4);
+                }
+                int appended = 0;
+                for (Future<Boolean> observer : observers) {
+                    appended += observer.get(5, TimeUnit.SECONDS) ? 1 : 0;
+                }
+
+                assertEquals(1, appended);
+                assertEquals("sha" + number, history.find(number).getCommitSha());
+            }
+        } finally {
+            pool.shutdownNow();
+            history.close();
+        }
+    }
+
+    private static void awaitBlocked(int threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            long blocked = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getState() == Thread.State.BLOCKED)
+                    .filter(thread -> thread.getName().startsWith("pool-"))
+                    .count();
+            if (blocked >= threads) {
+                return;
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void timesBuildsFromJenkinsTimestampNotWhenTheyAreSeen() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        long startedAt = System.currentTimeMillis() - 86_400_000L;
+        history.observe(3, "{\"building\":false,\"result\":\"SUCCESS\",\"duration\":1500,\"timestamp\":"
+                + startedAt + ",\"buildNumber\":3,\"url\":\"http://jenkins/job/xpg/3/\"}");
+
+        BuildHistory.Record record = history.find(3);
+        assertEquals(startedAt, record.getStartedAt());
+        assertEquals(startedAt + 1500, record.getFinishedAt());
+        assertTrue(record.toBuildStatus().contains("\"timestamp\":" + startedAt), record.toBuildStatus());
+        history.close();
+    }
+
+    @Test
+    void truncatesFieldsTooLongForTheRecordFormat() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        String longPath = "src/" + "é".repeat(40_000) + ".java";
+        CommitWorkflow workflow = new CommitWorkflow("w1", List.of(longPath, "src/Short.java"), "msg");
+        workflow.setCommitSha("abc123");
+        workflow.setBuildNumber(8);
+        history.buildStarted(workflow);
+
+        assertTrue(history.observe(8, finished(8, "SUCCESS")));
+        history.close();
+
+        BuildHistory reopened = new BuildHistory(tempDir);
+        List<String> files = reopened.find(8).getFiles();
+        assertTrue(longPath.startsWith(files.get(0)));
+        assertTrue(files.get(0).getBytes(StandardCharsets.UTF_8).length <= 0xFFFF);
+        assertEquals("src/Short.java", files.get(1));
+        reopened.close();
+    }
+
+    @Test
+    void pagesWithSinceCursor() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        for (int number = 1; number <= 250; number++) {
+            history.observe(number, finished(number, "SUCCESS"));
+        }
+
+        List<BuildHistory.Record> first = history.page(0, 100);
+        assertEquals(100, first.size());
+        assertEquals(1, first.get(0).getBuildNumber());
+        List<BuildHistory.Record> last = history.page(200, 100);
+        assertEquals(50, last.size());
+        assertEquals(250, last.get(49).getBuildNumber());
+        assertTrue(history.page(250, 10).isEmpty());
+
+        String json = history.pageJson(240, 5);
+        assertTrue(json.contains("\"next\":245"), json);
+        assertTrue(json.contains("\"total\":250"), json);
+        history.close();
+    }
+
+    @Test
+    void reopensFromIndexAndDropsTornTail() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        for (int number = 1; number <= 20; number++) {
+            history.observe(number, finished(number, "SUCCESS"));
+        }
+        history.close();
+
+        // A crash mid-append leaves half a record behind
+        try (FileChannel data = FileChannel.open(tempDir.resolve("builds.dat"), StandardOpenOption.WRITE)) {
+            data.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 90, 1, 2, 3}), data.size());
+        }
+
+        BuildHistory reopened = new BuildHistory(tempDir);
+        assertEquals(20, reopened.size());
+        assertEquals(20, reopened.find(20).getBuildNumber());
+        assertTrue(reopened.observe(21, finished(21, "UNSTABLE")));
+        assertEquals(BuildHistory.Result.UNSTABLE, reopened.page(20, 1).get(0).getResult());
+        reopened.close();
+    }
+
+    @Test
+    void rebuildsLostIndexFromData() throws Exception {
+        BuildHistory history = new BuildHistory(tempDir);
+        for (int number = 1; number <= 5; number++) {
+            history.observe(number, finished(number, "SUCCESS"));
+        }
+        history.close();
+        Files.delete(tempDir.resolve("builds.idx"));
+
+        BuildHistory reopened = new BuildHistory(tempDir);
+        assertEquals(5, reopened.size());
+        assertEquals(5, reopened.recoveredRecords());
+        assertEquals(3, reopened.find(3).getBuildNumber());
+        assertNull(reopened.find(6));
+        reopened.close();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.devops;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildStateStoreTest {
+
+    private static String event(String job, int number, String phase, String status) {
+        return "{\"name\":\"" + job + "\",\"url\":\"job/" + job + "/\",\"build\":{\"full_url\":\"http://jenkins/job/"
+                + job + "/" + number + "/\",\"number\":" + number + ",\"queue_id\":" + (number + 100)
+                + ",\"timestamp\":" + (System.currentTimeMillis() - 5000) + ",\"phase\":\"" + phase + "\""
+                + (status == null ? "" : ",\"status\":\"" + status + "\"") + ",\"url\":\"job/" + job + "/" + number
+                + "/\",\"scm\":{},\"log\":\"\",\"artifacts\":{}}}";
+    }
+
+    @Test
+    void phasesMoveForwardAndBuildStatusFollows() {
+        BuildStateStore store = new BuildStateStore(100, 60_000);
+
+        BuildStateStore.Notification started = BuildStateStore.parse(event("xpg", 7, "STARTED", null));
+        assertEquals(107, started.getQueueId());
+        store.record(started);
+        BuildStateStore.BuildState running = store.get("xpg", 7);
+        assertFalse(running.isFinished());
+        assertTrue(running.getJson().contains("\"building\":true"), running.getJson());
+        assertTrue(running.getJson().contains("\"result\":\"IN_PROGRESS\""), running.getJson());
+
+        store.record(BuildStateStore.parse(event("xpg", 7, "COMPLETED", "FAILURE")));
+        BuildStateStore.BuildState completed = store.get("xpg", 7);
+        assertTrue(completed.isFinished());
+        assertTrue(completed.getJson().contains("\"result\":\"FAILURE\""), completed.getJson());
+        assertTrue(completed.getJson().contains("\"url\":\"http://jenkins/job/xpg/7/\""), completed.getJson());
+        assertNotEquals(running.getEtag(), completed.getEtag());
+
+        // A late STARTED delivery does not take the build back to running
+        store.record(BuildStateStore.parse(event("xpg", 7, "STARTED", null)));
+        assertEquals(BuildStateStore.Phase.COMPLETED, store.get("xpg", 7).getPhase());
+        assertNull(store.get("other-job", 7));
+    }
+
+    @Test
+    void staleRunningStateFallsBackToPolling() throws Exception {
+        BuildStateStore store = new BuildStateStore(100, 20);
+        store.record(BuildStateStore.parse(event("xpg", 3, "STARTED", null)));
+        store.record(BuildStateStore.parse(event("xpg", 4, "FINALIZED", "SUCCESS")));
+        Thread.sleep(50);
+
+        assertNull(store.get("xpg", 3));
+        assertTrue(store.get("xpg", 4).isFinished());
+    }
+
+    @Test
+    void oldestBuildsAreEvictedBeyondCapacity() {
+        BuildStateStore store = new BuildStateStore(3, 60_000);
+        for (int number = 1; number <= 5; number++) {
+            store.record(BuildStateStore.parse(event("xpg", number, "COMPLETED", "SUCCESS")));
+        }
+
+        assertEquals(3, store.size());
+        assertNull(store.get("xpg", 2));
+        assertTrue(store.get("xpg", 5).isFinished());
+    }
+
+    @Test
+    void payloadsWithoutBuildOrPhaseAreRejected() {
+        assertNull(BuildStateStore.parse("{\"name\":\"xpg\"}"));
+        assertNull(BuildStateStore.parse("{\"name\":\"xpg\",\"build\":{\"number\":1,\"phase\":\"PAUSED\"}}"));
+        assertNull(BuildStateStore.parse("{\"build\":{\"number\":1,\"phase\":\"STARTED\"}}"));
+    }
+}
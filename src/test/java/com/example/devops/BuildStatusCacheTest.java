@@ -0,0 +1,84 @@
+package com.example.devops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildStatusCacheTest {
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        BuildStatusCache cache = new BuildStatusCache(number -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "{\"building\":false,\"result\":\"SUCCESS\",\"buildNumber\":" + number + "}";
+        }, 1000, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BuildStatusCache.Entry>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(5)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            BuildStatusCache.Entry first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<BuildStatusCache.Entry> result : results) {
+                assertSame(first.getJson(), result.get(5, TimeUnit.SECONDS).getJson());
+            }
+            assertEquals(1, loads.get());
+            assertTrue(first.isFinished());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void finishedBuildsStayCachedWhileRunningBuildsExpire() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        BuildStatusCache cache = new BuildStatusCache(number -> {
+            loads.incrementAndGet();
+            return "{\"building\":" + (number == 1) + "}";
+        }, 0, 10);
+
+        cache.get(1);
+        cache.get(1);
+        assertEquals(2, loads.get(), "running build with zero TTL is reloaded");
+
+        cache.get(2);
+        cache.get(2);
+        assertEquals(3, loads.get(), "finished build is served from cache");
+        assertTrue(cache.get(2).getEtag().startsWith("\""));
+    }
+
+    @Test
+    void runningEntriesDoNotOutliveTheirBuilds() throws Exception {
+        AtomicInteger finishedUpTo = new AtomicInteger();
+        BuildStatusCache cache = new BuildStatusCache(
+                number -> "{\"building\":" + (number > finishedUpTo.get()) + "}", 0, 10);
+
+        for (int number = 1; number <= 50; number++) {
+            cache.get(number);
+        }
+        assertEquals(1, cache.runningCount(), "expired running builds are swept");
+
+        finishedUpTo.set(50);
+        cache.get(50);
+        assertTrue(cache.get(50).isFinished());
+        assertEquals(0, cache.runningCount(), "a finished build leaves the running map");
+    }
+}
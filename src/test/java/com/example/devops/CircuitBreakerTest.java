@@ -0,0 +1,56 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(5_000_000_000L);
+
+    @Test
+    void opensAfterConsecutiveFailuresAndLetsOneProbeThroughLater() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 10_000, clock::get);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(10_000, breaker.millisUntilProbe());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(1, breaker.openedCount());
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1_000, clock::get);
+        breaker.onFailure();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.openedCount());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.devops;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommitAdmissionTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final FakeQuota quota = new FakeQuota();
+
+    @Test
+    void eachClientGetsItsOwnBurstAndRefillRate() {
+        // 60 per minute = one token per second, bursts of 3
+        CommitAdmission admission = new CommitAdmission(60, 3, 100, 0, quota, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(admission.admit("10.0.0.1", 2).isAdmitted());
+        }
+        CommitAdmission.Decision limited = admission.admit("10.0.0.1", 2);
+        assertEquals(CommitAdmission.Outcome.CLIENT_LIMITED, limited.getOutcome());
+        assertEquals(1, limited.getRetryAfterSeconds());
+
+        // Another client is unaffected
+        assertTrue(admission.admit("10.0.0.2", 2).isAdmitted());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(admission.admit("10.0.0.1", 2).isAdmitted());
+        assertEquals(CommitAdmission.Outcome.CLIENT_LIMITED, admission.admit("10.0.0.1", 2).getOutcome());
+
+        StringBuilder metrics = new StringBuilder();
+        admission.appendPrometheusMetrics(metrics);
+        assertTrue(metrics.toString().contains("commit_admission_total{outcome=\"client_limited\"} 2"));
+    }
+
+    @Test
+    void githubQuotaBelowReserveRejectsUntilTheWindowResets() {
+        CommitAdmission admission = new CommitAdmission(600, 10, 100, 50, quota, clock::get);
+
+        quota.remaining = 53;
+        quota.secondsUntilReset = 120;
+        assertTrue(admission.admit("10.0.0.1", 2).isAdmitted());
+
+        quota.remaining = 51;
+        CommitAdmission.Decision limited = admission.admit("10.0.0.1", 2);
+        assertEquals(CommitAdmission.Outcome.QUOTA_LIMITED, limited.getOutcome());
+        assertEquals(120, limited.getRetryAfterSeconds());
+
+        // The rejected call did not use up the client's own tokens
+        quota.remaining = -1;
+        for (int i = 0; i < 9; i++) {
+            assertTrue(admission.admit("10.0.0.1", 2).isAdmitted());
+        }
+
+        StringBuilder metrics = new StringBuilder();
+        admission.appendPrometheusMetrics(metrics);
+        assertTrue(metrics.toString().contains("commit_admission_total{outcome=\"admitted\"} 10"));
+        assertTrue(metrics.toString().contains("commit_admission_total{outcome=\"quota_limited\"} 1"));
+    }
+
+    @Test
+    void releasedCallsGiveTheirTokenAndBudgetBack() {
+        CommitAdmission admission = new CommitAdmission(60, 1, 1, 0, quota, clock::get);
+        quota.remaining = 100;
+        quota.secondsUntilReset = 3600;
+
+        CommitAdmission.Decision first = admission.admit("10.0.0.1", 2);
+        assertTrue(first.isAdmitted());
+        assertEquals(CommitAdmission.Outcome.CLIENT_LIMITED, admission.admit("10.0.0.1", 2).getOutcome());
+        assertEquals(CommitAdmission.Outcome.QUOTA_LIMITED, admission.admit("10.0.0.2", 2).getOutcome());
+
+        // e.g. the workflow queue was full and the commit never ran
+        admission.release(first);
+        CommitAdmission.Decision second = admission.admit("10.0.0.1", 2);
+        assertTrue(second.isAdmitted(), "the client's token and the global budget were returned");
+
+        admission.release(second);
+        assertTrue(admission.admit("10.0.0.2", 2).isAdmitted());
+    }
+
+    @Test
+    void remainingQuotaIsSpreadOverTheWindow() {
+        CommitAdmission admission = new CommitAdmission(6000, 100, 2, 0, quota, clock::get);
+
+        // 20 calls left for 60 seconds at 2 calls per commit: one commit every 6 seconds, bursts of 2
+        quota.remaining = 20;
+        quota.secondsUntilReset = 60;
+        assertTrue(admission.admit("a", 2).isAdmitted());
+        assertTrue(admission.admit("b", 2).isAdmitted());
+        CommitAdmission.Decision limited = admission.admit("c", 2);
+        assertEquals(CommitAdmission.Outcome.QUOTA_LIMITED, limited.getOutcome());
+        assertEquals(6, limited.getRetryAfterSeconds());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertTrue(admission.admit("c", 2).isAdmitted());
+    }
+
+    private static final class FakeQuota implements CommitAdmission.Quota {
+        private volatile long remaining = -1;
+        private volatile long secondsUntilReset = 3600;
+
+        @Override
+        public long remaining() {
+            return remaining;
+        }
+
+        @Override
+        public long secondsUntilReset() {
+            return secondsUntilReset;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.devops;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsoleEventParserTest {
+
+    static final String CONSOLE = "Started by remote host 127.0.0.1\n"
+            + "[Pipeline] Start of Pipeline\n"
+            + "[Pipeline] node\n"
+            + "[Pipeline] {\n"
+            + "[Pipeline] stage\n"
+            + "[Pipeline] { (Checkout)\n"
+            + "[Pipeline] git\n"
+            + "[Pipeline] }\n"
+            + "[Pipeline] // stage\n"
+            + "[Pipeline] stage\n"
+            + "[Pipeline] { (Unit Tests)\n"
+            + "[Pipeline] withEnv\n"
+            + "[Pipeline] {\n"
+            + "[INFO] Tests run: 2, Failures: 0, Errors: 0, Skipped: 0, Time elapsed: 0.1 s - in com.example.devops.AppTest\r\n"
+            + "[ERROR] Tests run: 3, Failures: 1, Errors: 0, Skipped: 1, Time elapsed: 0.2 s <<< FAILURE! - in com.example.devops.CacheTest\n"
+            + "[ERROR] com.example.devops.CacheTest.evicts:42 expected: <1> but was: <2>\n"
+            + "[INFO]\n"
+            + "[INFO] Results:\n"
+            + "[ERROR] Tests run: 5, Failures: 1, Errors: 0, Skipped: 1\n"
+            + "[Pipeline] }\n"
+            + "[Pipeline] }\n"
+            + "[Pipeline] stage\n"
+            + "[Pipeline] { (Deploy)\n"
+            + "Stage \"Deploy\" skipped due to earlier failure(s)\n"
+            + "[Pipeline] }\n"
+            + "[Pipeline] }\n"
+            + "[Pipeline] End of Pipeline\n"
+            + "ERROR: script returned exit code 1\n"
+            + "Finished: FAILURE\n";
+
+    @Test
+    void parsesStagesTestsErrorsAndResultAcrossArbitraryChunks() {
+        for (int chunkSize : new int[] {1, 7, 64, CONSOLE.length()}) {
+            ConsoleEventParser parser = new ConsoleEventParser();
+            for (int start = 0; start < CONSOLE.length(); start += chunkSize) {
+                int end = Math.min(CONSOLE.length(), start + chunkSize);
+                parser.feed(CONSOLE.substring(start, end), end);
+            }
+            parser.finish();
+            String json = parser.toJson(9);
+
+            assertEquals("FAILURE", parser.getResult());
+            assertTrue(json.contains("{\"name\":\"Checkout\",\"status\":\"SUCCESS\",\"startLine\":6,\"endLine\":8}"), json);
+            assertTrue(json.contains("{\"name\":\"Unit Tests\",\"status\":\"FAILED\",\"startLine\":11,\"endLine\":21}"), json);
+            assertTrue(json.contains("{\"name\":\"Deploy\",\"status\":\"SKIPPED\""), json);
+            // The module summary wins over the per-class lines it adds up
+            assertTrue(json.contains("\"tests\":{\"run\":5,\"failures\":1,\"errors\":0,\"skipped\":1}"), json);
+            assertTrue(json.contains("\"errors\":{\"blocks\":3,\"lines\":4"), json);
+            assertTrue(json.contains("{\"line\":15,\"stage\":\"Unit Tests\",\"lines\":[\"[ERROR] Tests run: 3"), json);
+            assertTrue(json.contains("{\"line\":28,\"lines\":[\"ERROR: script returned exit code 1\"]}"), json);
+        }
+    }
+
+    @Test
+    void runningBuildReportsOpenStage() {
+        ConsoleEventParser parser = new ConsoleEventParser();
+        String head = CONSOLE.substring(0, CONSOLE.indexOf("[INFO] Results"));
+        parser.feed(head, head.length());
+
+        String json = parser.toJson(9);
+        assertFalse(parser.isComplete());
+        assertEquals(head.length(), parser.getOffset());
+        assertTrue(json.contains("{\"name\":\"Unit Tests\",\"status\":\"RUNNING\",\"startLine\":11}"), json);
+        assertTrue(json.contains("\"tests\":{\"run\":5,\"failures\":1"), json);
+    }
+
+    @Test
+    void keepsBoundedErrorDetail() {
+        ConsoleEventParser parser = new ConsoleEventParser();
+        StringBuilder console = new StringBuilder();
+        for (int block = 0; block < ConsoleEventParser.MAX_ERROR_BLOCKS * 3; block++) {
+            for (int line = 0; line < ConsoleEventParser.MAX_ERROR_LINES + 5; line++) {
+                console.append("[ERROR] failure ").append(block).append('.').append(line).append('\n');
+            }
+            console.append("[INFO] between\n");
+        }
+        parser.feed(console.toString(), console.length());
+        parser.finish();
+
+        String json = parser.toJson(1);
+        assertTrue(json.contains("\"blocks\":" + ConsoleEventParser.MAX_ERROR_BLOCKS * 3), json);
+        assertEquals(ConsoleEventParser.MAX_ERROR_BLOCKS, json.split("\"truncated\":true").length - 1);
+    }
+}
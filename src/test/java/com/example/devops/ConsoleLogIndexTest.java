@@ -0,0 +1,89 @@
+package com.example.devops;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsoleLogIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path mavenLog(int modules) throws Exception {
+        StringBuilder log = new StringBuilder("Started by user admin\r\n");
+        for (int module = 1; module <= modules; module++) {
+            log.append("[INFO] Building module-").append(module).append(" 1.0.0\n");
+            log.append("[INFO] Tests run: ").append(module).append(", Failures: 0, Errors: 0, Skipped: 0\n");
+            if (module % 25 == 0) {
+                log.append("[ERROR] NullPointerException in Module").append(module).append("Test.setUp\n");
+            }
+            log.append('\n');
+        }
+        log.append("Finished: FAILURE");
+        Path file = tempDir.resolve("build.log");
+        Files.write(file, log.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void pagesLinesByNumber() throws Exception {
+        ConsoleLogIndex index = ConsoleLogIndex.build(mavenLog(100));
+
+        assertEquals(1 + 100 * 3 + 4 + 1, index.getLineCount());
+        assertEquals(List.of("Started by user admin", "[INFO] Building module-1 1.0.0"), index.lines(1, 2));
+        assertEquals(List.of("[INFO] Tests run: 1, Failures: 0, Errors: 0, Skipped: 0", ""), index.lines(3, 2));
+        assertEquals(List.of("Finished: FAILURE"), index.lines(index.getLineCount(), 50));
+        assertTrue(index.lines(index.getLineCount() + 1, 10).isEmpty());
+    }
+
+    @Test
+    void searchesByWordPrefixAndVerifiesPhrase() throws Exception {
+        ConsoleLogIndex index = ConsoleLogIndex.build(mavenLog(100));
+
+        List<Integer> errors = index.search("nullpointer", 100);
+        assertEquals(4, errors.size());
+        assertTrue(index.lines(errors.get(0), 1).get(0).startsWith("[ERROR] NullPointerException in Module25Test"));
+
+        assertEquals(100, index.search("Tests run", 1000).size());
+        assertEquals(1, index.search("tests run: 42,", 10).size());
+        assertEquals(10, index.search("[INFO] Building", 10).size());
+        assertTrue(index.search("run tests", 10).isEmpty(), "tokens match but the phrase does not");
+        assertTrue(index.search("gradle", 10).isEmpty());
+    }
+
+    @Test
+    void refusesPrefixesThatExpandToTooManyWords() throws Exception {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < ConsoleLogIndex.MAX_PREFIX_TOKENS * 2; i++) {
+            log.append("[INFO] entry").append(i).append(" done\n");
+        }
+        Path file = tempDir.resolve("wide.log");
+        Files.write(file, log.toString().getBytes(StandardCharsets.UTF_8));
+        ConsoleLogIndex index = ConsoleLogIndex.build(file);
+
+        assertThrows(ConsoleLogIndex.QueryTooBroadException.class, () -> index.search("e", 10));
+        assertThrows(ConsoleLogIndex.QueryTooBroadException.class, () -> index.searchJson("info entry", 10));
+        assertEquals(List.of(1001), index.search("entry1000", 10));
+        // entry10, entry100..109 and entry1000..1099 are within the cap
+        assertEquals(111, index.search("entry10", 1000).size());
+        assertEquals(List.of(11), index.search("entry10 done", 10));
+    }
+
+    @Test
+    void searchJsonReportsTruncation() throws Exception {
+        ConsoleLogIndex index = ConsoleLogIndex.build(mavenLog(10));
+
+        String json = index.searchJson("Building", 3);
+        assertTrue(json.contains("\"line\":2,\"text\":\"[INFO] Building module-1 1.0.0\""), json);
+        assertTrue(json.contains("\"truncated\":true"), json);
+        assertEquals(List.of("error", "x_1", "ab"), ConsoleLogIndex.tokenize("[ERROR] x_1 -- ab"));
+    }
+}
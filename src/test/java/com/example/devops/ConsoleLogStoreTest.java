@@ -0,0 +1,169 @@
+package com.example.devops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConsoleLogStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesSingleByteRanges() {
+        assertArrayEquals(new long[] {0, 9}, ConsoleLogStore.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[] {90, 99}, ConsoleLogStore.parseRange("bytes=90-", 100));
+        assertArrayEquals(new long[] {80, 99}, ConsoleLogStore.parseRange("bytes=-20", 100));
+        assertArrayEquals(new long[] {50, 99}, ConsoleLogStore.parseRange("bytes=50-500", 100));
+        assertEquals(0, ConsoleLogStore.parseRange("bytes=100-", 100).length);
+        assertNull(ConsoleLogStore.parseRange("bytes=0-1,5-6", 100));
+        assertNull(ConsoleLogStore.parseRange("lines=0-1", 100));
+    }
+
+    @Test
+    void downloadsOnceAndEvictsBeyondBudget() throws Exception {
+        AtomicInteger downloads = new AtomicInteger();
+        ConsoleLogStore store = new ConsoleLogStore(tempDir, (number, target) -> {
+            downloads.incrementAndGet();
+            Files.write(target, ("log of build " + number + "\n").repeat(10).getBytes(StandardCharsets.UTF_8));
+        }, 200, Duration.ofDays(1));
+
+        Path first = store.fetch(1);
+        assertEquals(first, store.fetch(1));
+        assertEquals(1, downloads.get());
+        Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+        store.fetch(2);
+        // Each log is 150 bytes; a 200-byte budget keeps only the newest one
+        assertNull(store.find(1));
+        assertEquals(2, downloads.get());
+    }
+
+    @Test
+    void compressesOnceAndEvictsGzipCopyWithLog() throws Exception {
+        ConsoleLogStore store = new ConsoleLogStore(tempDir, (number, target) ->
+                Files.write(target, "[INFO] line\n".repeat(1000).getBytes(StandardCharsets.UTF_8)),
+                1024 * 1024, Duration.ofDays(1));
+
+        Path log = store.fetch(1);
+        Path compressed = store.gzipped(1, log);
+        assertTrue(Files.size(compressed) < Files.size(log) / 10);
+        assertEquals(Files.getLastModifiedTime(compressed), Files.getLastModifiedTime(store.gzipped(1, log)));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertArrayEquals(Files.readAllBytes(log), in.readAllBytes());
+        }
+
+        Files.setLastModifiedTime(log, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+        store.evict();
+        assertFalse(Files.exists(compressed));
+    }
+
+    @Test
+    void indexIsBuiltOnceAndRebuiltWhenTheLogChanges() throws Exception {
+        ConsoleLogStore store = new ConsoleLogStore(tempDir, (number, target) ->
+                Files.writeString(target, "one\ntwo\nthree\n"), 1024 * 1024, Duration.ofDays(1), 2);
+        Path file = store.fetch(5);
+
+        ConsoleLogIndex index = store.index(5, file);
+        assertEquals(3, index.getLineCount());
+        assertTrue(index == store.index(5, file), "cached index is reused");
+
+        Files.writeString(file, "one\ntwo\nthree\nfour\n");
+        assertEquals(4, store.index(5, file).getLineCount());
+    }
+
+    @Test
+    void revalidationWithAMatchingEtagGetsNotModified() throws Exception {
+        ConsoleLogStore store = new ConsoleLogStore(tempDir, (number, target) ->
+                Files.write(target, "[INFO] line\n".repeat(1000).getBytes(StandardCharsets.UTF_8)),
+                1024 * 1024, Duration.ofDays(1));
+        Path log = store.fetch(3);
+
+        RecordedResponse full = new RecordedResponse();
+        store.serve(log, 3, null, null, null, false, full.proxy());
+        assertEquals(200, full.status);
+        String etag = full.headers.get("ETag");
+        RecordedResponse compressed = new RecordedResponse();
+        store.serve(log, 3, null, null, null, true, compressed.proxy());
+        String gzipEtag = compressed.headers.get("ETag");
+
+        RecordedResponse identity = new RecordedResponse();
+        store.serve(log, 3, null, null, etag, false, identity.proxy());
+        assertEquals(304, identity.status);
+        assertEquals(etag, identity.headers.get("ETag"));
+        assertEquals(0, identity.body.size());
+
+        RecordedResponse gzip = new RecordedResponse();
+        store.serve(log, 3, null, null, "\"other\", " + gzipEtag, true, gzip.proxy());
+        assertEquals(304, gzip.status);
+        assertEquals(gzipEtag, gzip.headers.get("ETag"));
+        assertEquals(0, gzip.body.size());
+
+        RecordedResponse stale = new RecordedResponse();
+        store.serve(log, 3, null, null, "\"log-3-1\"", false, stale.proxy());
+        assertEquals(200, stale.status);
+        assertEquals(Files.size(log), stale.body.size());
+    }
+
+    /** Records the status, headers and body a handler writes to an HttpServletResponse. */
+    private static final class RecordedResponse {
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private int status = 200;
+
+        HttpServletResponse proxy() {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                }
+
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "setStatus":
+                                status = (Integer) args[0];
+                                return null;
+                            case "setHeader":
+                                headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "getOutputStream":
+                                return out;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
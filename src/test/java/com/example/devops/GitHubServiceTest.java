@@ -0,0 +1,95 @@
+package com.example.devops;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GitHubServiceTest {
+
+    private static final int BULKHEAD_SLOTS = 8;
+
+    private GitHubStub stub;
+    private GitHubService github;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new GitHubStub(Config.GITHUB_OWNER, Config.GITHUB_REPO, Config.GITHUB_BRANCH, 1_000_000, 3600);
+        stub.start();
+        HttpClientRegistry.UpstreamClient client = new HttpClientRegistry.UpstreamClient("github", stub.baseUrl(),
+                HttpClient.Version.HTTP_1_1, BULKHEAD_SLOTS, new CircuitBreaker(5, 60_000));
+        github = new GitHubService(new HttpClientRegistry(client, client), stub.baseUrl());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop();
+    }
+
+    @Test
+    void batchLargerThanTheBulkheadUploadsBlobsInABoundedWindow() throws Exception {
+        // Slower than the bulkhead wait, so uploads beyond its slots would be refused as busy
+        stub.setLatency(Config.UPSTREAM_BULKHEAD_WAIT_MILLIS + 100, Config.UPSTREAM_BULKHEAD_WAIT_MILLIS + 100);
+        List<GitHubService.FileChange> files = new ArrayList<>();
+        for (int i = 0; i < BULKHEAD_SLOTS * 3; i++) {
+            files.add(new GitHubService.FileChange("batch/File" + i + ".java", "class File" + i + " {}"));
+        }
+
+        String commitSha = github.commitFiles(files, "Add a large batch");
+
+        assertNotNull(commitSha);
+        assertEquals(files.size(), stub.blobCount());
+        assertEquals(1, stub.commitCount());
+        assertNotNull(stub.fileSha("code/batch/File" + (files.size() - 1) + ".java"));
+        assertTrue(GitHubService.BLOB_UPLOADS_IN_FLIGHT < BULKHEAD_SLOTS);
+        assertTrue(stub.maxConcurrentRequests() <= GitHubService.BLOB_UPLOADS_IN_FLIGHT,
+                "at most " + GitHubService.BLOB_UPLOADS_IN_FLIGHT + " uploads in flight, saw " + stub.maxConcurrentRequests());
+    }
+
+    @Test
+    void shaLookupRevalidatesWithIfNoneMatch() throws Exception {
+        String sha = stub.pushFile("code/Main.java");
+        String key = GitHubContentCache.key("code/Main.java", Config.GITHUB_BRANCH);
+        // An earlier lookup left the SHA and its ETag in the cache
+        github.getContentCache().put(key, sha, "\"" + sha + "\"");
+
+        github.commitFile("Main.java", "class Main {}", "Update Main");
+
+        assertEquals(1, stub.notModifiedCount());
+        assertEquals(1, github.getContentCache().hitCount());
+        assertEquals(0, github.getContentCache().missCount());
+        assertEquals(1, stub.commitCount(), "the PUT used the revalidated SHA and was accepted first time");
+        assertEquals(stub.fileSha("code/Main.java"), github.getContentCache().get(key).getSha());
+
+        StringBuilder metrics = new StringBuilder();
+        github.getContentCache().appendPrometheusMetrics(metrics);
+        assertTrue(metrics.toString().contains("github_contents_cache_hit_ratio 1.0\n"), metrics.toString());
+    }
+
+    @Test
+    void staleShaIsDroppedAndLookedUpAgain() throws Exception {
+        String old = stub.pushFile("code/Main.java");
+        String key = GitHubContentCache.key("code/Main.java", Config.GITHUB_BRANCH);
+        github.getContentCache().put(key, old, null);
+        // The file changes on GitHub behind the cache's back
+        String current = stub.pushFile("code/Main.java");
+
+        github.commitFile("Main.java", "class Main {}", "Update Main");
+
+        // The 409 cleared the cached SHA: the retry fetched the current one in full, not via 304
+        assertEquals(0, stub.notModifiedCount());
+        assertEquals(1, github.getContentCache().missCount());
+        assertEquals(1, stub.commitCount());
+        String written = stub.fileSha("code/Main.java");
+        assertNotEquals(current, written);
+        assertEquals(written, github.getContentCache().get(key).getSha());
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Stub of the GitHub API for one repository: GET and PUT on
+ * /repos/{owner}/{repo}/contents/{path}, and the Git Data calls a batch commit makes
+ * (read and fast-forward the branch ref, read a commit, create blobs, trees and commits).
+ *
+ * It keeps the blob SHA of every file it has been sent and enforces GitHub's update rules
+ * (422 when an existing file is written without its SHA, 409 on a stale SHA), answers
+ * If-None-Match with 304, and sends X-RateLimit-* headers for a budget that resets every
+ * {@code windowSeconds}.
+ */
+class GitHubStub extends StubServer {
+
+    private final String contentsPrefix;
+    private final String gitPrefix;
+    private final String branch;
+    private final Map<String, JsonArray> trees = new ConcurrentHashMap<>();
+    private final Map<String, JsonObject> gitCommits = new ConcurrentHashMap<>();
+    private final AtomicLong blobs = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private volatile String headSha;
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final AtomicLong shaSequence = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final int rateLimit;
+    private final int windowSeconds;
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis() / 1000);
+    private final AtomicLong windowUsed = new AtomicLong();
+
+    GitHubStub(String owner, String repo, int rateLimit, int windowSeconds) throws IOException {
+        this(owner, repo, "main", rateLimit, windowSeconds);
+    }
+
+    GitHubStub(String owner, String repo, String branch, int rateLimit, int windowSeconds) throws IOException {
+        super("github");
+        this.contentsPrefix = "/repos/" + owner + "/" + repo + "/contents/";
+        this.gitPrefix = "/repos/" + owner + "/" + repo + "/git/";
+        this.branch = branch;
+        this.rateLimit = rateLimit;
+        this.windowSeconds = windowSeconds;
+        this.headSha = nextSha();
+        JsonObject root = new JsonObject();
+        root.add("tree", shaObject(nextSha()));
+        gitCommits.put(headSha, root);
+    }
+
+    long commitCount() {
+        return commits.get();
+    }
+
+    long blobCount() {
+        return blobs.get();
+    }
+
+    /** Blob SHA of {@code file} (e.g. "code/App.java") on the branch, or null. */
+    String fileSha(String file) {
+        return files.get(file);
+    }
+
+    /** Writes {@code file} as if someone else had pushed it; returns its new blob SHA. */
+    String pushFile(String file) {
+        String sha = nextSha();
+        files.put(file, sha);
+        return sha;
+    }
+
+    /** Contents GETs answered 304 because If-None-Match matched. */
+    long notModifiedCount() {
+        return notModified.get();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        addRateLimitHeaders(exchange);
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith(gitPrefix)) {
+            gitData(exchange, exchange.getRequestMethod() + " " + path.substring(gitPrefix.length()));
+            return;
+        }
+        if (!path.startsWith(contentsPrefix)) {
+            respond(exchange, 404, "application/json", "{\"message\":\"Not Found\"}");
+            return;
+        }
+        String file = path.substring(contentsPrefix.length());
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                getContent(exchange, file);
+                break;
+            case "PUT":
+                putContent(exchange, file);
+                break;
+            default:
+                respond(exchange, 405, "application/json", "{\"message\":\"Method Not Allowed\"}");
+        }
+    }
+
+    private void getContent(HttpExchange exchange, String file) throws IOException {
+        String sha = files.get(file);
+        if (sha == null) {
+            respond(exchange, 404, "application/json", "{\"message\":\"Not Found\"}");
+            return;
+        }
+        String etag = "\"" + sha + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            // The JDK server may drop the connection after a bodiless 304; say so, or the
+            // client can reuse it for the next request and read nothing back
+            exchange.getResponseHeaders().set("Connection", "close");
+            respond(exchange, 304, null, "");
+            return;
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("type", "file");
+        body.addProperty("path", file);
+        body.addProperty("sha", sha);
+        respond(exchange, 200, "application/json", body.toString());
+    }
+
+    private void putContent(HttpExchange exchange, String file) throws IOException {
+        JsonObject request = JsonParser.parseString(readBody(exchange)).getAsJsonObject();
+        JsonElement given = request.get("sha");
+        String givenSha = given == null || given.isJsonNull() ? null : given.getAsString();
+
+        String newSha = nextSha();
+        int status;
+        synchronized (files) {
+            String current = files.get(file);
+            if (current != null && givenSha == null) {
+                status = 422;
+            } else if (current != null && !current.equals(givenSha)) {
+                status = 409;
+            } else {
+                status = current == null ? 201 : 200;
+                files.put(file, newSha);
+            }
+        }
+        if (status >= 400) {
+            respond(exchange, status, "application/json",
+                    "{\"message\":\"" + file + " does not match " + givenSha + "\"}");
+            return;
+        }
+
+        commits.incrementAndGet();
+        JsonObject content = new JsonObject();
+        content.addProperty("path", file);
+        content.addProperty("sha", newSha);
+        JsonObject commit = new JsonObject();
+        commit.addProperty("sha", nextSha());
+        JsonObject body = new JsonObject();
+        body.add("content", content);
+        body.add("commit", commit);
+        respond(exchange, status, "application/json", body.toString());
+    }
+
+    private void gitData(HttpExchange exchange, String call) throws IOException {
+        String ref = "refs/heads/" + branch;
+        if (call.equals("GET " + ref)) {
+            JsonObject body = new JsonObject();
+            body.addProperty("ref", ref);
+            body.add("object", shaObject(headSha));
+            respond(exchange, 200, "application/json", body.toString());
+        } else if (call.startsWith("GET commits/") && gitCommits.containsKey(call.substring("GET commits/".length()))) {
+            respond(exchange, 200, "application/json", gitCommits.get(call.substring("GET commits/".length())).toString());
+        } else if (call.equals("POST blobs")) {
+            readBody(exchange);
+            blobs.incrementAndGet();
+            respond(exchange, 201, "application/json", shaObject(nextSha()).toString());
+        } else if (call.equals("POST trees")) {
+            JsonObject request = JsonParser.parseString(readBody(exchange)).getAsJsonObject();
+            String sha = nextSha();
+            trees.put(sha, request.getAsJsonArray("tree"));
+            respond(exchange, 201, "application/json", shaObject(sha).toString());
+        } else if (call.equals("POST commits")) {
+            JsonObject request = JsonParser.parseString(readBody(exchange)).getAsJsonObject();
+            String sha = nextSha();
+            JsonObject commit = new JsonObject();
+            commit.add("tree", shaObject(request.get("tree").getAsString()));
+            commit.add("parents", request.get("parents"));
+            gitCommits.put(sha, commit);
+            respond(exchange, 201, "application/json", shaObject(sha).toString());
+        } else if (call.equals("PATCH " + ref)) {
+            updateRef(exchange, JsonParser.parseString(readBody(exchange)).getAsJsonObject().get("sha").getAsString());
+        } else {
+            respond(exchange, 404, "application/json", "{\"message\":\"Not Found\"}");
+        }
+    }
+
+    /** Fast-forwards the branch to {@code sha} and applies its tree to the stored files. */
+    private void updateRef(HttpExchange exchange, String sha) throws IOException {
+        JsonObject commit = gitCommits.get(sha);
+        synchronized (files) {
+            if (commit == null || !commit.getAsJsonArray("parents").get(0).getAsString().equals(headSha)) {
+                respond(exchange, 422, "application/json", "{\"message\":\"Update is not a fast forward\"}");
+                return;
+            }
+            JsonArray tree = trees.getOrDefault(commit.getAsJsonObject("tree").get("sha").getAsString(), new JsonArray());
+            for (JsonElement entry : tree) {
+                JsonObject file = entry.getAsJsonObject();
+                files.put(file.get("path").getAsString(), file.get("sha").getAsString());
+            }
+            headSha = sha;
+        }
+        commits.incrementAndGet();
+        JsonObject body = new JsonObject();
+        body.addProperty("ref", "refs/heads/" + branch);
+        body.add("object", shaObject(sha));
+        respond(exchange, 200, "application/json", body.toString());
+    }
+
+    private static JsonObject shaObject(String sha) {
+        JsonObject object = new JsonObject();
+        object.addProperty("sha", sha);
+        return object;
+    }
+
+    private void addRateLimitHeaders(HttpExchange exchange) {
+        long now = System.currentTimeMillis() / 1000;
+        long start = windowStart.get();
+        if (now >= start + windowSeconds && windowStart.compareAndSet(start, now)) {
+            windowUsed.set(0);
+        }
+        long remaining = Math.max(0, rateLimit - windowUsed.incrementAndGet());
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(rateLimit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(windowStart.get() + windowSeconds));
+    }
+
+    private String nextSha() {
+        return String.format("%040x", shaSequence.incrementAndGet());
+    }
+}
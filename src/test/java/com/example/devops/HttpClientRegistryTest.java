@@ -0,0 +1,226 @@
+package com.example.devops;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientRegistryTest {
+
+    @Test
+    void servicesBuiltFromOneRegistryShareTheUpstreamClient() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"building\":false,\"result\":\"SUCCESS\",\"duration\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            HttpClientRegistry.UpstreamClient client =
+                    new HttpClientRegistry.UpstreamClient("jenkins", baseUrl, HttpClient.Version.HTTP_1_1);
+            HttpClientRegistry registry = new HttpClientRegistry(client, client);
+            SimpleMeterRegistry meters = new SimpleMeterRegistry();
+            registry.bindTo(meters);
+
+            JenkinsService first = new JenkinsService(registry, baseUrl, "app");
+            JenkinsService second = new JenkinsService(registry, baseUrl, "app");
+            first.getBuildStatus(1);
+            second.getBuildStatus(2);
+            second.getBuildStatus(3);
+
+            assertEquals(3, meters.get("upstream.requests")
+                    .tags("upstream", "jenkins", "operation", "status", "status", "200").timer().count());
+            StringBuilder metrics = new StringBuilder();
+            registry.appendPrometheusMetrics(metrics);
+            assertTrue(metrics.toString().contains("upstream_http_requests_total{upstream=\"jenkins\",version=\"HTTP_1_1\"} 3"),
+                    metrics.toString());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void defaultRegistryHandsOutOneClientPerUpstream() {
+        HttpClientRegistry registry = HttpClientRegistry.getDefault();
+
+        assertSame(registry, HttpClientRegistry.getDefault());
+        assertSame(registry.github(), HttpClientRegistry.getDefault().github());
+        assertSame(registry.jenkins(), HttpClientRegistry.getDefault().jenkins());
+    }
+
+    @Test
+    void timesCallsByOperationAndReadsRateLimitHeaders() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4321");
+            exchange.getResponseHeaders().add("X-RateLimit-Reset", "1700000000");
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            HttpClientRegistry.UpstreamClient client =
+                    new HttpClientRegistry.UpstreamClient("github", baseUrl, HttpClient.Version.HTTP_1_1);
+            SimpleMeterRegistry meters = new SimpleMeterRegistry();
+            new HttpClientRegistry(client, client).bindTo(meters);
+
+            client.send("getFileSha", HttpRequest.newBuilder(URI.create(baseUrl + "/contents/x")).build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            assertEquals(1, meters.get("upstream.requests")
+                    .tags("upstream", "github", "operation", "getFileSha", "status", "404").timer().count());
+            assertEquals(4321, client.getRateLimitRemaining());
+            assertEquals(1700000000L, client.getRateLimitReset());
+            assertEquals(4321.0, meters.get("github.ratelimit.remaining").gauge().value());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void openCircuitRefusesCallsWithoutSendingThem() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(502, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            HttpClientRegistry.UpstreamClient client = new HttpClientRegistry.UpstreamClient(
+                    "jenkins", baseUrl, HttpClient.Version.HTTP_1_1, 4, new CircuitBreaker(2, 60_000));
+            SimpleMeterRegistry meters = new SimpleMeterRegistry();
+            new HttpClientRegistry(client, client).bindTo(meters);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/json")).build();
+
+            client.send("status", request, HttpResponse.BodyHandlers.discarding());
+            client.send("status", request, HttpResponse.BodyHandlers.discarding());
+            UpstreamUnavailableException refused = assertThrows(UpstreamUnavailableException.class,
+                    () -> client.send("status", request, HttpResponse.BodyHandlers.discarding()));
+
+            assertEquals(2, received.get());
+            assertEquals("jenkins", refused.getUpstream());
+            assertEquals(60, refused.getRetryAfterSeconds());
+            assertEquals(2.0, meters.get("upstream.circuit.state").tag("upstream", "jenkins").gauge().value());
+            assertEquals(1.0, meters.get("upstream.rejected").tags("upstream", "jenkins", "reason", "circuit_open")
+                    .functionCounter().count());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void fullBulkheadRefusesExtraConcurrentCalls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            HttpClientRegistry.UpstreamClient client = new HttpClientRegistry.UpstreamClient(
+                    "github", baseUrl, HttpClient.Version.HTTP_1_1, 1, new CircuitBreaker(5, 60_000));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/slow")).build();
+
+            CompletableFuture<HttpResponse<Void>> first = client.sendAsync("getFileSha", request,
+                    HttpResponse.BodyHandlers.discarding());
+            assertThrows(UpstreamUnavailableException.class,
+                    () -> client.send("getFileSha", request, HttpResponse.BodyHandlers.discarding()));
+
+            release.countDown();
+            assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, client.send("getFileSha", request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void interruptedProbeDoesNotBlockTheCircuit() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch probeArrived = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            int call = received.incrementAndGet();
+            if (call == 2) {
+                probeArrived.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(call == 1 ? 502 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort();
+            AtomicLong now = new AtomicLong();
+            CircuitBreaker breaker = new CircuitBreaker(1, 1000, now::get);
+            HttpClientRegistry.UpstreamClient client = new HttpClientRegistry.UpstreamClient(
+                    "jenkins", baseUrl, HttpClient.Version.HTTP_1_1, 4, breaker);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/json")).build();
+
+            client.send("status", request, HttpResponse.BodyHandlers.discarding());
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+            // The probe's caller is interrupted (e.g. on shutdown) while Jenkins is still answering
+            AtomicReference<Throwable> outcome = new AtomicReference<>();
+            Thread prober = new Thread(() -> {
+                try {
+                    client.send("status", request, HttpResponse.BodyHandlers.discarding());
+                } catch (Throwable e) {
+                    outcome.set(e);
+                }
+            });
+            prober.start();
+            assertTrue(probeArrived.await(10, TimeUnit.SECONDS));
+            prober.interrupt();
+            prober.join(10_000);
+            release.countDown();
+            assertInstanceOf(InterruptedException.class, outcome.get());
+
+            assertEquals(200, client.send("status", request, HttpResponse.BodyHandlers.discarding()).statusCode());
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.devops;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class JenkinsCrumbCacheTest {
+
+    @Test
+    void crumbIsReusedUntilTtlExpires() throws Exception {
+        MutableClock clock = new MutableClock();
+        JenkinsCrumbCache cache = new JenkinsCrumbCache(Duration.ofSeconds(60), clock);
+        AtomicInteger loads = new AtomicInteger();
+        JenkinsCrumbCache.Loader loader = () -> new JenkinsCrumbCache.Crumb(
+                "Jenkins-Crumb", "c" + loads.incrementAndGet(), "JSESSIONID=abc");
+
+        assertEquals("c1", cache.get("admin", loader).getValue());
+        assertEquals("c1", cache.get("admin", loader).getValue());
+        assertEquals(1, loads.get());
+
+        clock.advance(Duration.ofSeconds(61));
+        assertEquals("c2", cache.get("admin", loader).getValue());
+        assertEquals("JSESSIONID=abc", cache.get("admin", loader).getCookie());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateForcesReloadAndUsersAreIsolated() throws Exception {
+        JenkinsCrumbCache cache = new JenkinsCrumbCache(Duration.ofMinutes(5), new MutableClock());
+        AtomicInteger loads = new AtomicInteger();
+        JenkinsCrumbCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return JenkinsCrumbCache.Crumb.NONE;
+        };
+
+        assertFalse(cache.get("admin", loader).isPresent());
+        cache.get("other", loader);
+        assertEquals(2, loads.get());
+
+        cache.invalidate("admin");
+        cache.get("admin", loader);
+        cache.get("other", loader);
+        assertEquals(3, loads.get());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
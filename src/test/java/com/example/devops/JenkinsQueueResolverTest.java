@@ -0,0 +1,101 @@
+package com.example.devops;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JenkinsQueueResolverTest {
+
+    @Test
+    void resolvesManyItemsWithOneQueuePollPerTick() throws Exception {
+        FakeQueue queue = new FakeQueue();
+        JenkinsQueueResolver resolver = new JenkinsQueueResolver(queue, 10, 40, 5_000);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        resolver.bindTo(meters);
+
+        queue.waiting.addAll(Set.of(1L, 2L, 3L));
+        List<CompletableFuture<Integer>> futures = List.of(
+                resolver.resolve(1), resolver.resolve(2), resolver.resolve(3));
+
+        Thread.sleep(200);
+        queue.start(1, 101);
+        queue.start(2, 102);
+        queue.start(3, 103);
+
+        assertEquals(101, futures.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(102, futures.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(103, futures.get(2).get(5, TimeUnit.SECONDS));
+
+        // Each item is looked up individually only after it leaves the queue
+        assertEquals(3, queue.itemCalls.get());
+        assertTrue(queue.queueCalls.get() < 3 * 20, "queue polls: " + queue.queueCalls.get());
+        assertEquals(0, resolver.pendingCount());
+        assertEquals(3, meters.get("jenkins.queue.wait").tag("outcome", "started").timer().count());
+    }
+
+    @Test
+    void itemThatNeverStartsTimesOut() {
+        FakeQueue queue = new FakeQueue();
+        queue.waiting.add(9L);
+        JenkinsQueueResolver resolver = new JenkinsQueueResolver(queue, 10, 20, 100);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> resolver.resolve(9).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    void startedNotificationResolvesWithoutPolling() throws Exception {
+        FakeQueue queue = new FakeQueue();
+        queue.waiting.addAll(Set.of(4L, 5L));
+        JenkinsQueueResolver resolver = new JenkinsQueueResolver(queue, 10_000, 10_000, 60_000);
+
+        CompletableFuture<Integer> waiting = resolver.resolve(4);
+        resolver.started(4, 104);
+        assertEquals(104, waiting.get(1, TimeUnit.SECONDS));
+
+        // A notification that beats resolve() is remembered for it
+        resolver.started(5, 105);
+        assertEquals(105, resolver.resolve(5).get(1, TimeUnit.SECONDS));
+
+        assertEquals(0, queue.itemCalls.get());
+        assertEquals(0, resolver.pendingCount());
+    }
+
+    private static final class FakeQueue implements JenkinsQueueResolver.QueueApi {
+        private final Set<Long> waiting = ConcurrentHashMap.newKeySet();
+        private final ConcurrentHashMap<Long, Integer> started = new ConcurrentHashMap<>();
+        private final AtomicInteger queueCalls = new AtomicInteger();
+        private final AtomicInteger itemCalls = new AtomicInteger();
+
+        void start(long itemId, int buildNumber) {
+            started.put(itemId, buildNumber);
+            waiting.remove(itemId);
+        }
+
+        @Override
+        public Set<Long> queuedItemIds() {
+            queueCalls.incrementAndGet();
+            return new HashSet<>(waiting);
+        }
+
+        @Override
+        public Integer itemBuildNumber(long itemId) {
+            itemCalls.incrementAndGet();
+            return started.get(itemId);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.devops;
+
+import java.io.StringReader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JenkinsServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void buildStatusSkipsFieldsOutsideTheProjection() {
+        String fullDocument = "{\"_class\":\"WorkflowRun\",\"actions\":[{\"causes\":[{\"shortDescription\":\"x\"}]},{}],"
+                + "\"building\":true,\"changeSets\":[{\"items\":[{\"msg\":\"fix\",\"paths\":[]}]}],"
+                + "\"culprits\":[],\"duration\":0,\"result\":null,\"timestamp\":1700000000000,"
+                + "\"url\":\"http://jenkins/job/xpg/7/\"}";
+
+        JsonObject status = JsonParser.parseString(new JenkinsService().toBuildStatus(fullDocument, 7)).getAsJsonObject();
+
+        assertTrue(status.get("building").getAsBoolean());
+        assertEquals("IN_PROGRESS", status.get("result").getAsString());
+        assertEquals(0, status.get("duration").getAsLong());
+        assertEquals(1700000000000L, status.get("timestamp").getAsLong());
+        assertEquals(7, status.get("buildNumber").getAsInt());
+        assertEquals("http://jenkins/job/xpg/7/", status.get("url").getAsString());
+    }
+
+    @Test
+    void readsQueueDocuments() throws Exception {
+        Set<Long> ids = JenkinsService.readQueuedItemIds(new JsonReader(new StringReader(
+                "{\"_class\":\"hudson.model.Queue\",\"items\":[{\"id\":3},{\"_class\":\"x\",\"id\":5}]}")));
+        assertEquals(Set.of(3L, 5L), ids);
+
+        JenkinsService.QueueItem waiting = JenkinsService.readQueueItem(new JsonReader(new StringReader(
+                "{\"cancelled\":false,\"executable\":null}")));
+        assertFalse(waiting.isCancelled());
+        assertNull(waiting.getBuildNumber());
+
+        JenkinsService.QueueItem started = JenkinsService.readQueueItem(new JsonReader(new StringReader(
+                "{\"_class\":\"LeftItem\",\"cancelled\":false,\"executable\":{\"_class\":\"Run\",\"number\":42}}")));
+        assertEquals(42, started.getBuildNumber());
+    }
+
+    @Test
+    void buildStagesKeepsTimingsAndDropsLinks() throws Exception {
+        String describe = "{\"_links\":{\"self\":{\"href\":\"/job/xpg/9/wfapi/describe\"}},\"id\":\"9\","
+                + "\"status\":\"FAILED\",\"startTimeMillis\":1000,\"durationMillis\":9000,\"stages\":["
+                + "{\"_links\":{},\"id\":\"6\",\"name\":\"Build\",\"execNode\":\"\",\"status\":\"SUCCESS\","
+                + "\"startTimeMillis\":1100,\"durationMillis\":4000,\"pauseDurationMillis\":0},"
+                + "{\"name\":\"Test\",\"status\":\"FAILED\",\"startTimeMillis\":5100,\"durationMillis\":3000,"
+                + "\"error\":{\"message\":\"script returned exit code 1\",\"type\":\"hudson.AbortException\"}}]}";
+
+        JsonObject stages = JsonParser.parseString(
+                JenkinsService.toBuildStages(new JsonReader(new StringReader(describe)), 9)).getAsJsonObject();
+
+        assertFalse(stages.get("building").getAsBoolean());
+        assertEquals("FAILED", stages.get("status").getAsString());
+        assertEquals(9, stages.get("buildNumber").getAsInt());
+        assertFalse(stages.has("_links"));
+        JsonObject test = stages.getAsJsonArray("stages").get(1).getAsJsonObject();
+        assertEquals("Test", test.get("name").getAsString());
+        assertEquals(5100, test.get("startTimeMillis").getAsLong());
+        assertEquals(3000, test.get("durationMillis").getAsLong());
+        assertEquals("script returned exit code 1", test.get("error").getAsString());
+        assertFalse(test.has("execNode"));
+
+        String running = "{\"status\":\"IN_PROGRESS\",\"stages\":[{\"name\":\"Build\",\"status\":\"IN_PROGRESS\"}]}";
+        assertTrue(JsonParser.parseString(JenkinsService.toBuildStages(new JsonReader(new StringReader(running)), 10))
+                .getAsJsonObject().get("building").getAsBoolean());
+    }
+
+    @Test
+    void consoleChunksFollowTextSizeUntilTheBuildStopsWriting() throws Exception {
+        JenkinsStub stub = new JenkinsStub("xpg", 1, 0, 1500, 20);
+        stub.start();
+        try {
+            HttpClientRegistry.UpstreamClient client =
+                    new HttpClientRegistry.UpstreamClient("jenkins", stub.baseUrl(), HttpClient.Version.HTTP_1_1);
+            JenkinsService jenkins = new JenkinsService(new HttpClientRegistry(client, client), stub.baseUrl(), "xpg");
+
+            // A finished build comes back whole, and asking past its end returns nothing new
+            JenkinsService.ConsoleChunk finished = jenkins.getConsoleChunk(1, 0);
+            assertFalse(finished.hasMoreData());
+            assertEquals(finished.getText().getBytes(StandardCharsets.UTF_8).length, finished.getNextOffset());
+            JenkinsService.ConsoleChunk after = jenkins.getConsoleChunk(1, finished.getNextOffset());
+            assertEquals("", after.getText());
+            assertEquals(finished.getNextOffset(), after.getNextOffset());
+
+            // A running build is read in deltas, each starting at the previous X-Text-Size
+            int running = stub.startBuild("SUCCESS");
+            StringBuilder console = new StringBuilder();
+            long offset = 0;
+            boolean more = true;
+            int chunks = 0;
+            while (more) {
+                JenkinsService.ConsoleChunk chunk = jenkins.getConsoleChunk(running, offset);
+                assertTrue(chunk.getNextOffset() >= offset);
+                console.append(chunk.getText());
+                offset = chunk.getNextOffset();
+                more = chunk.hasMoreData();
+                chunks++;
+                if (more) {
+                    Thread.sleep(200);
+                }
+            }
+            assertTrue(chunks > 1, "expected the running build to be read in several deltas");
+            assertEquals(jenkins.getConsoleOutput(running), console.toString());
+            assertTrue(console.toString().endsWith("Finished: SUCCESS\n"));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    @Test
+    void crumbIssuerErrorsAreNotTakenForDisabledCsrf() throws Exception {
+        JenkinsStub stub = new JenkinsStub("xpg", 1, 60_000, 60_000, 5);
+        stub.start();
+        try {
+            HttpClientRegistry.UpstreamClient client =
+                    new HttpClientRegistry.UpstreamClient("jenkins", stub.baseUrl(), HttpClient.Version.HTTP_1_1);
+            JenkinsService jenkins = new JenkinsService(new HttpClientRegistry(client, client), stub.baseUrl(), "xpg");
+
+            stub.setCrumbIssuerStatus(503);
+            Exception refused = assertThrows(Exception.class, jenkins::triggerBuild);
+            assertTrue(refused.getMessage().contains("crumb issuer returned 503"), refused.getMessage());
+            assertEquals(0, stub.triggeredCount());
+
+            // Once the issuer recovers, the next trigger fetches a real crumb
+            stub.setCrumbIssuerStatus(200);
+            assertNotNull(jenkins.triggerBuild());
+
+            // A 404 means CSRF protection is off: the build is triggered without a crumb
+            stub.setCrumbIssuerStatus(404);
+            JenkinsService withoutCsrf = new JenkinsService(new HttpClientRegistry(client, client), stub.baseUrl(), "xpg");
+            assertNotNull(withoutCsrf.triggerBuild());
+            assertEquals(2, stub.triggeredCount());
+        } finally {
+            stub.stop();
+        }
+    }
+
+    @Test
+    void downloadRefusesALogJenkinsIsStillWriting() throws Exception {
+        JenkinsStub stub = new JenkinsStub("xpg", 1, 0, 60_000, 5);
+        stub.start();
+        try {
+            HttpClientRegistry.UpstreamClient client =
+                    new HttpClientRegistry.UpstreamClient("jenkins", stub.baseUrl(), HttpClient.Version.HTTP_1_1);
+            JenkinsService jenkins = new JenkinsService(new HttpClientRegistry(client, client), stub.baseUrl(), "xpg");
+
+            Path closed = tempDir.resolve("closed.log");
+            jenkins.downloadConsoleOutput(1, closed);
+            assertEquals(jenkins.getConsoleOutput(1), Files.readString(closed));
+
+            int running = stub.startBuild("SUCCESS");
+            Path open = tempDir.resolve("open.log");
+            assertThrows(ConsoleLogStore.LogStillWritingException.class,
+                    () -> jenkins.downloadConsoleOutput(running, open));
+            assertFalse(Files.exists(open));
+        } finally {
+            stub.stop();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Stub of the Jenkins endpoints the app calls for one job: crumb issuer, build trigger,
+ * queue and queue item, build api/json, wfapi/describe, consoleText and
+ * logText/progressiveText.
+ *
+ * Builds 1..{@code finishedBuilds} exist from the start and have finished. A triggered
+ * build waits {@code queueMillis} in the queue and then runs for {@code buildMillis};
+ * its console grows linearly while it runs. Console text is generated the way a Maven
+ * pipeline prints it: stage markers, Surefire summaries and a final "Finished:" line.
+ * The same four stages each take a quarter of {@code buildMillis} in wfapi/describe.
+ */
+class JenkinsStub extends StubServer {
+
+    static final String CRUMB_FIELD = "Jenkins-Crumb";
+    static final String CRUMB = "stub-crumb";
+    private static final String[] STAGES = {"Checkout", "Build", "Test", "Deploy"};
+
+    private final String jobPrefix;
+    private final int queueMillis;
+    private final int buildMillis;
+    private final int linesPerStage;
+    private final AtomicLong queueIds = new AtomicLong();
+    private final AtomicInteger buildNumbers;
+    private final Map<Long, QueueItem> queue = new ConcurrentHashMap<>();
+    private final Map<Integer, Build> builds = new ConcurrentHashMap<>();
+    private volatile int crumbIssuerStatus = 200;
+
+    JenkinsStub(String job, int finishedBuilds, int queueMillis, int buildMillis, int linesPerStage) throws IOException {
+        super("jenkins");
+        this.jobPrefix = "/job/" + job + "/";
+        this.queueMillis = queueMillis;
+        this.buildMillis = buildMillis;
+        this.linesPerStage = linesPerStage;
+        this.buildNumbers = new AtomicInteger(finishedBuilds);
+        long longAgo = System.currentTimeMillis() - 3_600_000L;
+        for (int number = 1; number <= finishedBuilds; number++) {
+            builds.put(number, new Build(number, longAgo, number % 10 == 0 ? "FAILURE" : "SUCCESS"));
+        }
+    }
+
+    /** Starts a new build right away, skipping trigger and queue; returns its number. */
+    int startBuild(String result) {
+        int number = buildNumbers.incrementAndGet();
+        builds.put(number, new Build(number, System.currentTimeMillis(), result));
+        return number;
+    }
+
+    /** Highest build number started so far. */
+    int latestBuildNumber() {
+        return buildNumbers.get();
+    }
+
+    long triggeredCount() {
+        return queueIds.get();
+    }
+
+    /** Status the crumb issuer answers with; 404 means CSRF protection is off and no crumb is needed. */
+    void setCrumbIssuerStatus(int status) {
+        this.crumbIssuerStatus = status;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/crumbIssuer/api/json") && crumbIssuerStatus != 200) {
+            respond(exchange, crumbIssuerStatus, "text/plain", "Crumb issuer unavailable");
+        } else if (path.equals("/crumbIssuer/api/json")) {
+            exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID.stub=session; Path=/; HttpOnly");
+            respond(exchange, 200, "application/json",
+                    "{\"crumb\":\"" + CRUMB + "\",\"crumbRequestField\":\"" + CRUMB_FIELD + "\"}");
+        } else if (path.equals(jobPrefix + "build") && method.equals("POST")) {
+            trigger(exchange);
+        } else if (path.equals("/queue/api/json")) {
+            queue(exchange);
+        } else if (path.startsWith("/queue/item/")) {
+            queueItem(exchange, Long.parseLong(path.split("/")[3]));
+        } else if (path.startsWith(jobPrefix)) {
+            String[] rest = path.substring(jobPrefix.length()).split("/", 2);
+            Build build = rest[0].matches("\\d+") ? builds.get(Integer.parseInt(rest[0])) : null;
+            String resource = rest.length > 1 ? rest[1] : "";
+            if (build == null) {
+                respond(exchange, 404, "text/plain", "Not Found");
+            } else if (resource.equals("api/json")) {
+                respond(exchange, 200, "application/json", build.toJson(baseUrl() + jobPrefix));
+            } else if (resource.equals("wfapi/describe")) {
+                respond(exchange, 200, "application/json", build.describe());
+            } else if (resource.equals("consoleText")) {
+                respond(exchange, 200, "text/plain; charset=utf-8", build.console());
+            } else if (resource.equals("logText/progressiveText")) {
+                progressiveText(exchange, build);
+            } else {
+                respond(exchange, 404, "text/plain", "Not Found");
+            }
+        } else {
+            respond(exchange, 404, "text/plain", "Not Found");
+        }
+    }
+
+    private void trigger(HttpExchange exchange) throws IOException {
+        if (crumbIssuerStatus != 404 && !CRUMB.equals(exchange.getRequestHeaders().getFirst(CRUMB_FIELD))) {
+            respond(exchange, 403, "text/plain", "No valid crumb was included in the request");
+            return;
+        }
+        long id = queueIds.incrementAndGet();
+        queue.put(id, new QueueItem(System.currentTimeMillis()));
+        exchange.getResponseHeaders().set("Location", baseUrl() + "/queue/item/" + id + "/");
+        respond(exchange, 201, null, "");
+    }
+
+    private void queue(HttpExchange exchange) throws IOException {
+        JsonArray items = new JsonArray();
+        queue.forEach((id, item) -> {
+            if (startedBuild(item) == null) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("id", id);
+                items.add(entry);
+            }
+        });
+        JsonObject body = new JsonObject();
+        body.add("items", items);
+        respond(exchange, 200, "application/json", body.toString());
+    }
+
+    private void queueItem(HttpExchange exchange, long id) throws IOException {
+        QueueItem item = queue.get(id);
+        if (item == null) {
+            respond(exchange, 404, "text/plain", "Not Found");
+            return;
+        }
+        Build build = startedBuild(item);
+        JsonObject body = new JsonObject();
+        body.addProperty("cancelled", false);
+        if (build != null) {
+            JsonObject executable = new JsonObject();
+            executable.addProperty("number", build.number);
+            body.add("executable", executable);
+        }
+        respond(exchange, 200, "application/json", body.toString());
+    }
+
+    private void progressiveText(HttpExchange exchange, Build build) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        long start = 0;
+        if (query != null && query.startsWith("start=")) {
+            start = Long.parseLong(query.substring("start=".length()));
+        }
+        byte[] console = build.console().getBytes(StandardCharsets.UTF_8);
+        int from = (int) Math.min(start, console.length);
+        exchange.getResponseHeaders().set("X-Text-Size", String.valueOf(console.length));
+        if (build.isBuilding()) {
+            exchange.getResponseHeaders().set("X-More-Data", "true");
+        }
+        respond(exchange, 200, "text/plain; charset=utf-8",
+                new String(console, from, console.length - from, StandardCharsets.UTF_8));
+    }
+
+    /** The item's build once its queue time is over, starting it on first sight. */
+    private Build startedBuild(QueueItem item) {
+        if (item.build != null) {
+            return item.build;
+        }
+        long now = System.currentTimeMillis();
+        if (now - item.enqueuedAt < queueMillis) {
+            return null;
+        }
+        synchronized (item) {
+            if (item.build == null) {
+                int number = buildNumbers.incrementAndGet();
+                Build build = new Build(number, now, number % 10 == 0 ? "FAILURE" : "SUCCESS");
+                builds.put(number, build);
+                item.build = build;
+            }
+            return item.build;
+        }
+    }
+
+    private static final class QueueItem {
+        private final long enqueuedAt;
+        private volatile Build build;
+
+        QueueItem(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private final class Build {
+        private final int number;
+        private final long startedAt;
+        private final String result;
+        private final String fullConsole;
+
+        Build(int number, long startedAt, String result) {
+            this.number = number;
+            this.startedAt = startedAt;
+            this.result = result;
+            this.fullConsole = renderConsole(number, result);
+        }
+
+        boolean isBuilding() {
+            return System.currentTimeMillis() - startedAt < buildMillis;
+        }
+
+        String console() {
+            long elapsed = System.currentTimeMillis() - startedAt;
+            if (elapsed >= buildMillis) {
+                return fullConsole;
+            }
+            int cut = fullConsole.lastIndexOf('\n', (int) (fullConsole.length() * elapsed / buildMillis));
+            return cut < 0 ? "" : fullConsole.substring(0, cut + 1);
+        }
+
+        String toJson(String jobUrl) {
+            boolean building = isBuilding();
+            JsonObject body = new JsonObject();
+            body.addProperty("_class", "org.jenkinsci.plugins.workflow.job.WorkflowRun");
+            body.add("actions", new JsonArray());
+            body.add("artifacts", new JsonArray());
+            body.addProperty("building", building);
+            body.addProperty("displayName", "#" + number);
+            body.addProperty("duration", building ? 0 : buildMillis);
+            body.addProperty("estimatedDuration", buildMillis);
+            body.addProperty("fullDisplayName", "stub #" + number);
+            body.addProperty("id", String.valueOf(number));
+            body.addProperty("number", number);
+            if (building) {
+                body.add("result", null);
+            } else {
+                body.addProperty("result", result);
+            }
+            body.addProperty("timestamp", startedAt);
+            body.addProperty("url", jobUrl + number + "/");
+            body.add("changeSets", new JsonArray());
+            return body.toString();
+        }
+
+        /** Stages that have started so far; a failed build fails in Test and never runs Deploy. */
+        String describe() {
+            long elapsed = Math.min(System.currentTimeMillis() - startedAt, buildMillis);
+            boolean building = isBuilding();
+            boolean failed = result.equals("FAILURE");
+            long stageMillis = buildMillis / STAGES.length;
+
+            JsonArray stages = new JsonArray();
+            for (int i = 0; i < STAGES.length; i++) {
+                long start = i * stageMillis;
+                if (start > elapsed) {
+                    break;
+                }
+                boolean done = !building || elapsed >= start + stageMillis;
+                String status;
+                if (!done) {
+                    status = "IN_PROGRESS";
+                } else if (failed && STAGES[i].equals("Test")) {
+                    status = "FAILED";
+                } else if (failed && STAGES[i].equals("Deploy")) {
+                    status = "NOT_EXECUTED";
+                } else {
+                    status = "SUCCESS";
+                }
+                JsonObject stage = new JsonObject();
+                stage.add("_links", new JsonObject());
+                stage.addProperty("id", String.valueOf(6 + i * 5));
+                stage.addProperty("name", STAGES[i]);
+                stage.addProperty("execNode", "");
+                stage.addProperty("status", status);
+                stage.addProperty("startTimeMillis", startedAt + start);
+                stage.addProperty("durationMillis", done ? stageMillis : elapsed - start);
+                stage.addProperty("pauseDurationMillis", 0);
+                if (status.equals("FAILED")) {
+                    JsonObject error = new JsonObject();
+                    error.addProperty("message", "script returned exit code 1");
+                    error.addProperty("type", "hudson.AbortException");
+                    stage.add("error", error);
+                }
+                stages.add(stage);
+            }
+
+            JsonObject body = new JsonObject();
+            body.add("_links", new JsonObject());
+            body.addProperty("id", String.valueOf(number));
+            body.addProperty("name", "#" + number);
+            body.addProperty("status", building ? "IN_PROGRESS" : failed ? "FAILED" : "SUCCESS");
+            body.addProperty("startTimeMillis", startedAt);
+            body.addProperty("endTimeMillis", building ? 0 : startedAt + buildMillis);
+            body.addProperty("durationMillis", elapsed);
+            body.addProperty("queueDurationMillis", queueMillis);
+            body.addProperty("pauseDurationMillis", 0);
+            body.add("stages", stages);
+            return body.toString();
+        }
+    }
+
+    private String renderConsole(int number, String result) {
+        StringBuilder console = new StringBuilder();
+        console.append("Started by remote host 127.0.0.1\n");
+        console.append("[Pipeline] Start of Pipeline\n");
+        for (String stage : STAGES) {
+            console.append("[Pipeline] { (").append(stage).append(")\n");
+            console.append("[Pipeline] stage\n");
+            for (int line = 1; line <= linesPerStage; line++) {
+                console.append("[INFO] build #").append(number).append(' ').append(stage.toLowerCase())
+                        .append(" step ").append(line).append(" of ").append(linesPerStage).append('\n');
+            }
+            if (stage.equals("Test")) {
+                boolean failed = result.equals("FAILURE");
+                console.append("[INFO] Tests run: 24, Failures: ").append(failed ? 1 : 0)
+                        .append(", Errors: 0, Skipped: 1\n");
+                if (failed) {
+                    console.append("[ERROR] Failures:\n");
+                    console.append("[ERROR]   AppTest.healthEndpoint:42 expected: <200> but was: <500>\n");
+                }
+            }
+            console.append("[Pipeline] }\n");
+        }
+        console.append("[Pipeline] End of Pipeline\n");
+        console.append("Finished: ").append(result).append('\n');
+        return console.toString();
+    }
+}
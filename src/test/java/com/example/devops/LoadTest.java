@@ -0,0 +1,317 @@
+package com.example.devops;
+
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import spark.Spark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test: the real app, in process, against local GitHub and Jenkins stubs.
+ *
+ * DISABLED by default. Run it on its own with the load-test profile, which works offline:
+ *   mvn -Pload-test test
+ *   mvn -Pload-test test -Dload.clients=64 -Dload.durationSeconds=60 -Dload.latencyMillis=50 -Dload.errorRate=0.02
+ *
+ * Knobs (system properties):
+ *   load.clients          — concurrent client threads                        (default: 16)
+ *   load.durationSeconds  — measured run length                              (default: 20)
+ *   load.warmupSeconds    — traffic before measuring starts                  (default: 5)
+ *   load.mix              — relative weights of commit,status,log            (default: 1,6,3)
+ *   load.latencyMillis    — upstream stub latency, uniformly 0.5x..1.5x      (default: 20)
+ *   load.errorRate        — fraction of upstream calls answered with 503     (default: 0)
+ *   load.finishedBuilds   — finished builds Jenkins knows at startup         (default: 50)
+ *   load.commitRatePerMinute — per-client commit admission rate; every load client
+ *                           shares one address, so the app default would reject
+ *                           almost every commit                              (default: 60000)
+ *   load.githubRateLimit  — GitHub stub calls per hourly window; commits are paced against
+ *                           it, so GitHub's real 5000 caps commits at ~40/min (default: 1000000)
+ *
+ * Prints throughput and p50/p95/p99 latency per operation. With no injected errors every
+ * response must be a success (or, for commits, a 429/503 rejection under overload); with
+ * injected errors the numbers are only reported, since open circuits refuse calls.
+ *
+ * Config reads its settings once per JVM, so this test must not share a JVM with AppTest;
+ * the profile runs it alone.
+ */
+public class LoadTest {
+
+    private static final String OWNER = "load-owner";
+    private static final String REPO = "load-repo";
+    private static final String JOB = "load-job";
+
+    @Test
+    @EnabledIfSystemProperty(named = "load.enabled", matches = "true")
+    void commitStatusAndLogTraffic() throws Exception {
+        int clients = Integer.getInteger("load.clients", 16);
+        int durationSeconds = Integer.getInteger("load.durationSeconds", 20);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 5);
+        int latencyMillis = Integer.getInteger("load.latencyMillis", 20);
+        double errorRate = Double.parseDouble(System.getProperty("load.errorRate", "0"));
+        int finishedBuilds = Integer.getInteger("load.finishedBuilds", 50);
+        int[] mix = Arrays.stream(System.getProperty("load.mix", "1,6,3").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+        GitHubStub github = new GitHubStub(OWNER, REPO, Integer.getInteger("load.githubRateLimit", 1_000_000), 3600);
+        JenkinsStub jenkins = new JenkinsStub(JOB, finishedBuilds, 500, 5000, 200);
+        for (StubServer stub : new StubServer[] {github, jenkins}) {
+            stub.setLatency(latencyMillis / 2, latencyMillis * 3 / 2);
+            stub.setErrorRate(errorRate);
+            stub.start();
+        }
+
+        int appPort = freePort();
+        configureApp(appPort, github, jenkins);
+        Thread server = new Thread(() -> App.main(new String[0]), "load-test-app");
+        server.setDaemon(true);
+        server.start();
+        awaitHealthy(appPort);
+
+        String baseUrl = "http://localhost:" + appPort;
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("commit", new Operation(mix[0]));
+        operations.put("status", new Operation(mix[1]));
+        operations.put("log", new Operation(mix[2]));
+
+        System.out.printf(Locale.ROOT, "Load test: %d clients, %ds warm-up, %ds measured, upstream latency ~%dms, error rate %.3f%n",
+                clients, warmupSeconds, durationSeconds, latencyMillis, errorRate);
+        run(client, baseUrl, jenkins, operations, clients, warmupSeconds, false);
+        long started = System.nanoTime();
+        run(client, baseUrl, jenkins, operations, clients, durationSeconds, true);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        report(operations, elapsedSeconds);
+        System.out.printf(Locale.ROOT, "Upstreams: github %d requests (%d commits, %d injected errors), "
+                        + "jenkins %d requests (%d builds triggered, %d injected errors)%n",
+                github.requestCount(), github.commitCount(), github.injectedErrorCount(),
+                jenkins.requestCount(), jenkins.triggeredCount(), jenkins.injectedErrorCount());
+
+        Spark.stop();
+        Spark.awaitStop();
+        github.stop();
+        jenkins.stop();
+
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Operation operation = entry.getValue();
+            if (errorRate > 0) {
+                // Injected failures may legitimately open the circuits and refuse a whole operation
+                continue;
+            }
+            if (operation.weight > 0) {
+                assertTrue(operation.latencies.size() > 0, "no successful " + entry.getKey() + " requests");
+            }
+            assertEquals(0, operation.failures.sum(), "failed " + entry.getKey() + " requests");
+        }
+    }
+
+    /** Points Config at the stubs; must run before anything touches Config or App. */
+    private static void configureApp(int appPort, GitHubStub github, JenkinsStub jenkins) throws Exception {
+        System.setProperty("APP_PORT", String.valueOf(appPort));
+        System.setProperty("GITHUB_API_URL", github.baseUrl());
+        System.setProperty("GITHUB_TOKEN", "load-test-token");
+        System.setProperty("GITHUB_OWNER", OWNER);
+        System.setProperty("GITHUB_REPO", REPO);
+        System.setProperty("JENKINS_URL", jenkins.baseUrl());
+        System.setProperty("JENKINS_USER", "load");
+        System.setProperty("JENKINS_TOKEN", "load-test-token");
+        System.setProperty("JENKINS_JOB", JOB);
+        System.setProperty("LOG_CACHE_DIR", Files.createTempDirectory("load-test-logs").toString());
+        System.setProperty("BUILD_HISTORY_DIR", Files.createTempDirectory("load-test-history").toString());
+        System.setProperty("COMMIT_RATE_PER_MINUTE", System.getProperty("load.commitRatePerMinute", "60000"));
+        System.setProperty("COMMIT_BURST", "1000");
+
+        if (!Config.GITHUB_API_URL.equals(github.baseUrl())) {
+            throw new IllegalStateException("Config was loaded before the stubs started; "
+                    + "run LoadTest in its own JVM (mvn -Pload-test test)");
+        }
+    }
+
+    private static void run(HttpClient client, String baseUrl, JenkinsStub jenkins, Map<String, Operation> operations,
+                            int clients, int seconds, boolean measure) throws InterruptedException {
+        Operation[] byWeight = operations.values().toArray(new Operation[0]);
+        String[] names = operations.keySet().toArray(new String[0]);
+        int totalWeight = Arrays.stream(byWeight).mapToInt(operation -> operation.weight).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int clientId = c;
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int iteration = 0;
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(totalWeight);
+                    int index = 0;
+                    while (pick >= byWeight[index].weight) {
+                        pick -= byWeight[index].weight;
+                        index++;
+                    }
+                    HttpRequest request = request(names[index], baseUrl, jenkins, clientId, iteration++);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    if (measure) {
+                        byWeight[index].record(names[index], status, elapsed);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+    }
+
+    private static HttpRequest request(String operation, String baseUrl, JenkinsStub jenkins, int clientId, int iteration) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case "commit": {
+                String query = "code=" + URLEncoder.encode("// client " + clientId + " change " + iteration + "\n",
+                        StandardCharsets.UTF_8)
+                        + "&filename=load-" + clientId + "-" + (iteration % 4) + ".txt"
+                        + "&message=" + URLEncoder.encode("Load test commit " + iteration, StandardCharsets.UTF_8);
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/commit?" + query))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build();
+            }
+            case "status":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/build-status/"
+                        + (1 + random.nextInt(jenkins.latestBuildNumber())))).GET().build();
+            default:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/build-log/"
+                        + (1 + random.nextInt(jenkins.latestBuildNumber()))))
+                        .header("Accept-Encoding", "gzip").GET().build();
+        }
+    }
+
+    private static void report(Map<String, Operation> operations, double elapsedSeconds) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %9s %9s %8s %10s %9s %9s %9s %9s%n",
+                "op", "ok", "rejected", "failed", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long totalOk = 0;
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Operation operation = entry.getValue();
+            long[] sorted = operation.latencies.sorted();
+            totalOk += sorted.length;
+            System.out.printf(Locale.ROOT, "%-8s %9d %9d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey(), sorted.length, operation.rejected.sum(), operation.failures.sum(), sorted.length / elapsedSeconds,
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95),
+                    percentileMillis(sorted, 0.99), percentileMillis(sorted, 1.0));
+        }
+        System.out.printf(Locale.ROOT, "%-8s %9d %9s %8s %10.1f%n%n", "total", totalOk, "", "", totalOk / elapsedSeconds);
+    }
+
+    /** Nearest-rank percentile of sorted nanosecond samples, in milliseconds. */
+    static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)] / 1e6;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitHealthy(int port) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/health").openConnection();
+                connection.setConnectTimeout(1000);
+                connection.setReadTimeout(1000);
+                if (connection.getResponseCode() == 200) {
+                    return;
+                }
+            } catch (Exception ignored) {
+                // Retry until the Spark server is ready.
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("App did not start on port " + port + " in time.");
+    }
+
+    // ── Operation ─────────────────────────────────────────────────────────────
+
+    /**
+     * Successful latencies and failure count of one kind of request. A commit turned away
+     * with 429 (admission control) or 503 (workflow queue full) is an expected answer
+     * under overload: it is counted as rejected, not failed, and its latency is not sampled.
+     */
+    private static final class Operation {
+        private final int weight;
+        private final Samples latencies = new Samples();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        void record(String name, int status, long elapsedNanos) {
+            if (status == (name.equals("commit") ? 202 : 200)) {
+                latencies.add(elapsedNanos);
+            } else if (name.equals("commit") && (status == 429 || status == 503)) {
+                rejected.increment();
+            } else {
+                failures.increment();
+            }
+        }
+    }
+
+    /** Growable array of nanosecond samples. */
+    private static final class Samples {
+        private long[] values = new long[4096];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
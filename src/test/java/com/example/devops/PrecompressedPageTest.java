@@ -0,0 +1,26 @@
+package com.example.devops;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrecompressedPageTest {
+
+    @Test
+    void selectsGzipOnlyWhenAccepted() {
+        PrecompressedPage page = new PrecompressedPage("text/html", "<p>hello</p>".repeat(200));
+
+        PrecompressedPage.Variant plain = page.select(null);
+        PrecompressedPage.Variant gzip = page.select("br, gzip;q=0.8");
+        assertNull(plain.getEncoding());
+        assertEquals("gzip", gzip.getEncoding());
+        assertTrue(gzip.getBody().length < plain.getBody().length);
+        assertNotEquals(plain.getEtag(), gzip.getEtag());
+        assertSame(gzip, page.select("gzip"), "variants are built once and reused");
+        assertNull(page.select("gzip;q=0").getEncoding());
+    }
+}
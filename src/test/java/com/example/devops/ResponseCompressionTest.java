@@ -0,0 +1,36 @@
+package com.example.devops;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseCompressionTest {
+
+    @Test
+    void parsesAcceptEncoding() {
+        assertTrue(ResponseCompression.accepts("deflate, gzip", "gzip"));
+        assertTrue(ResponseCompression.accepts("*", "gzip"));
+        assertFalse(ResponseCompression.accepts("identity", "gzip"));
+        assertFalse(ResponseCompression.accepts("gzip; q=0", "gzip"));
+    }
+
+    @Test
+    void explicitCodingOverridesTheWildcard() {
+        assertTrue(ResponseCompression.accepts("*;q=0, gzip", "gzip"));
+        assertFalse(ResponseCompression.accepts("*, gzip;q=0", "gzip"));
+        assertFalse(ResponseCompression.accepts("*;q=0, gzip", "deflate"));
+        assertTrue(ResponseCompression.accepts("br, *;q=0.5", "deflate"));
+    }
+
+    @Test
+    void prefersGzipAboveTheSizeThreshold() {
+        ResponseCompression compression = new ResponseCompression(1024);
+        assertEquals("gzip", compression.encodingFor("deflate, gzip", 4096));
+        assertEquals("deflate", compression.encodingFor("deflate", 4096));
+        assertNull(compression.encodingFor("gzip", 100), "small bodies are sent as-is");
+        assertNull(compression.encodingFor("br", 4096));
+    }
+}
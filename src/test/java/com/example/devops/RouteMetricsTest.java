@@ -0,0 +1,66 @@
+package com.example.devops;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RouteMetricsTest {
+
+    private static final List<RouteMetrics.Template> ROUTES = List.of(
+            new RouteMetrics.Template("options", "/*"),
+            new RouteMetrics.Template("get", "/"),
+            new RouteMetrics.Template("get", "/api/build-log/:number"),
+            new RouteMetrics.Template("get", "/api/builds/:number/events"));
+
+    @Test
+    void resolvesRouteTemplates() {
+        RouteMetrics metrics = new RouteMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), () -> ROUTES);
+        metrics.refresh();
+        assertEquals("/", metrics.resolve("GET", "/"));
+        assertEquals("/api/build-log/:number", metrics.resolve("GET", "/api/build-log/42"));
+        assertEquals("/api/builds/:number/events", metrics.resolve("GET", "/api/builds/42/events"));
+        assertEquals("/*", metrics.resolve("OPTIONS", "/api/commit"));
+        assertEquals(RouteMetrics.UNMATCHED, metrics.resolve("GET", "/api/builds/42"));
+    }
+
+    @Test
+    void unmatchedRequestsDoNotReReadTheRoutes() {
+        AtomicInteger reads = new AtomicInteger();
+        RouteMetrics metrics = new RouteMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), () -> {
+            reads.incrementAndGet();
+            return ROUTES;
+        });
+        assertEquals(RouteMetrics.UNMATCHED, metrics.resolve("GET", "/"), "nothing is matched before refresh");
+        metrics.refresh();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(RouteMetrics.UNMATCHED, metrics.resolve("GET", "/scan/" + i));
+        }
+        assertEquals("/", metrics.resolve("GET", "/"));
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    void recordsLatencyHistogramAndSizes() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        RouteMetrics metrics = new RouteMetrics(registry, () -> ROUTES);
+        metrics.record("GET", "/api/build-log/:number", 200, 5_000_000, -1, 2048);
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{method=\"GET\",route=\"/api/build-log/:number\",status=\"200\""));
+        assertTrue(scrape.contains("http_server_response_size_bytes_sum{method=\"GET\",route=\"/api/build-log/:number\",} 2048.0"));
+        assertTrue(!scrape.contains("http_server_request_size_bytes_count"), "unknown request size is skipped");
+    }
+
+    @Test
+    void countsUtf8BytesWithoutEncoding() {
+        assertEquals(3, RouteMetrics.utf8Length("abc"));
+        assertEquals(2 + 3 + 4, RouteMetrics.utf8Length("é€😀"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.devops;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ServerThreadPoolTest {
+
+    @Test
+    void virtualModeFallsBackToPlatformThreadsBeforeJava21() {
+        ServerThreadPool pool = ServerThreadPool.create(true, 16);
+        assertEquals(Runtime.version().feature() >= 21, pool.isVirtual());
+
+        StringBuilder metrics = new StringBuilder();
+        pool.appendPrometheusMetrics(metrics);
+        assertTrue(metrics.toString().contains(
+                "http_server_thread_mode{mode=\"" + (pool.isVirtual() ? "virtual" : "platform") + "\"} 1"));
+    }
+
+    @Test
+    void tracksRequestsInFlight() {
+        ServerThreadPool pool = ServerThreadPool.create(false, 16);
+        pool.requestStarted();
+        pool.requestStarted();
+        pool.requestFinished();
+        assertEquals(1, pool.inFlightCount());
+
+        StringBuilder metrics = new StringBuilder();
+        pool.appendPrometheusMetrics(metrics);
+        assertTrue(metrics.toString().contains("http_server_requests_in_flight 1\n"));
+        assertTrue(metrics.toString().contains("http_server_requests_total 2\n"));
+        assertTrue(metrics.toString().contains("http_server_threads{state=\"max\"} 16\n"));
+    }
+
+    @Test
+    void virtualThreadPoolRunsEachTask() throws Exception {
+        ServerThreadPool.VirtualThreadPool pool = new ServerThreadPool.VirtualThreadPool(
+                Executors.newCachedThreadPool());
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            pool.execute(done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pool.stop();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.devops;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process HTTP server that stands in for an upstream (GitHub, Jenkins) in the load test.
+ *
+ * Every request first waits a random latency between the configured bounds, then fails
+ * with 503 at the configured error rate before the stub's own handler runs. Both knobs can
+ * be changed while traffic is flowing.
+ */
+abstract class StubServer {
+
+    private final String name;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int minLatencyMillis;
+    private volatile int maxLatencyMillis;
+    private volatile double errorRate;
+
+    StubServer(String name) throws IOException {
+        this.name = name;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, name + "-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** Every response is delayed by a uniformly random time in [min, max] milliseconds. */
+    void setLatency(int minMillis, int maxMillis) {
+        this.minLatencyMillis = Math.max(0, minMillis);
+        this.maxLatencyMillis = Math.max(this.minLatencyMillis, maxMillis);
+    }
+
+    /** Fraction (0..1) of requests answered with 503 instead of reaching the handler. */
+    void setErrorRate(double errorRate) {
+        this.errorRate = Math.max(0, Math.min(1, errorRate));
+    }
+
+    long requestCount() {
+        return requests.sum();
+    }
+
+    long injectedErrorCount() {
+        return injectedErrors.sum();
+    }
+
+    /** Most requests the stub has been working on at once, latency included. */
+    int maxConcurrentRequests() {
+        return maxInFlight.get();
+    }
+
+    /** Handles one request that survived latency and error injection. */
+    protected abstract void handle(HttpExchange exchange) throws IOException;
+
+    private void dispatch(HttpExchange exchange) {
+        requests.increment();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            int latency = minLatencyMillis == maxLatencyMillis ? minLatencyMillis
+                    : ThreadLocalRandom.current().nextInt(minLatencyMillis, maxLatencyMillis + 1);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.increment();
+                respond(exchange, 503, "application/json", "{\"message\":\"" + name + " stub: injected failure\"}");
+                return;
+            }
+            handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            try {
+                respond(exchange, 500, "application/json", "{\"message\":\"" + name + " stub: " + e + "\"}");
+            } catch (IOException ignored) {
+                // Response already started; the client sees a truncated body.
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        if (bytes.length == 0 || status == 304) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static String readBody(HttpExchange exchange) throws IOException {
+        return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.devops;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkflowEngineTest {
+
+    @Test
+    void workflowRunsAllStepsInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WorkflowEngine engine = new WorkflowEngine(
+                new StubGitHub(release), new StubJenkins(42, null), 1, 1, 10);
+        try {
+            CommitWorkflow workflow = engine.submit("a.txt", "hello", "msg");
+            assertTrue(!workflow.isFinished(), "submit must return before the steps complete");
+
+            release.countDown();
+            awaitFinished(workflow);
+
+            assertEquals(CommitWorkflow.State.SUCCEEDED, workflow.getState());
+            assertEquals("abc1234def", workflow.getCommitSha());
+            assertEquals(42, workflow.getBuildNumber());
+            assertTrue(workflow.toJson().toString().contains("\"name\":\"resolve\",\"state\":\"SUCCEEDED\""));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void failingListenerDoesNotFailASucceededWorkflow() throws Exception {
+        CountDownLatch listened = new CountDownLatch(1);
+        WorkflowEngine engine = new WorkflowEngine(
+                new StubGitHub(null), new StubJenkins(7, null), 1, 1, 10,
+                workflow -> {
+                    listened.countDown();
+                    throw new IllegalStateException("history unavailable");
+                });
+        try {
+            CommitWorkflow workflow = engine.submit("a.txt", "hello", "msg");
+            assertTrue(listened.await(5, TimeUnit.SECONDS));
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+            while (engine.activeCount() > 0 && Instant.now().isBefore(deadline)) {
+                LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+            }
+
+            assertEquals(CommitWorkflow.State.SUCCEEDED, workflow.getState());
+            assertNull(workflow.getError());
+            assertEquals(7, workflow.getBuildNumber());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void failingStepIsRecorded() throws Exception {
+        WorkflowEngine engine = new WorkflowEngine(
+                new StubGitHub(null), new StubJenkins(0, "Jenkins returned 500"), 1, 1, 10);
+        try {
+            CommitWorkflow workflow = engine.submit("a.txt", "hello", "msg");
+            awaitFinished(workflow);
+
+            assertEquals(CommitWorkflow.State.FAILED, workflow.getState());
+            assertEquals("Jenkins returned 500", workflow.getError());
+            assertNull(workflow.getBuildNumber());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueRejectsSubmission() {
+        CountDownLatch release = new CountDownLatch(1);
+        WorkflowEngine engine = new WorkflowEngine(
+                new StubGitHub(release), new StubJenkins(1, null), 1, 1, 10);
+        try {
+            engine.submit("a.txt", "1", "m");
+            engine.submit("b.txt", "2", "m");
+            assertThrows(RejectedExecutionException.class, () -> engine.submit("c.txt", "3", "m"));
+        } finally {
+            release.countDown();
+            engine.shutdown();
+        }
+    }
+
+    private static void awaitFinished(CommitWorkflow workflow) {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (!workflow.isFinished() && Instant.now().isBefore(deadline)) {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+        assertTrue(workflow.isFinished(), "workflow did not finish in time");
+    }
+
+    private static final class StubGitHub extends GitHubService {
+        private final CountDownLatch release;
+
+        StubGitHub(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public String commitFile(String filename, String content, String commitMessage) throws Exception {
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return "abc1234def";
+        }
+    }
+
+    private static final class StubJenkins extends JenkinsService {
+        private final int buildNumber;
+        private final String triggerError;
+
+        StubJenkins(int buildNumber, String triggerError) {
+            this.buildNumber = buildNumber;
+            this.triggerError = triggerError;
+        }
+
+        @Override
+        public String triggerBuild() throws Exception {
+            if (triggerError != null) {
+                throw new Exception(triggerError);
+            }
+            return "http://jenkins/queue/item/1/";
+        }
+
+        @Override
+        public int resolveBuildNumber(String queueItemUrl) {
+            return buildNumber;
+        }
+    }
+}